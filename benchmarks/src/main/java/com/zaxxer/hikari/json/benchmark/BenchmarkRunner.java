@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler attached, so that allocation per
+ * operation is reported alongside throughput and latency.  Any standard JMH
+ * command line options may be passed, for example a benchmark regex or
+ * <code>-p payload=menu</code>.
+ */
+public final class BenchmarkRunner
+{
+   private BenchmarkRunner()
+   {
+      // main class
+   }
+
+   public static void main(String[] args) throws RunnerException, CommandLineOptionException
+   {
+      final CommandLineOptions cmdLine = new CommandLineOptions(args);
+      final OptionsBuilder builder = new OptionsBuilder();
+      if (cmdLine.getIncludes().isEmpty()) {
+         builder.include(BenchmarkRunner.class.getPackage().getName() + "\\..*Benchmark\\.");
+      }
+
+      final Options options = builder.parent(cmdLine).addProfiler(GCProfiler.class).build();
+      new Runner(options).run();
+   }
+}
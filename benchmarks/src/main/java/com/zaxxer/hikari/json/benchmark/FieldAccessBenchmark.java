@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.zaxxer.hikari.json.JsonFactory;
+import com.zaxxer.hikari.json.JsonFactory.Option;
+import com.zaxxer.hikari.json.ObjectMapper;
+import com.zaxxer.hikari.json.util.FieldAccess;
+
+/**
+ * The cost of the <code>MethodHandle</code> field access backend relative to the
+ * <code>sun.misc.Unsafe</code> backend, for both parsing and writing.  The backend
+ * is fixed once per JVM, so it is selected in setup, before any HikariJSON class
+ * is initialized; JMH runs each parameter combination in its own fork.  The forks
+ * deliberately omit <code>--add-opens</code>, as a locked-down JDK would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 8, time = 1)
+@Fork(value = 2)
+public class FieldAccessBenchmark
+{
+   @Param({ "unsafe", "methodhandle" })
+   public String backend;
+
+   @Param({ "menu", "AllTypes", "nonest" })
+   public String payload;
+
+   private ObjectMapper mapper;
+   private byte[] json;
+   private Class<?> type;
+   private Object value;
+
+   @Setup
+   public void setup()
+   {
+      System.setProperty(FieldAccess.BACKEND_PROPERTY, backend);
+      if (!backend.equals(FieldAccess.backend())) {
+         throw new IllegalStateException("Field access backend " + FieldAccess.backend() + " was selected before setup");
+      }
+
+      final Payload p = Payload.valueOf(payload);
+      json = p.load();
+      type = p.type;
+      mapper = JsonFactory.option(Option.CONSISTENT_STRUCTURE, Option.FIELD_ACCESS).create();
+
+      // Fail fast, rather than benchmark an exception path
+      value = mapper.readValue(json, type);
+      mapper.writeValueAsString(value);
+   }
+
+   @Benchmark
+   public Object read()
+   {
+      return mapper.readValue(json, type);
+   }
+
+   @Benchmark
+   public String write()
+   {
+      return mapper.writeValueAsString(value);
+   }
+}
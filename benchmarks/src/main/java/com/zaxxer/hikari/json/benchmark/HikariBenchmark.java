@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.zaxxer.hikari.json.JsonFactory;
+import com.zaxxer.hikari.json.JsonFactory.Option;
+import com.zaxxer.hikari.json.ObjectMapper;
+
+/**
+ * Parse throughput and latency of HikariJSON across payloads and option
+ * combinations.  Only payloads whose model classes HikariJSON can currently bind
+ * are listed; add to the <code>payload</code> parameter as support grows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 8, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-XX:+IgnoreUnrecognizedVMOptions", "--add-opens=java.base/java.nio=ALL-UNNAMED", "--add-opens=java.base/java.lang=ALL-UNNAMED" })
+public class HikariBenchmark
+{
+   @Param({ "menu", "AllTypes", "nest", "nonest", "sampleJson1" })
+   public String payload;
+
+   @Param({ "FIELD_ACCESS,VALUES_UTF8", "FIELD_ACCESS,VALUES_ASCII", "GENERATED_ACCESS,VALUES_UTF8", "GENERATED_ACCESS,VALUES_ASCII" })
+   public String options;
+
+   private ObjectMapper mapper;
+   private byte[] json;
+   private Class<?> type;
+
+   @Setup
+   public void setup()
+   {
+      final Payload p = Payload.valueOf(payload);
+      json = p.load();
+      type = p.type;
+
+      final String[] names = options.split(",");
+      final Option[] opts = new Option[names.length + 1];
+      opts[0] = Option.CONSISTENT_STRUCTURE;
+      for (int i = 0; i < names.length; i++) {
+         opts[i + 1] = Option.valueOf(names[i]);
+      }
+      mapper = JsonFactory.option(opts).create();
+
+      // Fail fast, rather than benchmark an exception path
+      mapper.readValue(json, type);
+   }
+
+   @Benchmark
+   public Object inputStream()
+   {
+      return mapper.readValue(new ByteArrayInputStream(json), type);
+   }
+
+   @Benchmark
+   public Object byteArray()
+   {
+      return mapper.readValue(json, type);
+   }
+}
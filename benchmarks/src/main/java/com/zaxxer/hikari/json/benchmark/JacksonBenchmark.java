@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Jackson databind baseline over the same payloads and model classes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 8, time = 1)
+@Fork(2)
+public class JacksonBenchmark
+{
+   @Param({ "menu", "AllTypes", "arrayOfAllType", "actionLabel", "departments", "employees2", "nest", "nonest",
+            "sampleJson1", "widget", "webapp", "citm_catalog", "citm2" })
+   public String payload;
+
+   private ObjectMapper mapper;
+   private byte[] json;
+   private Class<?> type;
+
+   @Setup
+   public void setup() throws IOException
+   {
+      final Payload p = Payload.valueOf(payload);
+      json = p.load();
+      type = p.type;
+
+      mapper = new ObjectMapper();
+      mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+      mapper.readValue(json, type);
+   }
+
+   @Benchmark
+   public Object inputStream() throws IOException
+   {
+      return mapper.readValue(new ByteArrayInputStream(json), type);
+   }
+
+   @Benchmark
+   public Object byteArray() throws IOException
+   {
+      return mapper.readValue(json, type);
+   }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.zaxxer.hikari.json.benchmark.model.ActionLabel;
+import com.zaxxer.hikari.json.benchmark.model.AllType;
+import com.zaxxer.hikari.json.benchmark.model.CitmCatalog;
+import com.zaxxer.hikari.json.benchmark.model.Department;
+import com.zaxxer.hikari.json.benchmark.model.Glossary;
+import com.zaxxer.hikari.json.benchmark.model.MenuBar;
+import com.zaxxer.hikari.json.benchmark.model.Nest;
+import com.zaxxer.hikari.json.benchmark.model.NoNest;
+import com.zaxxer.hikari.json.benchmark.model.WebApp;
+import com.zaxxer.hikari.json.benchmark.model.Widget;
+
+/**
+ * The benchmark payloads, each bound to the model class it is parsed into.  The
+ * payload files are the test resources of the main project.
+ */
+public enum Payload
+{
+   menu("menu.json", MenuBar.class),
+   AllTypes("AllTypes.json", AllType.class),
+   arrayOfAllType("arrayOfAllType.json", AllType[].class),
+   actionLabel("actionLabel.json", ActionLabel.class),
+   departments("departments.json", Department[].class),
+   employees2("employees2.json", Department[].class),
+   nest("nest.json", Nest.class),
+   nonest("nonest.json", NoNest.class),
+   sampleJson1("sampleJson1.json", Glossary.class),
+   widget("widget.json", Widget.class),
+   webapp("webapp.json", WebApp.class),
+   citm_catalog("citm_catalog.json", CitmCatalog.class),
+   citm2("citm2.json", CitmCatalog.class);
+
+   public final String resource;
+   public final Class<?> type;
+
+   Payload(final String resource, final Class<?> type)
+   {
+      this.resource = resource;
+      this.type = type;
+   }
+
+   public byte[] load()
+   {
+      try (InputStream is = Payload.class.getResourceAsStream("/" + resource)) {
+         if (is == null) {
+            throw new RuntimeException("Payload resource not found: " + resource);
+         }
+
+         final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+         final byte[] buf = new byte[8192];
+         for (int read = is.read(buf); read != -1; read = is.read(buf)) {
+            baos.write(buf, 0, read);
+         }
+         return baos.toByteArray();
+      }
+      catch (IOException e) {
+         throw new RuntimeException(e);
+      }
+   }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json.benchmark.model;
+
+import java.util.Date;
+import java.util.List;
+
+import com.zaxxer.hikari.json.JsonProperty;
+
+/**
+ * AllTypes.json, and the elements of arrayOfAllType.json
+ */
+public class AllType
+{
+   public int myInt;
+   public float myFloat;
+   public double myDouble;
+   public short myShort;
+   public boolean myBoolean;
+   public String string;
+   public String string2;
+   public byte myByte;
+   @JsonProperty(name = "date")
+   @com.fasterxml.jackson.annotation.JsonProperty("date")
+   @com.google.gson.annotations.SerializedName("date")
+   public Date _date;
+
+   public AllType allType;
+
+   public List<AllType> allTypeList;
+}
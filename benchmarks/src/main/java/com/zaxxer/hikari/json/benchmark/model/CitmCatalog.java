@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json.benchmark.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * citm_catalog.json and citm2.json
+ */
+public class CitmCatalog
+{
+   public Map<String, String> areaNames;
+   public Map<String, String> audienceSubCategoryNames;
+   public Map<String, String> blockNames;
+   public Map<String, Event> events;
+   public List<Performance> performances;
+   public Map<String, String> seatCategoryNames;
+   public Map<String, String> subTopicNames;
+   public Map<String, String> subjectNames;
+   public Map<String, String> topicNames;
+   public Map<String, List<Long>> topicSubTopics;
+   public Map<String, String> venueNames;
+
+   public static class Event
+   {
+      public String description;
+      public long id;
+      public String logo;
+      public String name;
+      public List<Long> subTopicIds;
+      public String subjectCode;
+      public String subtitle;
+      public List<Long> topicIds;
+   }
+
+   public static class Performance
+   {
+      public long eventId;
+      public long id;
+      public String logo;
+      public String name;
+      public List<Price> prices;
+      public List<SeatCategory> seatCategories;
+      public String seatMapImage;
+      public long start;
+      public String venueCode;
+   }
+
+   public static class Price
+   {
+      public long amount;
+      public long audienceSubCategoryId;
+      public long seatCategoryId;
+   }
+
+   public static class SeatCategory
+   {
+      public List<Area> areas;
+      public long seatCategoryId;
+   }
+
+   public static class Area
+   {
+      public long areaId;
+      public List<Long> blockIds;
+   }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json.benchmark.model;
+
+import java.util.List;
+
+/**
+ * The elements of departments.json and employees2.json
+ */
+public class Department
+{
+   public String name;
+   public List<Employee> employees;
+
+   public static class Employee
+   {
+      public long id;
+      public long salary;
+      public String firstName;
+      public String lastName;
+      public ContactInfo contactInfo;
+   }
+
+   public static class ContactInfo
+   {
+      public List<String> phoneNumbers;
+   }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json.benchmark.model;
+
+import java.util.List;
+
+/**
+ * sampleJson1.json
+ */
+public class Glossary
+{
+   public Body glossary;
+
+   public static class Body
+   {
+      public String title;
+      public Div GlossDiv;
+   }
+
+   public static class Div
+   {
+      public String title;
+      public EntryList GlossList;
+   }
+
+   public static class EntryList
+   {
+      public Entry GlossEntry;
+   }
+
+   public static class Entry
+   {
+      public String ID;
+      public String SortAs;
+      public String GlossTerm;
+      public String Acronym;
+      public String Abbrev;
+      public Definition GlossDef;
+      public String GlossSee;
+   }
+
+   public static class Definition
+   {
+      public String para;
+      public List<String> GlossSeeAlso;
+   }
+}
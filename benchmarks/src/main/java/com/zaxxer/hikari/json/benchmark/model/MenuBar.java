@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json.benchmark.model;
+
+import java.util.List;
+
+/**
+ * menu.json
+ */
+public class MenuBar
+{
+   public Menu menu;
+
+   public static class Menu
+   {
+      public String id;
+      public String value;
+      public Popup popup;
+   }
+
+   public static class Popup
+   {
+      public List<MenuItem> menuitem;
+   }
+
+   public static class MenuItem
+   {
+      public String value;
+      public String onclick;
+   }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json.benchmark.model;
+
+/**
+ * nest.json
+ */
+public class Nest
+{
+   public Nest0 nest0;
+
+   public static class Nest0
+   {
+      public Nest1 nest1;
+   }
+
+   public static class Nest1
+   {
+      public Nest2 nest2;
+   }
+
+   public static class Nest2
+   {
+      public Nest3 nest3;
+   }
+
+   public static class Nest3
+   {
+      public int value1;
+   }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json.benchmark.model;
+
+import java.util.List;
+import java.util.Map;
+
+import com.zaxxer.hikari.json.JsonProperty;
+
+/**
+ * webapp.json
+ */
+public class WebApp
+{
+   @JsonProperty(name = "web-app")
+   @com.fasterxml.jackson.annotation.JsonProperty("web-app")
+   @com.google.gson.annotations.SerializedName("web-app")
+   public Body webApp;
+
+   public static class Body
+   {
+      public List<Servlet> servlet;
+
+      @JsonProperty(name = "servlet-mapping")
+      @com.fasterxml.jackson.annotation.JsonProperty("servlet-mapping")
+      @com.google.gson.annotations.SerializedName("servlet-mapping")
+      public Map<String, String> servletMapping;
+
+      public Taglib taglib;
+   }
+
+   public static class Servlet
+   {
+      @JsonProperty(name = "servlet-name")
+      @com.fasterxml.jackson.annotation.JsonProperty("servlet-name")
+      @com.google.gson.annotations.SerializedName("servlet-name")
+      public String servletName;
+
+      @JsonProperty(name = "servlet-class")
+      @com.fasterxml.jackson.annotation.JsonProperty("servlet-class")
+      @com.google.gson.annotations.SerializedName("servlet-class")
+      public String servletClass;
+
+      @JsonProperty(name = "init-param")
+      @com.fasterxml.jackson.annotation.JsonProperty("init-param")
+      @com.google.gson.annotations.SerializedName("init-param")
+      public Map<String, Object> initParam;
+   }
+
+   public static class Taglib
+   {
+      @JsonProperty(name = "taglib-uri")
+      @com.fasterxml.jackson.annotation.JsonProperty("taglib-uri")
+      @com.google.gson.annotations.SerializedName("taglib-uri")
+      public String taglibUri;
+
+      @JsonProperty(name = "taglib-location")
+      @com.fasterxml.jackson.annotation.JsonProperty("taglib-location")
+      @com.google.gson.annotations.SerializedName("taglib-location")
+      public String taglibLocation;
+   }
+}
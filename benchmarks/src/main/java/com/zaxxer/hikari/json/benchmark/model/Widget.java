@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json.benchmark.model;
+
+import java.util.List;
+
+/**
+ * widget.json
+ */
+public class Widget
+{
+   public List<Double> nums;
+   public List<Double> nums2;
+   public List<Double> nums3;
+   public Body widget;
+
+   public static class Body
+   {
+      public String debug;
+      public Window window;
+      public Image image;
+      public Text text;
+   }
+
+   public static class Window
+   {
+      public String title;
+      public String name;
+      public int width;
+      public int height;
+   }
+
+   public static class Image
+   {
+      public String src;
+      public String name;
+      public int hOffset;
+      public int vOffset;
+      public String alignment;
+   }
+
+   public static class Text
+   {
+      public String data;
+      public int size;
+      public String style;
+      public String name;
+      public int hOffset;
+      public int vOffset;
+      public String alignment;
+      public String onMouseUp;
+   }
+}
@@ -2,8 +2,10 @@ package com.zaxxer.hikari.json;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.function.Supplier;
 
 import com.zaxxer.hikari.json.serializer.FieldBasedJsonMapper;
+import com.zaxxer.hikari.json.util.ClassUtils;
 
 
 public class JsonFactory
@@ -15,8 +17,18 @@ public class JsonFactory
       VALUES_ASCII,
       VALUES_UTF8,
       FIELD_ACCESS,
+      GENERATED_ACCESS,
+      /** Bind members through their setters, and classes without a no-arg constructor through a constructor taking all of their fields */
       BEAN_ACCESS,
-      COLLECTION_CLASS;
+      /** Create instances of classes without a no-arg constructor through Unsafe.allocateInstance, running no constructor or field initializer */
+      ALLOCATE_INSTANCES,
+      COLLECTION_CLASS,
+      /** Fail on members that do not map to a field, rather than skipping their values */
+      FAIL_ON_UNKNOWN_MEMBERS,
+      /** Share String instances between repeated short string values, through a bounded per-thread cache */
+      CACHE_STRING_VALUES,
+      /** Cache parsed date values in a bounded per-thread cache of the specified (Integer) number of slots, keyed on their bytes */
+      DATE_CACHE_SIZE;
    }
 
    public static FactoryOptions option(Option...options)
@@ -39,6 +51,37 @@ public class JsonFactory
          .create();
    }
 
+   /**
+    * Pre-register the specified classes, building their field metadata (and that of
+    * every class reachable from them) up front.  This is optional; metadata is
+    * otherwise built on first use, which is safe under concurrency but pays the
+    * reflection cost during the first parse of each type.
+    *
+    * @param classes the classes that will be parsed
+    */
+   public static void register(Class<?>... classes)
+   {
+      ClassUtils.register(classes);
+   }
+
+   /**
+    * Take new instances of the specified class from a pool, ahead of constructing
+    * them.  The pool returns null when it is empty, in which case an instance is
+    * constructed as usual.  Pooled instances are parsed into as they are, so the
+    * pool should clear any state that a document may not overwrite.  Combined with
+    * {@link ObjectMapper#readValue(java.io.InputStream, Object)}, recycling the
+    * objects of each message once it has been processed allows a steady stream of
+    * messages to be parsed with almost no garbage.
+    *
+    * @param <T> the type of the pooled instances
+    * @param type the class whose instances are pooled
+    * @param pool the pool, or null to remove a registered pool
+    */
+   public static <T> void registerPool(final Class<T> type, final Supplier<? extends T> pool)
+   {
+      ClassUtils.reflect(type).setInstancePool(pool);
+   }
+
    /**
     *
     */
@@ -67,7 +110,7 @@ public class JsonFactory
        */
       public ObjectMapper create()
       {
-         if (options.containsKey(Option.FIELD_ACCESS))
+         if (options.containsKey(Option.FIELD_ACCESS) || options.containsKey(Option.GENERATED_ACCESS) || options.containsKey(Option.BEAN_ACCESS))
          {
                return new FieldBasedJsonMapper(options);               
          }
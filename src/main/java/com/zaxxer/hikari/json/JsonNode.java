@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json;
+
+import java.math.BigDecimal;
+import java.util.Iterator;
+
+/**
+ * A read-only view of a value within a document parsed by
+ * {@link ObjectMapper#readTree(byte[])}.  The document is indexed once into a
+ * compact structural tape of token offsets; member names are matched against the
+ * raw bytes, and strings and numbers are only decoded when their value is
+ * requested, so reading a few members of a large document allocates little more
+ * than the tape itself.  Nodes are immutable and may be shared between threads.
+ * Iterating an object or array node yields its member values or elements.
+ *
+ * @author Brett Wooldridge
+ */
+public interface JsonNode extends Iterable<JsonNode>
+{
+   boolean isObject();
+
+   boolean isArray();
+
+   boolean isString();
+
+   boolean isNumber();
+
+   boolean isBoolean();
+
+   boolean isNull();
+
+   /**
+    * @return the number of members of an object or elements of an array, otherwise 0
+    */
+   int size();
+
+   /**
+    * Get the value of a member of an object.
+    *
+    * @param name the member name
+    * @return the value, or null if this is not an object or has no such member
+    */
+   JsonNode get(String name);
+
+   /**
+    * Get an element of an array.
+    *
+    * @param index the index of the element
+    * @return the element, or null if this is not an array or the index is out of range
+    */
+   JsonNode get(int index);
+
+   /**
+    * Get the value located by a JSON Pointer (RFC 6901) relative to this node,
+    * such as <code>/menu/items/0/id</code>.
+    *
+    * @param pointer the JSON Pointer, or "" for this node
+    * @return the value, or null if the pointer does not resolve
+    */
+   JsonNode at(String pointer);
+
+   /**
+    * @return the member names of an object, decoded as they are iterated
+    */
+   Iterator<String> fieldNames();
+
+   /**
+    * @return the decoded value of a string
+    * @throws RuntimeException if this is not a string
+    */
+   String stringValue();
+
+   /**
+    * @return the value of an integral number
+    * @throws RuntimeException if this is not a number, or not a long
+    */
+   long longValue();
+
+   /**
+    * @return the value of an integral number
+    * @throws RuntimeException if this is not a number, or not an int
+    */
+   int intValue();
+
+   /**
+    * @return the value of a number
+    * @throws RuntimeException if this is not a number
+    */
+   double doubleValue();
+
+   /**
+    * @return the exact value of a number
+    * @throws RuntimeException if this is not a number
+    */
+   BigDecimal decimalValue();
+
+   /**
+    * @return the value of a boolean
+    * @throws RuntimeException if this is not a boolean
+    */
+   boolean booleanValue();
+
+   /**
+    * @return the JSON text of this value, exactly as it appears in the document
+    */
+   @Override
+   String toString();
+}
@@ -16,4 +16,6 @@ import java.lang.annotation.Target;
 public @interface JsonProperty {
    String name() default "";
    boolean exclude() default false;
+   /** Share String instances between repeated values of this member, see {@link JsonFactory.Option#CACHE_STRING_VALUES} */
+   boolean cacheValue() default false;
 }
@@ -19,8 +19,12 @@ package com.zaxxer.hikari.json;
 
 
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.util.Collection;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * This mapper (or, data binder, or codec) provides functionality for converting between Java objects
@@ -58,6 +62,179 @@ public interface ObjectMapper
      */
     <T> T readValue(InputStream src, Class<T> valueType);
 
+    /**
+     * Method to deserialize JSON content held in a byte array into a
+     * non-container type typically a bean or wrapper type.  The array
+     * is parsed in place, without being copied.
+     * @param <T> the type of the value to deserialize
+     * @param src a byte array containing UTF-8 encoded JSON
+     * @param valueType the type of the value to deserialize
+     * @return the deserialized Java object
+     */
+    <T> T readValue(byte[] src, Class<T> valueType);
+
+    /**
+     * Method to deserialize JSON content held in a region of a byte array
+     * into a non-container type typically a bean or wrapper type.  The
+     * array is parsed in place, without being copied.
+     * @param <T> the type of the value to deserialize
+     * @param src a byte array containing UTF-8 encoded JSON
+     * @param offset the index of the first byte of the JSON content
+     * @param length the number of bytes of JSON content
+     * @param valueType the type of the value to deserialize
+     * @return the deserialized Java object
+     */
+    <T> T readValue(byte[] src, int offset, int length, Class<T> valueType);
+
+    /**
+     * Method to deserialize the remaining JSON content of a ByteBuffer into
+     * a non-container type typically a bean or wrapper type.  Heap buffers
+     * are parsed in place, without being copied; direct and memory-mapped
+     * buffers are transferred in bulk through the parser's buffer, so even
+     * very large mapped files are parsed in constant memory.  The position
+     * of the buffer is not modified.
+     * @param <T> the type of the value to deserialize
+     * @param src a ByteBuffer containing UTF-8 encoded JSON
+     * @param valueType the type of the value to deserialize
+     * @return the deserialized Java object
+     */
+    <T> T readValue(ByteBuffer src, Class<T> valueType);
+
+    /**
+     * Method to deserialize JSON content into an existing instance, rather
+     * than a new one.  Members present in the content overwrite the fields
+     * of the instance, and fields of absent members keep their values.  A
+     * nested object is parsed into the instance already held by its field,
+     * if the field holds an instance of exactly the declared class, and a
+     * collection or map already held by a field is cleared and refilled in
+     * place.  Together with an instance pool registered through
+     * {@link JsonFactory#registerPool}, this allows a steady stream of
+     * messages to be parsed with almost no garbage.
+     * @param <T> the type of the value to deserialize
+     * @param src an InputStream providing JSON data
+     * @param existing the instance to deserialize into
+     * @return the existing instance
+     */
+    <T> T readValue(InputStream src, T existing);
+
+    /**
+     * Method to deserialize JSON content held in a byte array into an
+     * existing instance, as {@link #readValue(InputStream, Object)}.
+     * @param <T> the type of the value to deserialize
+     * @param src a byte array containing UTF-8 encoded JSON
+     * @param existing the instance to deserialize into
+     * @return the existing instance
+     */
+    <T> T readValue(byte[] src, T existing);
+
+    /**
+     * Method to deserialize the elements of a top-level JSON array one at a
+     * time.  Only the current element is materialized, so documents of any
+     * size are read in constant memory.  Elements must be objects or null.
+     *<p>
+     * Note: the returned iterator should be closed if it is abandoned before
+     * it is exhausted.
+     * @param <T> the type of the elements to deserialize
+     * @param src an InputStream providing JSON data
+     * @param elementType the type of the elements to deserialize
+     * @return an iterator over the deserialized elements
+     */
+    <T> ValueIterator<T> readValues(InputStream src, Class<T> elementType);
+
+    /**
+     * Method to deserialize the elements of a JSON array nested within the
+     * document one at a time.  The array is located by a JSON Pointer
+     * (RFC 6901) made up of member names, such as <code>/data/items</code>;
+     * members that are not on the path are skipped without being bound.
+     * @param <T> the type of the elements to deserialize
+     * @param src an InputStream providing JSON data
+     * @param arrayPointer the JSON Pointer to the array, or "" for a top-level array
+     * @param elementType the type of the elements to deserialize
+     * @return an iterator over the deserialized elements
+     */
+    <T> ValueIterator<T> readValues(InputStream src, String arrayPointer, Class<T> elementType);
+
+    /**
+     * Method to deserialize the elements of a top-level JSON array as a
+     * sequential Stream.  Closing the stream releases the parser.
+     * @param <T> the type of the elements to deserialize
+     * @param src an InputStream providing JSON data
+     * @param elementType the type of the elements to deserialize
+     * @return a stream of the deserialized elements
+     */
+    <T> Stream<T> streamValues(InputStream src, Class<T> elementType);
+
+    /**
+     * Method to deserialize the elements of a JSON array nested within the
+     * document as a sequential Stream.  Closing the stream releases the parser.
+     * @param <T> the type of the elements to deserialize
+     * @param src an InputStream providing JSON data
+     * @param arrayPointer the JSON Pointer to the array, or "" for a top-level array
+     * @param elementType the type of the elements to deserialize
+     * @return a stream of the deserialized elements
+     */
+    <T> Stream<T> streamValues(InputStream src, String arrayPointer, Class<T> elementType);
+
+    /**
+     * Method to deserialize the elements of a top-level JSON array, passing
+     * each to the consumer as soon as it is parsed.
+     * @param <T> the type of the elements to deserialize
+     * @param src an InputStream providing JSON data
+     * @param elementType the type of the elements to deserialize
+     * @param consumer the consumer of the deserialized elements
+     */
+    <T> void readValues(InputStream src, Class<T> elementType, Consumer<? super T> consumer);
+
+    /**
+     * Method to create a non-blocking parser for a single JSON object.
+     * Chunks of the document are pushed to the parser as they arrive, so
+     * a request body can be parsed on an event-loop thread without being
+     * aggregated first and without blocking for more data.
+     * @param <T> the type of the value to deserialize
+     * @param valueType the type of the value to deserialize
+     * @return a new push parser
+     */
+    <T> PushParser<T> createPushParser(Class<T> valueType);
+
+    /**
+     * Method to index JSON content held in a byte array for lazy access,
+     * without binding it to a type.  The document is validated and scanned
+     * once into a compact structural tape; values are decoded only when
+     * read through the returned node.  The array is referenced, not copied,
+     * and must not be modified while the tree is in use.
+     * @param src a byte array containing UTF-8 encoded JSON
+     * @return the root value of the document
+     */
+    JsonNode readTree(byte[] src);
+
+    /**
+     * Method to index JSON content held in a region of a byte array for
+     * lazy access, as {@link #readTree(byte[])}.
+     * @param src a byte array containing UTF-8 encoded JSON
+     * @param offset the index of the first byte of the JSON content
+     * @param length the number of bytes of JSON content
+     * @return the root value of the document
+     */
+    JsonNode readTree(byte[] src, int offset, int length);
+
+    /**
+     * Method to read JSON content to the end of an InputStream and index it
+     * for lazy access, as {@link #readTree(byte[])}.
+     * @param src an InputStream providing JSON data
+     * @return the root value of the document
+     */
+    JsonNode readTree(InputStream src);
+
+    /**
+     * Method to compile a set of JSON Pointers (RFC 6901), such as
+     * <code>/menu/popup/menuitem/0/value</code>, into a query that extracts
+     * only the values they locate.  Everything else is skipped as the
+     * document is scanned, and reading stops once every pointer is resolved.
+     * @param pointers the JSON Pointers, where "" locates the whole document
+     * @return a reusable, thread-safe query
+     */
+    PathQuery compileQuery(String... pointers);
+
     /**
      * Method to deserialize JSON content into a container like Set or List.
      *<p>
@@ -99,7 +276,18 @@ public interface ObjectMapper
      * @param dest the destination Write to serialize the specified value to
      * @param value the value to serialize
      */
-     // void writeValue(Writer dest, Object value);
+     void writeValue(Writer dest, Object value);
+
+    /**
+     * Method that can be used to serialize any Java value as
+     * UTF-8 encoded JSON output, using OutputStream provided.
+     *<p>
+     * Note: method does not close the underlying stream explicitly
+     * here.
+     * @param dest the destination OutputStream to serialize the specified value to
+     * @param value the value to serialize
+     */
+     void writeValue(OutputStream dest, Object value);
 
     /**
      * Method that can be used to serialize any Java value as
@@ -109,7 +297,7 @@ public interface ObjectMapper
      * @param value the value to serialize
      * @return a String containing the serialized value object
      */
-     // String writeValueAsString(Object value);
+     String writeValueAsString(Object value);
 
 //     JsonParserAndMapper parser();
 
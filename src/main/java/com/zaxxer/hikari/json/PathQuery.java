@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json;
+
+import java.io.InputStream;
+
+/**
+ * A set of JSON Pointers (RFC 6901) compiled by
+ * {@link ObjectMapper#compileQuery(String...)}, evaluated against a document as
+ * it is scanned.  Members and elements that are not on the path to a requested
+ * value are skipped without being decoded, and reading stops as soon as every
+ * pointer has either been matched or can no longer match.  A compiled query is
+ * immutable and may be evaluated concurrently by any number of threads.
+ *
+ * @author Brett Wooldridge
+ */
+public interface PathQuery
+{
+   /**
+    * Evaluate the query against the document provided by a stream.  The stream is
+    * not read beyond the block containing the end of the last value required.
+    *
+    * @param src an InputStream providing JSON data
+    * @return the value located by each pointer, in the order the pointers were
+    *         compiled, or null for a pointer that does not resolve
+    */
+   JsonNode[] evaluate(InputStream src);
+
+   /**
+    * Evaluate the query against a document held in a byte array.
+    *
+    * @param src a byte array containing UTF-8 encoded JSON
+    * @return the value located by each pointer, or null for a pointer that does not resolve
+    */
+   JsonNode[] evaluate(byte[] src);
+
+   /**
+    * Evaluate the query against a document held in a region of a byte array.
+    *
+    * @param src a byte array containing UTF-8 encoded JSON
+    * @param offset the index of the first byte of the JSON content
+    * @param length the number of bytes of JSON content
+    * @return the value located by each pointer, or null for a pointer that does not resolve
+    */
+   JsonNode[] evaluate(byte[] src, int offset, int length);
+}
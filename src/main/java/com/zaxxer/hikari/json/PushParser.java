@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A non-blocking parser for a single JSON object, returned by
+ * {@link ObjectMapper#createPushParser(Class)}.  Data is pushed to the parser in
+ * chunks of any size, as it arrives, and is consumed immediately; only a token
+ * that is split across chunks is retained between calls.  A push parser is
+ * intended for a single document and is not thread-safe, although successive
+ * chunks may be fed from different threads.
+ *
+ * @param <T> the type of the value being parsed
+ * @author Brett Wooldridge
+ */
+public interface PushParser<T>
+{
+   /**
+    * Consume the remaining bytes of the buffer, advancing its position to its limit.
+    *
+    * @param chunk a buffer containing the next bytes of UTF-8 encoded JSON
+    * @return true if the value is complete
+    */
+   boolean feed(ByteBuffer chunk);
+
+   /**
+    * Consume the specified region of a byte array.
+    *
+    * @param chunk an array containing the next bytes of UTF-8 encoded JSON
+    * @param offset the index of the first byte
+    * @param length the number of bytes
+    * @return true if the value is complete
+    */
+   boolean feed(byte[] chunk, int offset, int length);
+
+   /**
+    * @return true if the closing curly brace of the value has been consumed
+    */
+   boolean isComplete();
+
+   /**
+    * Signal that no more data will be fed.
+    *
+    * @return the parsed value
+    * @throws RuntimeException if the value is incomplete
+    */
+   T endOfInput();
+}
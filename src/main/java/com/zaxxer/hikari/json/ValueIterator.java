@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json;
+
+import java.util.Iterator;
+
+/**
+ * An iterator over the elements of a JSON array that is parsed one element at a
+ * time, returned by {@link ObjectMapper#readValues(java.io.InputStream, Class)}.
+ * The iterator holds parser state until the array is exhausted or the iterator is
+ * closed; closing it does not close the underlying stream.
+ *
+ * @param <T> the element type
+ * @author Brett Wooldridge
+ */
+public interface ValueIterator<T> extends Iterator<T>, AutoCloseable
+{
+   /**
+    * Release the parser held by this iterator.  Further calls to
+    * {@link #hasNext()} return false.
+    */
+   @Override
+   void close();
+}
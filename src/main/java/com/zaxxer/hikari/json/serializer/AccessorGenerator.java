@@ -0,0 +1,262 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json.serializer;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import javassist.ClassClassPath;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zaxxer.hikari.json.util.Clazz;
+import com.zaxxer.hikari.json.util.Phield;
+import com.zaxxer.hikari.json.util.Types;
+
+/**
+ * Generates a {@link GeneratedAccessor} per {@link Clazz} using Javassist.  The
+ * generated class stores values with direct field writes selected by a dense
+ * <code>tableswitch</code> over the member index resolved by {@link Clazz#lookup},
+ * and constructs instances with a direct constructor call.  The class is defined
+ * in the package and class loader of the target class, so package-private members
+ * are accessible; private or final fields, private classes, and classes without an
+ * accessible no-arg constructor fall back to the reflective path.  On JDK 9 and later the class is defined through a private
+ * <code>MethodHandles.Lookup</code> on the target class, which unlike Javassist's
+ * <code>ClassLoader.defineClass</code> hack needs no <code>--add-opens</code>.
+ *
+ * @author Brett Wooldridge
+ */
+final class AccessorGenerator
+{
+   private static final Logger LOGGER = LoggerFactory.getLogger(AccessorGenerator.class);
+
+   private static final String SUFFIX = "$$HikariAccessor";
+
+   // MethodHandles.privateLookupIn(Class, Lookup) and Lookup.defineClass(byte[]), JDK 9 and later
+   private static final Method PRIVATE_LOOKUP_IN;
+   private static final Method DEFINE_CLASS;
+
+   static
+   {
+      Method privateLookupIn = null;
+      Method defineClass = null;
+      try {
+         privateLookupIn = MethodHandles.class.getMethod("privateLookupIn", Class.class, MethodHandles.Lookup.class);
+         defineClass = MethodHandles.Lookup.class.getMethod("defineClass", byte[].class);
+      }
+      catch (NoSuchMethodException e) {
+         privateLookupIn = null;
+      }
+      PRIVATE_LOOKUP_IN = privateLookupIn;
+      DEFINE_CLASS = (privateLookupIn != null ? defineClass : null);
+   }
+
+   private AccessorGenerator()
+   {
+      // utility class
+   }
+
+   /**
+    * Get the generated accessor for the specified class, generating it on first use.
+    *
+    * @param clazz the class to get the accessor for
+    * @return the accessor, or null if an accessor cannot be generated for the class
+    */
+   static GeneratedAccessor accessorFor(final Clazz clazz)
+   {
+      final GeneratedAccessor accessor = clazz.getGeneratedAccessor();
+      if (accessor != null || clazz.isAccessorResolved()) {
+         return accessor;
+      }
+
+      synchronized (clazz) {
+         if (!clazz.isAccessorResolved()) {
+            clazz.setGeneratedAccessor(generate(clazz));
+         }
+         return clazz.getGeneratedAccessor();
+      }
+   }
+
+   private static GeneratedAccessor generate(final Clazz clazz)
+   {
+      final Class<?> targetClass = clazz.getActualClass();
+      if (!isGeneratable(clazz)) {
+         LOGGER.debug("Unable to generate accessor for {}, using reflective access", targetClass);
+         return null;
+      }
+
+      final ClassLoader loader = (targetClass.getClassLoader() != null ? targetClass.getClassLoader() : AccessorGenerator.class.getClassLoader());
+      try {
+         final ClassPool pool = new ClassPool(true);
+         pool.appendClassPath(new LoaderClassPath(loader));
+         pool.appendClassPath(new ClassClassPath(GeneratedAccessor.class));
+
+         final CtClass ctClass = pool.makeClass(targetClass.getName() + SUFFIX, pool.get(GeneratedAccessor.class.getName()));
+         ctClass.addMethod(CtNewMethod.make(generateSetMember(clazz), ctClass));
+         ctClass.addMethod(CtNewMethod.make(generateNewInstance(clazz), ctClass));
+
+         final Class<?> accessorClass = defineClass(ctClass, targetClass, loader);
+         ctClass.detach();
+
+         return (GeneratedAccessor) accessorClass.getDeclaredConstructor().newInstance();
+      }
+      catch (LinkageError e) {
+         // Another copy of this class's metadata, built by a concurrent first-time parse, got there first
+         try {
+            return (GeneratedAccessor) Class.forName(targetClass.getName() + SUFFIX, true, loader).getDeclaredConstructor().newInstance();
+         }
+         catch (Exception | LinkageError e2) {
+            LOGGER.debug("Unable to generate accessor for {}, using reflective access", targetClass, e);
+            return null;
+         }
+      }
+      catch (Exception e) {
+         LOGGER.debug("Unable to generate accessor for {}, using reflective access", targetClass, e);
+         return null;
+      }
+   }
+
+   private static Class<?> defineClass(final CtClass ctClass, final Class<?> targetClass, final ClassLoader loader) throws Exception
+   {
+      if (DEFINE_CLASS == null) {
+         return ctClass.toClass(loader, targetClass.getProtectionDomain());
+      }
+
+      try {
+         final Object lookup = PRIVATE_LOOKUP_IN.invoke(null, targetClass, MethodHandles.lookup());
+         return (Class<?>) DEFINE_CLASS.invoke(lookup, (Object) ctClass.toBytecode());
+      }
+      catch (InvocationTargetException e) {
+         if (e.getCause() instanceof LinkageError) {
+            throw (LinkageError) e.getCause();
+         }
+         throw e;
+      }
+   }
+
+   private static boolean isGeneratable(final Clazz clazz)
+   {
+      final Class<?> targetClass = clazz.getActualClass();
+      for (Class<?> c = targetClass; c != null; c = c.getEnclosingClass()) {
+         if (Modifier.isPrivate(c.getModifiers())) {
+            return false;
+         }
+      }
+
+      if (targetClass.isInterface() || Modifier.isAbstract(targetClass.getModifiers())
+          || (targetClass.isMemberClass() && !Modifier.isStatic(targetClass.getModifiers()))) {
+         return false;
+      }
+
+      try {
+         final Constructor<?> constructor = targetClass.getDeclaredConstructor();
+         if (Modifier.isPrivate(constructor.getModifiers())) {
+            return false;
+         }
+      }
+      catch (NoSuchMethodException e) {
+         return false;
+      }
+
+      for (Phield phield : clazz.getPhields()) {
+         final Field field = phield.field;
+         if (!phield.excluded && (Modifier.isPrivate(field.getModifiers()) || Modifier.isFinal(field.getModifiers()))) {
+            return false;
+         }
+      }
+
+      return true;
+   }
+
+   private static String generateSetMember(final Clazz clazz)
+   {
+      final String targetName = typeName(clazz.getActualClass());
+      final Phield[] phields = clazz.getPhields();
+
+      final StringBuilder sb = new StringBuilder();
+      sb.append("public void setMember(int index, ").append(ParseContext.class.getName()).append(" context) {\n");
+      sb.append("   ").append(targetName).append(" target = (").append(targetName).append(") context.target;\n");
+      sb.append("   switch (index) {\n");
+      for (int i = 0; i < phields.length; i++) {
+         final Phield phield = phields[i];
+         final String value = valueExpression(phield);
+         if (phield.excluded || value == null) {
+            continue;
+         }
+
+         sb.append("   case ").append(i).append(": target.").append(phield.field.getName()).append(" = ").append(value).append("; return;\n");
+      }
+      sb.append("   default: return;\n");
+      sb.append("   }\n");
+      sb.append("}");
+
+      return sb.toString();
+   }
+
+   private static String generateNewInstance(final Clazz clazz)
+   {
+      return "public Object newInstance() { return new " + typeName(clazz.getActualClass()) + "(); }";
+   }
+
+   private static String valueExpression(final Phield phield)
+   {
+      switch (phield.type) {
+      case Types.INT:
+         return "(int) context.longHolder";
+      case Types.LONG:
+         return "context.longHolder";
+      case Types.SHORT:
+         return "(short) context.longHolder";
+      case Types.BYTE:
+         return "(byte) context.longHolder";
+      case Types.CHAR:
+         return "(char) context.longHolder";
+      case Types.STRING:
+         return "context.stringHolder";
+      case Types.BOOLEAN:
+         return "context.booleanHolder";
+      case Types.DOUBLE:
+         return "context.doubleHolder";
+      case Types.FLOAT:
+         return "(float) context.doubleHolder";
+      case Types.DATE:
+      case Types.OBJECT:
+      case Types.BIGDECIMAL:
+      case Types.BIGINTEGER:
+      case Types.INSTANT:
+      case Types.OFFSETDATETIME:
+      case Types.LOCALDATE:
+      case Types.ENUM:
+         return "(" + typeName(phield.field.getType()) + ") context.objectHolder";
+      default:
+         return null;
+      }
+   }
+
+   private static String typeName(final Class<?> type)
+   {
+      return (type.isArray() ? typeName(type.getComponentType()) + "[]" : type.getName());
+   }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json.serializer;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+import com.zaxxer.hikari.json.util.Phield;
+import com.zaxxer.hikari.json.util.Types;
+
+/**
+ * Accumulates the elements of a JSON array for an array or collection member.
+ * Elements of a primitive array are stored straight into a growable array of the
+ * component type, which is trimmed to size when the array ends, so they are never
+ * boxed.  Elements of an object array are stored into a growable array of the
+ * component type, and elements of a collection are added to it directly.  Numeric
+ * elements of a collection implementing {@link IntConsumer}, {@link LongConsumer}
+ * or {@link DoubleConsumer}, such as {@link com.zaxxer.hikari.json.util.IntList},
+ * are passed to it without boxing.
+ *
+ * @author Brett Wooldridge
+ */
+final class ArrayBuilder
+{
+   private static final int INITIAL_CAPACITY = 16;
+
+   // Primitive collection sinks
+   private static final int SINK_NONE = 0;
+   private static final int SINK_INT = 1;
+   private static final int SINK_LONG = 2;
+   private static final int SINK_DOUBLE = 3;
+
+   private final Phield phield;
+   private final Collection<Object> collection;
+   private final boolean isPrimitive;
+   private final int sink;
+   private Object array;
+   private int capacity;
+   private int size;
+
+   /**
+    * Create a builder for an array member.
+    *
+    * @param phield the member
+    */
+   ArrayBuilder(final Phield phield)
+   {
+      this.phield = phield;
+      this.collection = null;
+      this.isPrimitive = phield.elementClass.isPrimitive();
+      this.sink = SINK_NONE;
+      this.array = Array.newInstance(phield.elementClass, INITIAL_CAPACITY);
+      this.capacity = INITIAL_CAPACITY;
+   }
+
+   /**
+    * Create a builder for a collection member.
+    *
+    * @param phield the member
+    * @param collection the collection to add the elements to
+    */
+   @SuppressWarnings("unchecked")
+   ArrayBuilder(final Phield phield, final Object collection)
+   {
+      this.phield = phield;
+      this.collection = (Collection<Object>) collection;
+      this.sink = sinkOf(collection, phield.elementType);
+      this.isPrimitive = (sink != SINK_NONE);
+      if (!isPrimitive && (collection instanceof IntConsumer || collection instanceof LongConsumer || collection instanceof DoubleConsumer)) {
+         throw new RuntimeException("Collection class " + collection.getClass().getName() + " cannot hold the elements of member \"" + phield.name + "\"");
+      }
+   }
+
+   /**
+    * Add the element held by the context, whose holder type is the element type of
+    * the member.
+    *
+    * @param holder the context holding the element
+    */
+   void add(final ParseContext holder)
+   {
+      if (collection != null) {
+         switch (sink) {
+         case SINK_INT:
+            ((IntConsumer) collection).accept((int) holder.longHolder);
+            break;
+         case SINK_LONG:
+            ((LongConsumer) collection).accept(holder.longHolder);
+            break;
+         case SINK_DOUBLE:
+            ((DoubleConsumer) collection).accept((holder.holderType & Types.INTEGRAL_TYPE) != 0 ? holder.longHolder : holder.doubleHolder);
+            break;
+         default:
+            collection.add(valueOf(holder));
+         }
+         return;
+      }
+
+      if (size == capacity) {
+         grow();
+      }
+
+      if (!isPrimitive) {
+         ((Object[]) array)[size++] = valueOf(holder);
+         return;
+      }
+
+      switch (phield.elementType) {
+      case Types.INT:
+         ((int[]) array)[size++] = (int) holder.longHolder;
+         break;
+      case Types.LONG:
+         ((long[]) array)[size++] = holder.longHolder;
+         break;
+      case Types.DOUBLE:
+         ((double[]) array)[size++] = holder.doubleHolder;
+         break;
+      case Types.FLOAT:
+         ((float[]) array)[size++] = (float) holder.doubleHolder;
+         break;
+      case Types.SHORT:
+         ((short[]) array)[size++] = (short) holder.longHolder;
+         break;
+      case Types.BYTE:
+         ((byte[]) array)[size++] = (byte) holder.longHolder;
+         break;
+      case Types.CHAR:
+         ((char[]) array)[size++] = (char) holder.longHolder;
+         break;
+      default:
+         ((boolean[]) array)[size++] = holder.booleanHolder;
+      }
+   }
+
+   /**
+    * Add an object element, such as a nested bean.
+    *
+    * @param element the element
+    */
+   void addObject(final Object element)
+   {
+      if (isPrimitive) {
+         throw new RuntimeException("Unexpected " + (element == null ? "null" : "object") + " element for member \"" + phield.name + "\"");
+      }
+      else if (collection != null) {
+         collection.add(element);
+         return;
+      }
+
+      if (size == capacity) {
+         grow();
+      }
+      ((Object[]) array)[size++] = element;
+   }
+
+   /**
+    * Get the collection, or the array trimmed to the number of elements added.
+    *
+    * @return the value of the member
+    */
+   Object build()
+   {
+      if (collection != null) {
+         return collection;
+      }
+
+      return (size == capacity ? array : copyOf(array, size));
+   }
+
+   private void grow()
+   {
+      capacity *= 2;
+      array = copyOf(array, capacity);
+   }
+
+   private Object copyOf(final Object source, final int length)
+   {
+      final Object copy = Array.newInstance(phield.elementClass, length);
+      System.arraycopy(source, 0, copy, 0, Math.min(size, length));
+      return copy;
+   }
+
+   /**
+    * Select how numeric elements are passed to a collection without boxing.
+    *
+    * @param collection the collection
+    * @param elementType the element type of the member
+    * @return one of the <code>SINK_</code> constants
+    */
+   private static int sinkOf(final Object collection, final int elementType)
+   {
+      final boolean isIntegral = (elementType & Types.INTEGRAL_TYPE) != 0;
+      if (collection instanceof IntConsumer && isIntegral && elementType != Types.LONG) {
+         return SINK_INT;
+      }
+      else if (collection instanceof LongConsumer && isIntegral) {
+         return SINK_LONG;
+      }
+      else if (collection instanceof DoubleConsumer && (isIntegral || elementType == Types.DOUBLE || elementType == Types.FLOAT)) {
+         return SINK_DOUBLE;
+      }
+
+      return SINK_NONE;
+   }
+
+   /**
+    * Get the value held by the context as an object, boxing primitives.
+    *
+    * @param holder the context holding the value
+    * @return the value
+    */
+   static Object valueOf(final ParseContext holder)
+   {
+      switch (holder.holderType) {
+      case Types.INT:
+         return (int) holder.longHolder;
+      case Types.LONG:
+         return holder.longHolder;
+      case Types.SHORT:
+         return (short) holder.longHolder;
+      case Types.BYTE:
+         return (byte) holder.longHolder;
+      case Types.CHAR:
+         return (char) holder.longHolder;
+      case Types.DOUBLE:
+         return holder.doubleHolder;
+      case Types.FLOAT:
+         return (float) holder.doubleHolder;
+      case Types.BOOLEAN:
+         return holder.booleanHolder;
+      case Types.STRING:
+         return holder.stringHolder;
+      default:
+         return holder.objectHolder;
+      }
+   }
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json.serializer;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.BiConsumer;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+
+import com.zaxxer.hikari.json.util.ClassUtils;
+import com.zaxxer.hikari.json.util.Clazz;
+import com.zaxxer.hikari.json.util.Instantiators;
+import com.zaxxer.hikari.json.util.Phield;
+import com.zaxxer.hikari.json.util.Types;
+
+/**
+ * The accessor used with <code>BEAN_ACCESS</code>.  Members are stored through
+ * their setters, <code>setName(T)</code> for a field <code>name</code> of type
+ * <code>T</code>, and members without a setter are stored directly into the
+ * field.  A class without a no-arg constructor is instead bound through a
+ * constructor whose parameters are the types of its fields in declaration order:
+ * member values are buffered in an argument array, which stands in for the
+ * target while the object is parsed, and the constructor is invoked once by
+ * {@link #complete}.
+ * <p>
+ * Setters and no-arg constructors of public classes are linked through
+ * {@link LambdaMetafactory}, so a store is a monomorphic interface call into a
+ * direct invocation, with <code>int</code>, <code>long</code> and <code>double</code>
+ * values passed unboxed.  Other setters are invoked through their method handles.
+ *
+ * @author Brett Wooldridge
+ */
+final class BeanAccessor extends GeneratedAccessor
+{
+   private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+   private static final ClassValue<BeanAccessor> accessors = new ClassValue<BeanAccessor>() {
+      @Override
+      protected BeanAccessor computeValue(final Class<?> type)
+      {
+         return new BeanAccessor(ClassUtils.reflect(type));
+      }
+   };
+
+   private final Clazz clazz;
+   private final Phield[] phields;
+   // The setter of each member, indexed as Clazz.getPhields(), or null to store into the field
+   private final Object[] setters;
+   private final Supplier<Object> constructor;
+
+   // Constructor binding: the position of each member in the argument array, indexed as Clazz.getPhields()
+   private final MethodHandle allArgsConstructor;
+   private final int[] positions;
+   private final Object[] defaults;
+
+   private BeanAccessor(final Clazz clazz)
+   {
+      final Class<?> targetClass = clazz.getActualClass();
+      this.clazz = clazz;
+      this.phields = clazz.getPhields();
+
+      this.setters = new Object[phields.length];
+      this.constructor = Instantiators.noArgConstructor(targetClass);
+      if (constructor != null) {
+         for (int i = 0; i < phields.length; i++) {
+            setters[i] = (phields[i].excluded ? null : setter(targetClass, phields[i]));
+         }
+
+         this.allArgsConstructor = null;
+         this.positions = null;
+         this.defaults = null;
+         return;
+      }
+
+      final Phield[] declared = clazz.getDeclaredPhields();
+      final Class<?>[] parameterTypes = new Class<?>[declared.length];
+      this.defaults = new Object[declared.length];
+      for (int i = 0; i < declared.length; i++) {
+         parameterTypes[i] = declared[i].field.getType();
+         defaults[i] = defaultValue(parameterTypes[i]);
+      }
+
+      this.positions = new int[phields.length];
+      for (int i = 0; i < phields.length; i++) {
+         for (int j = 0; j < declared.length; j++) {
+            if (declared[j] == phields[i]) {
+               positions[i] = j;
+            }
+         }
+      }
+
+      try {
+         final Constructor<?> ctor = targetClass.getDeclaredConstructor(parameterTypes);
+         ctor.setAccessible(true);
+         this.allArgsConstructor = LOOKUP.unreflectConstructor(ctor)
+            .asSpreader(Object[].class, parameterTypes.length)
+            .asType(MethodType.methodType(Object.class, Object[].class));
+      }
+      catch (NoSuchMethodException | IllegalAccessException e) {
+         throw new RuntimeException(targetClass + " has neither a no-arg constructor nor a constructor taking all of its fields in declaration order", e);
+      }
+   }
+
+   /**
+    * Get the accessor for the specified class, creating it on first use.
+    *
+    * @param clazz the class metadata
+    * @return the accessor
+    */
+   static BeanAccessor of(final Clazz clazz)
+   {
+      return accessors.get(clazz.getActualClass());
+   }
+
+   /**
+    * Create the object that members are stored into: a new instance, or for a
+    * class bound through its constructor, a new argument array.
+    */
+   @Override
+   public Object newInstance()
+   {
+      if (constructor != null) {
+         final Object pooled = clazz.pooledInstance();
+         return (pooled != null ? pooled : constructor.get());
+      }
+
+      return defaults.clone();
+   }
+
+   @Override
+   @SuppressWarnings("unchecked")
+   public void setMember(final int index, final ParseContext context)
+   {
+      if (constructor == null) {
+         ((Object[]) context.target)[positions[index]] = value(context);
+         return;
+      }
+
+      final Object setter = setters[index];
+      if (setter == null) {
+         FieldBasedJsonParser.setMember(phields[index], context);
+         return;
+      }
+
+      switch (phields[index].type) {
+      case Types.INT:
+         ((ObjIntConsumer<Object>) setter).accept(context.target, (int) context.longHolder);
+         break;
+      case Types.LONG:
+         ((ObjLongConsumer<Object>) setter).accept(context.target, context.longHolder);
+         break;
+      case Types.DOUBLE:
+         ((ObjDoubleConsumer<Object>) setter).accept(context.target, context.doubleHolder);
+         break;
+      default:
+         ((BiConsumer<Object, Object>) setter).accept(context.target, value(context));
+      }
+   }
+
+   /**
+    * Returns true if the class is bound through a constructor taking all of its
+    * fields, rather than through a no-arg constructor and setters.
+    *
+    * @return true if the class is bound through its constructor
+    */
+   boolean isConstructorBound()
+   {
+      return constructor == null;
+   }
+
+   /**
+    * Complete an object once all of its members have been stored.
+    *
+    * @param target the object returned by {@link #newInstance()}
+    * @return the instance
+    */
+   Object complete(final Object target)
+   {
+      if (constructor != null) {
+         return target;
+      }
+
+      try {
+         return (Object) allArgsConstructor.invokeExact((Object[]) target);
+      }
+      catch (RuntimeException | Error e) {
+         throw e;
+      }
+      catch (Throwable e) {
+         throw new RuntimeException(e);
+      }
+   }
+
+   private static Object value(final ParseContext context)
+   {
+      final Object value = ArrayBuilder.valueOf(context);
+      return (value == Void.TYPE ? null : value);
+   }
+
+   /**
+    * Find the setter of a member and link it to the functional interface matching
+    * the member type.
+    *
+    * @return the setter, or null if the member has none
+    */
+   private static Object setter(final Class<?> targetClass, final Phield phield)
+   {
+      final String fieldName = phield.field.getName();
+      final String name = "set" + Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+      final Class<?> type = phield.field.getType();
+
+      final Method method;
+      try {
+         method = targetClass.getDeclaredMethod(name, type);
+         if (Modifier.isStatic(method.getModifiers())) {
+            return null;
+         }
+      }
+      catch (NoSuchMethodException e) {
+         return null;
+      }
+
+      try {
+         if (Instantiators.isPublic(targetClass) && Modifier.isPublic(method.getModifiers())) {
+            final MethodHandle handle = LOOKUP.unreflect(method);
+            final Class<?> samType;
+            final MethodType samMethodType;
+            final Class<?> valueType;
+            if (type == int.class || type == long.class || type == double.class) {
+               samType = (type == int.class ? ObjIntConsumer.class : type == long.class ? ObjLongConsumer.class : ObjDoubleConsumer.class);
+               samMethodType = MethodType.methodType(void.class, Object.class, type);
+               valueType = type;
+            }
+            else {
+               samType = BiConsumer.class;
+               samMethodType = MethodType.methodType(void.class, Object.class, Object.class);
+               valueType = MethodType.methodType(type).wrap().returnType();
+            }
+
+            final CallSite site = LambdaMetafactory.metafactory(LOOKUP, "accept", MethodType.methodType(samType), samMethodType,
+                                                                handle, MethodType.methodType(void.class, targetClass, valueType));
+            return site.getTarget().invoke();
+         }
+
+         method.setAccessible(true);
+         final MethodHandle handle = LOOKUP.unreflect(method).asType(MethodType.methodType(void.class, Object.class, Object.class));
+         if (type == int.class) {
+            return (ObjIntConsumer<Object>) (target, value) -> set(handle, target, value);
+         }
+         else if (type == long.class) {
+            return (ObjLongConsumer<Object>) (target, value) -> set(handle, target, value);
+         }
+         else if (type == double.class) {
+            return (ObjDoubleConsumer<Object>) (target, value) -> set(handle, target, value);
+         }
+         return (BiConsumer<Object, Object>) (target, value) -> set(handle, target, value);
+      }
+      catch (Throwable e) {
+         throw new RuntimeException("Unable to access setter " + method, e);
+      }
+   }
+
+   private static Object defaultValue(final Class<?> type)
+   {
+      if (!type.isPrimitive()) {
+         return null;
+      }
+
+      return Array.get(Array.newInstance(type, 1), 0);
+   }
+
+   private static void set(final MethodHandle handle, final Object target, final Object value)
+   {
+      try {
+         handle.invokeExact(target, value);
+      }
+      catch (RuntimeException | Error e) {
+         throw e;
+      }
+      catch (Throwable e) {
+         throw new RuntimeException(e);
+      }
+   }
+}
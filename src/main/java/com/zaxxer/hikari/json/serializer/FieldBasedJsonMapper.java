@@ -1,542 +1,323 @@
 package com.zaxxer.hikari.json.serializer;
 
-import static com.zaxxer.hikari.json.util.Utf8Utils.fastTrackAsciiDecode;
-import static com.zaxxer.hikari.json.util.Utf8Utils.findEndQuote;
-import static com.zaxxer.hikari.json.util.Utf8Utils.findEndQuoteUTF8;
-import static com.zaxxer.hikari.json.util.Utf8Utils.findEndQuoteAndHash;
-import static com.zaxxer.hikari.json.util.Utf8Utils.seekBackUtf8Boundary;
-
-import java.io.IOException;
 import java.io.InputStream;
-import java.time.OffsetDateTime;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.util.Collection;
-import java.util.Date;
-import java.util.GregorianCalendar;
-import java.util.HashMap;
 import java.util.Map;
-
-import sun.misc.Unsafe;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.zaxxer.hikari.json.JsonFactory.Option;
+import com.zaxxer.hikari.json.JsonNode;
 import com.zaxxer.hikari.json.ObjectMapper;
-import com.zaxxer.hikari.json.util.MutableBoolean;
-import com.zaxxer.hikari.json.util.MutableInteger;
-import com.zaxxer.hikari.json.util.Phield;
-import com.zaxxer.hikari.json.util.Types;
-import com.zaxxer.hikari.json.util.UnsafeHelper;
-
+import com.zaxxer.hikari.json.PathQuery;
+import com.zaxxer.hikari.json.PushParser;
+import com.zaxxer.hikari.json.ValueIterator;
+import com.zaxxer.hikari.json.util.ByteBufferInputStream;
+
+/**
+ * A thread-safe {@link ObjectMapper} using direct field access.  The mapper itself
+ * holds only immutable configuration; all parse and write state lives in a
+ * {@link FieldBasedJsonParser} or {@link FieldBasedJsonWriter} that is leased per
+ * call from a per-thread cache, so a single mapper may be shared by any number of
+ * threads without contention and without re-allocating buffers.
+ */
 public final class FieldBasedJsonMapper implements ObjectMapper
 {
-   protected static final int CR = '\r';
-   protected static final int TAB = '\t';
-   protected static final int SPACE = ' ';
-   protected static final int QUOTE = '"';
-   protected static final int COLON = ':';
-   protected static final int COMMA = ',';
-   protected static final int HYPHEN = '-';
-   protected static final int NEWLINE = '\n';
-   protected static final int OPEN_CURLY = '{';
-   protected static final int CLOSE_CURLY = '}';
-   protected static final int OPEN_BRACKET = '[';
-   protected static final int CLOSE_BRACKET = ']';
-
-   private static final Unsafe UNSAFE = UnsafeHelper.getUnsafe();
-   private final boolean isAsciiValues;
-   private final int BUFFER_SIZE = 16384;
-
-   protected InputStream source;
-   protected byte[] byteBuffer;
-   protected int bufferLimit;
-   private Class<?> collectionClass;
+   final boolean isAsciiValues;
+   final boolean isGeneratedAccess;
+   final boolean isBeanAccess;
+   final boolean isAllocateInstances;
+   final boolean isFailOnUnknown;
+   final boolean isCacheStrings;
+   final int dateCacheSize;
+   final Class<?> collectionClass;
+
+   private final ThreadLocal<FieldBasedJsonParser> parserCache;
+   private final ThreadLocal<FieldBasedJsonWriter> writerCache;
 
    public FieldBasedJsonMapper(Map<Option, Object> options) {
-      byteBuffer = new byte[BUFFER_SIZE];
-
       isAsciiValues = options.containsKey(Option.VALUES_ASCII);
+      isGeneratedAccess = options.containsKey(Option.GENERATED_ACCESS);
+      isBeanAccess = options.containsKey(Option.BEAN_ACCESS);
+      isAllocateInstances = options.containsKey(Option.ALLOCATE_INSTANCES);
+      isFailOnUnknown = options.containsKey(Option.FAIL_ON_UNKNOWN_MEMBERS);
+      isCacheStrings = options.containsKey(Option.CACHE_STRING_VALUES);
+      Object cacheSize = options.get(Option.DATE_CACHE_SIZE);
+      dateCacheSize = (cacheSize instanceof Integer ? (Integer) cacheSize : 0);
       Object collClass = options.get(Option.COLLECTION_CLASS);
       if (collClass instanceof Class && Collection.class.isAssignableFrom((Class<?>) collClass)) {
          collectionClass = (Class<?>) collClass;
       }
+      else {
+         collectionClass = null;
+      }
+
+      parserCache = new ThreadLocal<>();
+      writerCache = new ThreadLocal<>();
    }
 
    @Override
-   @SuppressWarnings("unchecked")
    final public <T> T readValue(final InputStream src, final Class<T> valueType)
    {
-      source = src;
+      final FieldBasedJsonParser parser = acquireParser();
+      try {
+         return parser.readValue(src, valueType);
+      }
+      finally {
+         releaseParser(parser);
+      }
+   }
 
-      ParseContext context = new ParseContext(valueType);
+   @Override
+   public <T> T readValue(final byte[] src, final Class<T> valueType)
+   {
+      return readValue(src, 0, src.length, valueType);
+   }
 
-      parseObject(0, context);
-      return (T) context.target;
+   @Override
+   public <T> T readValue(final byte[] src, final int offset, final int length, final Class<T> valueType)
+   {
+      final FieldBasedJsonParser parser = acquireParser();
+      try {
+         return parser.readValue(src, offset, length, valueType);
+      }
+      finally {
+         releaseParser(parser);
+      }
    }
 
-   private int parseObject(int bufferIndex, final ParseContext context)
+   @Override
+   public <T> T readValue(final ByteBuffer src, final Class<T> valueType)
    {
-      do {
-         bufferIndex = fillBuffer(bufferIndex);
+      if (src.hasArray()) {
+         return readValue(src.array(), src.arrayOffset() + src.position(), src.remaining(), valueType);
+      }
 
-         final int b = byteBuffer[bufferIndex];
-         if (b == OPEN_CURLY) {
-            bufferIndex = parseMembers(bufferIndex + 1, context);
-         }
-         else if (b == CLOSE_CURLY) {
-            return bufferIndex + 1;
-         }
-         else {
-            bufferIndex++;
-         }
-      } while (true);
+      return readValue(new ByteBufferInputStream(src), valueType);
    }
 
-   private int parseMembers(int bufferIndex, final ParseContext context)
+   @Override
+   public <T> T readValue(final InputStream src, final T existing)
    {
-      do {
-         bufferIndex = skipWhitespace(bufferIndex);
-         if (bufferIndex == bufferLimit) {
-            fillBuffer(bufferIndex);
-         }
-
-         final int b = byteBuffer[bufferIndex];
-         if (b == QUOTE) {
-            bufferIndex = parseMember(bufferIndex, context);
-         }
-         else if (b == CLOSE_CURLY) {
-            return bufferIndex;
-         }
-         else {
-            bufferIndex++;
-         }
-      } while (true);
+      final FieldBasedJsonParser parser = acquireParser();
+      try {
+         return parser.readValue(src, existing);
+      }
+      finally {
+         releaseParser(parser);
+      }
    }
 
-   private int parseMember(int bufferIndex, final ParseContext context)
+   @Override
+   public <T> T readValue(final byte[] src, final T existing)
    {
-      // Parse the member name
-      bufferIndex = parseMemberHashOnly(bufferIndex + 1, context);
-
-      // Next character better be a colon
-      bufferIndex = skipUtil(bufferIndex, COLON);
-
-      // Now the value
-      final Phield phield = context.clazz.getPhield(context.lookupKey);
-      context.holderType = phield.type;
-      if (phield.type == Types.OBJECT) {
-         final ParseContext nextContext;
-         if ((phield.isCollection || phield.isArray) && (phield.collectionClass == null && collectionClass != null)) {
-            nextContext = new ParseContext(phield, collectionClass);
-         }
-         else {
-            nextContext = new ParseContext(phield);
-         }
-         context.objectHolder = nextContext.target;
-         bufferIndex = parseValue(bufferIndex, context, nextContext);
+      final FieldBasedJsonParser parser = acquireParser();
+      try {
+         return parser.readValue(src, 0, src.length, existing);
       }
-      else {
-         bufferIndex = parseValue(bufferIndex, context, null);
+      finally {
+         releaseParser(parser);
       }
+   }
+
+   @Override
+   public <T> ValueIterator<T> readValues(final InputStream src, final Class<T> elementType)
+   {
+      return readValues(src, "", elementType);
+   }
 
-      if (!phield.excluded) {
-         setMember(phield, context);
+   @Override
+   public <T> ValueIterator<T> readValues(final InputStream src, final String arrayPointer, final Class<T> elementType)
+   {
+      final String[] path = parsePointer(arrayPointer);
+      final FieldBasedJsonParser parser = acquireParser();
+      try {
+         parser.beginArray(src, path);
+      }
+      catch (RuntimeException e) {
+         releaseParser(parser);
+         throw e;
       }
 
-      return bufferIndex;
+      return new FieldBasedValueIterator<>(this, parser, elementType);
    }
 
-   private int parseValue(int bufferIndex, final ParseContext context, final ParseContext nextContext)
+   @Override
+   public <T> Stream<T> streamValues(final InputStream src, final Class<T> elementType)
+   {
+      return streamValues(src, "", elementType);
+   }
+
+   @Override
+   public <T> Stream<T> streamValues(final InputStream src, final String arrayPointer, final Class<T> elementType)
    {
-      int limit = bufferLimit;
-      do {
-         do {
-            bufferIndex = skipWhitespace(bufferIndex);
-            
-            final int b = byteBuffer[bufferIndex++];
-            if (b == QUOTE) {
-               return skipCommaOrUptoCurly((isAsciiValues ? parseAsciiString(bufferIndex, context) : parseString(bufferIndex, context)));
-            }
-            else if ((b > '1' - 1 && b < '9' + 1) || b == HYPHEN) {
-               return skipCommaOrUptoCurly(((context.holderType & Types.INTEGRAL_TYPE) > 0) ? parseInteger(bufferIndex - 1, context) : parseDecimal(bufferIndex - 1, context));
-            }
-            else if (b == OPEN_CURLY) {
-               bufferIndex = parseMembers(bufferIndex, nextContext);
-               // fall-thru
-            }
-            else if (b == CLOSE_CURLY) {
-               return bufferIndex;
-            }
-            else if (b == OPEN_BRACKET) {
-               return parseArray(bufferIndex, nextContext);
-            }
-            else if (b == 't') {
-               context.booleanHolder = true;
-               return skipCommaOrUptoCurly(bufferIndex);
-            }
-            else if (b == 'f') {
-               context.booleanHolder = false;
-               return skipCommaOrUptoCurly(bufferIndex);
-            }
-            else if (b == 'n') {
-               context.objectHolder = null;
-               return skipCommaOrUptoCurly(bufferIndex);
-            }
-         } while (bufferIndex < limit);
-
-         limit = bufferLimit;
-      } while (true);
+      final ValueIterator<T> iterator = readValues(src, arrayPointer, elementType);
+      return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false).onClose(iterator::close);
    }
 
-   private int parseArray(int bufferIndex, final ParseContext context)
+   @Override
+   public <T> void readValues(final InputStream src, final Class<T> elementType, final Consumer<? super T> consumer)
    {
-      do {
-         bufferIndex = skipWhitespace(bufferIndex);
-
-         switch (byteBuffer[bufferIndex]) {
-         case CLOSE_BRACKET:
-            return bufferIndex + 1;
-         default:
-            ParseContext nextContext = context;
-            final Phield phield = context.phield;
-            if (phield != null) {
-               if (phield.isCollection || phield.isArray) {
-                  nextContext = new ParseContext(phield.getCollectionParameterClazz1());
-               }
-            }
-
-            bufferIndex = parseValue(bufferIndex, context, nextContext);
-            @SuppressWarnings("unchecked")
-            Collection<Object> collection = ((Collection<Object>) context.target);
-            collection.add(nextContext.target);
+      try (ValueIterator<T> iterator = readValues(src, elementType)) {
+         while (iterator.hasNext()) {
+            consumer.accept(iterator.next());
          }
-      } while (true);
+      }
+   }
+
+   @Override
+   public <T> PushParser<T> createPushParser(final Class<T> valueType)
+   {
+      return new FieldBasedPushParser<>(this, valueType);
+   }
+
+   @Override
+   public JsonNode readTree(final byte[] src)
+   {
+      return readTree(src, 0, src.length);
    }
 
-   private int parseString(int bufferIndex, final ParseContext context)
+   @Override
+   public JsonNode readTree(final byte[] src, final int offset, final int length)
+   {
+      return new TapeNode(JsonTape.index(src, offset, length), 0);
+   }
+
+   @Override
+   public JsonNode readTree(final InputStream src)
    {
+      return readTree(JsonTape.readFully(src));
+   }
+
+   @Override
+   public PathQuery compileQuery(final String... pointers)
+   {
+      return new FieldBasedPathQuery(this, pointers);
+   }
+
+   @Override
+   public void writeValue(final Writer dest, final Object value)
+   {
+      final FieldBasedJsonWriter writer = acquireWriter();
       try {
-         final int startIndex = bufferIndex;
-         do {
-            final MutableBoolean utf8Detected = new MutableBoolean();
-            final int newIndex = findEndQuoteUTF8(byteBuffer, bufferIndex, utf8Detected);
-            if (newIndex > 0) {
-               if (utf8Detected.bool) {
-                  context.stringHolder = new String(byteBuffer, startIndex, (newIndex - startIndex), "UTF-8");
-               }
-               else {
-                  context.stringHolder = fastTrackAsciiDecode(byteBuffer, startIndex, (newIndex - startIndex));
-               }
-               return newIndex + 1;
-            }
-
-            final byte[] newArray = new byte[bufferLimit * 2];
-            System.arraycopy(byteBuffer, 0, newArray, 0, byteBuffer.length);
-            byteBuffer = newArray;
-
-            int read = source.read(byteBuffer, bufferIndex, byteBuffer.length - bufferIndex);
-            if (read < 0) {
-               throw new RuntimeException("Insufficent data.");
-            }
-
-            bufferIndex = seekBackUtf8Boundary(byteBuffer, bufferIndex);
-         } while (true);
+         writer.writeValue(dest, value);
       }
-      catch (Exception e) {
-         throw new RuntimeException();
+      finally {
+         releaseWriter(writer);
       }
    }
 
-   private int parseMemberHashOnly(int bufferIndex, final ParseContext context)
+   @Override
+   public void writeValue(final OutputStream dest, final Object value)
    {
+      final FieldBasedJsonWriter writer = acquireWriter();
       try {
-         final MutableInteger hash = new MutableInteger();
-         do {
-            final int newIndex = findEndQuoteAndHash(byteBuffer, bufferIndex, hash);
-            if (newIndex > 0) {
-               context.lookupKey = hash.value;
-               return newIndex + 1;
-            }
-
-            final byte[] newArray = new byte[bufferLimit * 2];
-            System.arraycopy(byteBuffer, 0, newArray, 0, byteBuffer.length);
-            byteBuffer = newArray;
-
-            int read = source.read(byteBuffer, bufferIndex, byteBuffer.length - bufferIndex);
-            if (read < 0) {
-               throw new RuntimeException("Insufficent data.");
-            }
-
-            bufferIndex = seekBackUtf8Boundary(byteBuffer, bufferIndex);
-         } while (true);
+         writer.writeValue(dest, value);
       }
-      catch (Exception e) {
-         throw new RuntimeException();
+      finally {
+         releaseWriter(writer);
       }
    }
 
-   private int parseAsciiString(int bufferIndex, final ParseContext context)
+   @Override
+   public String writeValueAsString(final Object value)
    {
+      final FieldBasedJsonWriter writer = acquireWriter();
       try {
-         final int startIndex = bufferIndex;
-         do {
-            final int newIndex = findEndQuote(byteBuffer, bufferIndex);
-            if (newIndex > 0) {
-               context.stringHolder = fastTrackAsciiDecode(byteBuffer, startIndex, (newIndex - startIndex));
-               return newIndex + 1;
-            }
-
-            final byte[] newArray = new byte[bufferLimit * 2];
-            System.arraycopy(byteBuffer, 0, newArray, 0, byteBuffer.length);
-            byteBuffer = newArray;
-
-            int read = source.read(byteBuffer, bufferIndex, byteBuffer.length - bufferIndex);
-            if (read < 0) {
-               throw new RuntimeException("Insufficent data.");
-            }
-
-            bufferIndex = seekBackUtf8Boundary(byteBuffer, bufferIndex);
-         } while (true);
+         return writer.writeValueAsString(value);
       }
-      catch (Exception e) {
-         throw new RuntimeException();
+      finally {
+         releaseWriter(writer);
       }
    }
 
-   private int parseInteger(int bufferIndex, ParseContext context)
+   /**
+    * Split a JSON Pointer into its unescaped reference tokens.
+    *
+    * @param pointer the JSON Pointer
+    * @return the reference tokens, empty for the whole document
+    */
+   static String[] parsePointer(final String pointer)
    {
-      boolean neg = (byteBuffer[bufferIndex] == '-');
-      if (neg) {
-         ++bufferIndex;
+      if (pointer.isEmpty()) {
+         return new String[0];
       }
-
-      int limit = bufferLimit;
-
-      // integer part
-      long part = 0;
-      outer1: while (true) {
-         try {
-            for (final byte[] buffer = byteBuffer; bufferIndex < limit; bufferIndex++) {
-               final int b = buffer[bufferIndex];
-               if (b >= '0' && b <= '9') {
-                  part = part * 10 + (b - '0');
-               }
-               else {
-                  break outer1;
-               }
-            }
-            limit = bufferLimit;
-         }
-         finally {
-            bufferIndex = fillBuffer(bufferIndex);
-         }
+      else if (pointer.charAt(0) != '/') {
+         throw new RuntimeException("Invalid JSON Pointer \"" + pointer + "\"");
       }
 
-      if (neg) {
-         part *= -1;
+      final String[] tokens = pointer.substring(1).split("/", -1);
+      for (int i = 0; i < tokens.length; i++) {
+         tokens[i] = tokens[i].replace("~1", "/").replace("~0", "~");
       }
 
-      context.longHolder = part;
-      return bufferIndex;
+      return tokens;
    }
 
-   private int parseDecimal(int bufferIndex, ParseContext context)
+   /**
+    * Get the array index spelled by a JSON Pointer reference token.
+    *
+    * @param token the reference token
+    * @return the index, or -1 if the token is not a valid array index
+    */
+   static int parseArrayIndex(final String token)
    {
-      double d = 0.0;      // value
-      long part  = 0;      // the current part (int, float and sci parts of the number)
-      
-      boolean neg = (byteBuffer[bufferIndex] == '-');
-      if (neg) {
-         ++bufferIndex;
+      if (token.isEmpty() || token.length() > 9 || (token.charAt(0) == '0' && token.length() > 1)) {
+         return -1;
       }
 
-      // integer part
-      long shift = 0;
-      outer1: while (true) {
-         final int limit = bufferLimit;
-         try {
-            for (final byte[] buffer = byteBuffer; bufferIndex < limit; bufferIndex++) {
-               final int b = buffer[bufferIndex];
-               if (b >= '0' && b <= '9') {
-                  shift *= 10;
-                  part = part * 10 + (b - '0');
-               }
-               else if (b == '.') {
-                  shift = 1;
-               }
-               else {
-                  break outer1;
-               }
-            }
+      for (int i = 0; i < token.length(); i++) {
+         if (token.charAt(i) < '0' || token.charAt(i) > '9') {
+            return -1;
          }
-         finally {
-            bufferIndex = fillBuffer(bufferIndex);
-         }
-      }
-
-      if (neg) {
-         part *= -1;
-      }
-
-      d = shift != 0 ? (double)part / (double)shift : part;
-
-      // scientific part
-      if (byteBuffer[bufferIndex] == 'e' || byteBuffer[bufferIndex] == 'E') {
-         ++bufferIndex;
-         part = 0;
-         neg = byteBuffer[bufferIndex] == '-';
-         bufferIndex = neg ? ++bufferIndex : bufferIndex;
-         outer1: while (true) {
-            final int limit = bufferLimit;
-            for (final byte[] buffer = byteBuffer; bufferIndex < limit; bufferIndex++) {
-               final int b = buffer[bufferIndex];
-               if (b >= '0' && b <= '9') {
-                  part = part * 10 + (b - '0');
-                  continue;
-               }
-
-               break outer1;
-            }
-
-            bufferIndex = fillBuffer(bufferIndex);
-         }
-
-         d = (neg) ? d / (double)Math.pow(10, part) : d * (double)Math.pow(10, part);
       }
 
-      context.doubleHolder = d;
-      return bufferIndex;
+      return Integer.parseInt(token);
    }
 
-   private void setMember(final Phield phield, final ParseContext context)
+   /**
+    * Take this thread's cached parser, or create a new one if it is already in use
+    * further up the stack (for example, a re-entrant call from a custom collection).
+    *
+    * @return a parser owned exclusively by the caller until released
+    */
+   FieldBasedJsonParser acquireParser()
    {
-      try {
-         final int type = phield.type;
-         if (phield.isIntegralType) {
-            switch(type) {
-            case Types.INT:
-               UNSAFE.putInt(context.target, phield.fieldOffset, (int) context.longHolder);
-               break;
-            case Types.LONG:
-               UNSAFE.putLong(context.target, phield.fieldOffset, context.longHolder);
-               break;
-            case Types.SHORT:
-               UNSAFE.putShort(context.target, phield.fieldOffset, (short) context.longHolder);
-               break;
-            case Types.BYTE:
-               UNSAFE.putByte(context.target, phield.fieldOffset, (byte) context.longHolder);
-               break;
-            case Types.CHAR:
-               UNSAFE.putChar(context.target, phield.fieldOffset, (char) context.longHolder);
-               break;
-            }
-         }
-         else {
-            switch(type) {
-            case Types.STRING:
-               UNSAFE.putObject(context.target, phield.fieldOffset, context.stringHolder);
-               break;
-            case Types.OBJECT:
-               UNSAFE.putObject(context.target, phield.fieldOffset, (context.objectHolder == Void.TYPE ? null : context.objectHolder));
-               break;
-            case Types.BOOLEAN:
-               UNSAFE.putBoolean(context.target, phield.fieldOffset, context.booleanHolder);
-               break;
-            case Types.DATE:
-               UNSAFE.putObject(context.target, phield.fieldOffset, parseDate(context.stringHolder));
-               break;
-            case Types.DOUBLE:
-               UNSAFE.putDouble(context.target, phield.fieldOffset, context.doubleHolder);
-               break;
-            case Types.FLOAT:
-               UNSAFE.putFloat(context.target, phield.fieldOffset, (float) context.doubleHolder);
-               break;
-            case Types.ENUM:
-               break;
-            }
-         }
+      final FieldBasedJsonParser parser = parserCache.get();
+      if (parser != null) {
+         parserCache.set(null);
+         return parser;
       }
-      catch (SecurityException | IllegalArgumentException e) {
-         throw new RuntimeException(e);
-      }
-   }
 
-   private int skipCommaOrUptoCurly(int bufferIndex)
-   {
-      do {
-         final byte[] buffer = byteBuffer;
-         try {
-            while (true)
-            {
-               if (buffer[bufferIndex] == CLOSE_CURLY) {
-                  return bufferIndex;
-               }
-               else if (buffer[bufferIndex++] == COMMA) {
-                  return bufferIndex;
-               }
-            }
-         }
-         catch (ArrayIndexOutOfBoundsException e) {
-            bufferIndex = fillBuffer(bufferIndex);
-         }
-      } while (true);
+      return new FieldBasedJsonParser(this);
    }
 
-   private int skipUtil(int bufferIndex, final int c)
+   void releaseParser(final FieldBasedJsonParser parser)
    {
-      do {
-         try {
-            final byte[] buffer = byteBuffer;
-            while (buffer[bufferIndex++] != c);
-            return bufferIndex;
-         }
-         catch (ArrayIndexOutOfBoundsException e) {
-            bufferIndex = fillBuffer(bufferIndex);
-         }
-      } while (true);
+      parser.reset();
+      parserCache.set(parser);
    }
 
-   private int skipWhitespace(int bufferIndex)
+   private FieldBasedJsonWriter acquireWriter()
    {
-      do {
-         try {
-            final byte[] buffer = byteBuffer;
-            while (buffer[bufferIndex] < SPACE + 1)
-            {
-                bufferIndex++;
-            }
-
-            return bufferIndex;
-         }
-         catch (ArrayIndexOutOfBoundsException e) {
-            bufferIndex = fillBuffer(bufferIndex);
-         }
-      } while (true);
-   }
+      final FieldBasedJsonWriter writer = writerCache.get();
+      if (writer != null) {
+         writerCache.set(null);
+         return writer;
+      }
 
-   private HashMap<String, Date> dateCache = new HashMap<>();
-   private Date parseDate(String stringHolder)
-   {
-      return dateCache.computeIfAbsent(stringHolder, (k) -> {
-         final OffsetDateTime dateTime = OffsetDateTime.parse(stringHolder);
-         return GregorianCalendar.from(dateTime.toZonedDateTime()).getTime();
-      });
+      return new FieldBasedJsonWriter(this);
    }
 
-   final protected int fillBuffer(final int bufferIndex)
+   private void releaseWriter(final FieldBasedJsonWriter writer)
    {
-      if (bufferIndex == bufferLimit) {
-         try {
-            int read = source.read(byteBuffer);
-            if (read > 0) {
-               bufferLimit = read;
-               return 0;
-            }
-   
-            throw new RuntimeException("Insufficient data during parsing");
-         }
-         catch (IOException io) {
-            throw new RuntimeException(io);
-         }
-      }
-
-      return bufferIndex;
+      writer.reset();
+      writerCache.set(writer);
    }
 }
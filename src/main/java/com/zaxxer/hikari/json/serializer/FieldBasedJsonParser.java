@@ -0,0 +1,1386 @@
+package com.zaxxer.hikari.json.serializer;
+
+import static com.zaxxer.hikari.json.util.NumberUtils.checkRange;
+import static com.zaxxer.hikari.json.util.NumberUtils.parseBigDecimal;
+import static com.zaxxer.hikari.json.util.NumberUtils.parseBigInteger;
+import static com.zaxxer.hikari.json.util.NumberUtils.parseDouble;
+import static com.zaxxer.hikari.json.util.NumberUtils.parseLong;
+import static com.zaxxer.hikari.json.util.Utf8Utils.decode;
+import static com.zaxxer.hikari.json.util.Utf8Utils.escapedBytes;
+import static com.zaxxer.hikari.json.util.Utf8Utils.fastTrackAsciiDecode;
+import static com.zaxxer.hikari.json.util.Utf8Utils.findEndQuote;
+import static com.zaxxer.hikari.json.util.Utf8Utils.findEndQuoteUTF8;
+import static com.zaxxer.hikari.json.util.Utf8Utils.regionEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Map;
+
+import com.zaxxer.hikari.json.JsonNode;
+import com.zaxxer.hikari.json.util.ClassUtils;
+import com.zaxxer.hikari.json.util.Clazz;
+import com.zaxxer.hikari.json.util.DateCache;
+import com.zaxxer.hikari.json.util.EnumConstants;
+import com.zaxxer.hikari.json.util.IsoDateParser;
+import com.zaxxer.hikari.json.util.MutableBoolean;
+import com.zaxxer.hikari.json.util.Phield;
+import com.zaxxer.hikari.json.util.StringCache;
+import com.zaxxer.hikari.json.util.Types;
+import com.zaxxer.hikari.json.util.Utf8Utils;
+
+/**
+ * The per-thread parse state of a {@link FieldBasedJsonMapper}.  Instances are
+ * leased from the mapper for the duration of a single parse and are never shared
+ * between threads.
+ *
+ * @author Brett Wooldridge
+ */
+final class FieldBasedJsonParser
+{
+   protected static final int CR = '\r';
+   protected static final int TAB = '\t';
+   protected static final int SPACE = ' ';
+   protected static final int QUOTE = '"';
+   protected static final int COLON = ':';
+   protected static final int COMMA = ',';
+   protected static final int HYPHEN = '-';
+   protected static final int NEWLINE = '\n';
+   protected static final int OPEN_CURLY = '{';
+   protected static final int CLOSE_CURLY = '}';
+   protected static final int OPEN_BRACKET = '[';
+   protected static final int CLOSE_BRACKET = ']';
+
+   static final int BUFFER_SIZE = 16384;
+
+   private final boolean isAsciiValues;
+   private final boolean isGeneratedAccess;
+   private final boolean isBeanAccess;
+   private final boolean isAllocateInstances;
+   private final boolean isFailOnUnknown;
+   private final boolean isCacheStrings;
+   private final Class<?> collectionClass;
+
+   protected InputStream source;
+   protected byte[] byteBuffer;
+   protected int bufferLimit;
+   private byte[] ownedBuffer;
+
+   // The scratch buffer strings are decoded into when they contain escapes or non-ASCII
+   private char[] charBuffer = new char[256];
+
+   private final IsoDateParser dateParser = new IsoDateParser();
+   private final DateCache dateCache;
+
+   // Whether the string value being parsed should be shared through the cache
+   private boolean cacheValue;
+   // The constants of the enum member whose value is being parsed
+   private EnumConstants valueEnum;
+   private StringCache stringCache;
+
+   // The index of the next array element while streaming
+   private int streamIndex;
+
+   // The index of the first byte, and the hash, of the last member name parsed
+   private int nameStart;
+   private int nameHash;
+
+   // Whether the last string scanned contains escapes, or with UTF-8 values, non-ASCII bytes
+   private final MutableBoolean decodeRequired = new MutableBoolean();
+
+   // Whether the last value parsed by parseValue() was null
+   private boolean nullValue;
+
+   // Whether the document is being parsed into an existing instance, reusing the objects it holds
+   private boolean isUpdating;
+
+   // Contexts reused by nesting depth: the object, or the values of the container, being parsed at each level
+   private ParseContext[] contextStack = new ParseContext[16];
+   private int depth;
+
+   // The index of the first byte of a value being captured by a path query, or -1
+   private int captureMark = -1;
+
+   FieldBasedJsonParser(final FieldBasedJsonMapper mapper)
+   {
+      this.isAsciiValues = mapper.isAsciiValues;
+      this.isGeneratedAccess = mapper.isGeneratedAccess;
+      this.isBeanAccess = mapper.isBeanAccess;
+      this.isAllocateInstances = mapper.isAllocateInstances;
+      this.isFailOnUnknown = mapper.isFailOnUnknown;
+      this.isCacheStrings = mapper.isCacheStrings;
+      this.dateCache = (mapper.dateCacheSize > 0 ? new DateCache(mapper.dateCacheSize) : null);
+      this.collectionClass = mapper.collectionClass;
+   }
+
+   <T> T readValue(final InputStream src, final Class<T> valueType)
+   {
+      setSource(src);
+
+      return readValue(0, valueType);
+   }
+
+   /**
+    * Parse directly over the caller's array without copying.  The array is never
+    * written to.
+    */
+   <T> T readValue(final byte[] src, final int offset, final int length, final Class<T> valueType)
+   {
+      if (offset < 0 || length < 0 || offset + length > src.length) {
+         throw new IndexOutOfBoundsException("offset " + offset + ", length " + length + ", array length " + src.length);
+      }
+
+      source = null;
+      byteBuffer = src;
+      bufferLimit = offset + length;
+
+      return readValue(offset, valueType);
+   }
+
+   <T> T readValue(final InputStream src, final T existing)
+   {
+      setSource(src);
+
+      return readInto(0, existing);
+   }
+
+   <T> T readValue(final byte[] src, final int offset, final int length, final T existing)
+   {
+      if (offset < 0 || length < 0 || offset + length > src.length) {
+         throw new IndexOutOfBoundsException("offset " + offset + ", length " + length + ", array length " + src.length);
+      }
+
+      source = null;
+      byteBuffer = src;
+      bufferLimit = offset + length;
+
+      return readInto(offset, existing);
+   }
+
+   /**
+    * Parse the document into an existing instance, overwriting the members that are
+    * present and reusing the nested objects and containers already held.
+    */
+   private <T> T readInto(final int bufferIndex, final T existing)
+   {
+      final Clazz clazz = ClassUtils.reflect(existing.getClass());
+      if (isBeanAccess && BeanAccessor.of(clazz).isConstructorBound()) {
+         throw new RuntimeException(clazz.getActualClass() + " is bound through its constructor, and cannot be updated");
+      }
+
+      depth = 0;
+      isUpdating = true;
+      try {
+         final ParseContext context = pushContext(clazz, null, existing, Types.OBJECT);
+         parseObject(bufferIndex, context);
+         popContext();
+         return existing;
+      }
+      finally {
+         isUpdating = false;
+      }
+   }
+
+   @SuppressWarnings("unchecked")
+   private <T> T readValue(final int bufferIndex, final Class<T> valueType)
+   {
+      depth = 0;
+      final Clazz clazz = ClassUtils.reflect(valueType);
+      final ParseContext context = pushContext(clazz, null, newTarget(clazz), Types.OBJECT);
+
+      parseObject(bufferIndex, context);
+      final Object value = complete(context);
+      popContext();
+      return (T) value;
+   }
+
+   /**
+    * Position the parser at the first element of the array reached by following
+    * the specified member names from the root of the document.  Members that are
+    * not on the path are skipped without being bound.
+    *
+    * @param src the stream to read from
+    * @param path the member names leading to the array, empty for a top-level array
+    */
+   void beginArray(final InputStream src, final String[] path)
+   {
+      setSource(src);
+
+      int bufferIndex = skipWhitespace(0);
+      for (String member : path) {
+         if (byteBuffer[bufferIndex] != OPEN_CURLY) {
+            throw new RuntimeException("Expected an object containing member \"" + member + "\"");
+         }
+         bufferIndex = findMember(bufferIndex + 1, member);
+      }
+
+      if (byteBuffer[bufferIndex] != OPEN_BRACKET) {
+         throw new RuntimeException("Expected an array");
+      }
+
+      streamIndex = bufferIndex + 1;
+   }
+
+   /**
+    * Advance past the separator preceding the next array element.  Reading stops at
+    * the closing bracket; nothing after the array is consumed.
+    *
+    * @return true if another element follows, false at the end of the array
+    */
+   boolean hasNextElement()
+   {
+      int bufferIndex = skipWhitespace(streamIndex);
+      if (byteBuffer[bufferIndex] == COMMA) {
+         bufferIndex = skipWhitespace(bufferIndex + 1);
+      }
+
+      streamIndex = bufferIndex;
+      return byteBuffer[bufferIndex] != CLOSE_BRACKET;
+   }
+
+   @SuppressWarnings("unchecked")
+   <T> T nextElement(final Class<T> elementType)
+   {
+      final int b = byteBuffer[streamIndex];
+      if (b == 'n') {
+         streamIndex = skipCommaOrUptoCurly(streamIndex + 1);
+         return null;
+      }
+      else if (b != OPEN_CURLY) {
+         throw new RuntimeException("Unexpected character '" + (char) (b & 0xff) + "' at the start of an array element, expected an object or null");
+      }
+
+      depth = 0;
+      final Clazz clazz = ClassUtils.reflect(elementType);
+      final ParseContext context = pushContext(clazz, null, newTarget(clazz), Types.OBJECT);
+      streamIndex = parseObject(streamIndex, context);
+      final Object value = complete(context);
+      popContext();
+      return (T) value;
+   }
+
+   /**
+    * Evaluate a path query against the document provided by a stream.
+    *
+    * @param src the stream to read from
+    * @param query the compiled query
+    * @return the value located by each pointer, or null
+    */
+   JsonNode[] query(final InputStream src, final FieldBasedPathQuery query)
+   {
+      setSource(src);
+
+      return query(0, query);
+   }
+
+   /**
+    * Evaluate a path query directly over the caller's array without copying.
+    */
+   JsonNode[] query(final byte[] src, final int offset, final int length, final FieldBasedPathQuery query)
+   {
+      if (offset < 0 || length < 0 || offset + length > src.length) {
+         throw new IndexOutOfBoundsException("offset " + offset + ", length " + length + ", array length " + src.length);
+      }
+
+      source = null;
+      byteBuffer = src;
+      bufferLimit = offset + length;
+
+      return query(offset, query);
+   }
+
+   private JsonNode[] query(final int bufferIndex, final FieldBasedPathQuery query)
+   {
+      final QueryState state = new QueryState(query.pointerCount);
+      if (state.remaining > 0) {
+         queryValue(skipWhitespace(bufferIndex), query.root, state);
+      }
+
+      return state.results;
+   }
+
+   /**
+    * Walk a value along the query trie, capturing the values at which pointers end
+    * and skipping everything else.
+    *
+    * @param bufferIndex the index of the first byte of the value
+    * @param node the query node the value is located by
+    * @param state the state of the evaluation
+    * @return the index following the value, or -1 once every pointer is resolved
+    */
+   private int queryValue(int bufferIndex, final FieldBasedPathQuery.Node node, final QueryState state)
+   {
+      if (node.slots != null) {
+         captureMark = bufferIndex;
+         final int endIndex = skipValue(bufferIndex);
+         final int startIndex = captureMark;
+         captureMark = -1;
+
+         final JsonNode value = new TapeNode(JsonTape.index(Arrays.copyOfRange(byteBuffer, startIndex, endIndex), 0, endIndex - startIndex), 0);
+         for (int slot : node.slots) {
+            state.resolve(slot, value);
+         }
+         for (int i = 0; i < node.tailSlots.length; i++) {
+            state.resolve(node.tailSlots[i], value.at(node.tails[i]));
+         }
+         return (state.remaining == 0 ? -1 : endIndex);
+      }
+
+      final int b = byteBuffer[bufferIndex];
+      if (b == OPEN_CURLY) {
+         bufferIndex++;
+         do {
+            bufferIndex = skipWhitespace(bufferIndex);
+
+            final int c = byteBuffer[bufferIndex];
+            if (c == QUOTE) {
+               bufferIndex = parseMemberName(bufferIndex + 1);
+               final FieldBasedPathQuery.Node child = node.member(byteBuffer, nameStart, bufferIndex - 1 - nameStart);
+
+               bufferIndex = skipWhitespace(skipUtil(bufferIndex, COLON));
+               bufferIndex = (child != null ? queryValue(bufferIndex, child, state) : skipValue(bufferIndex));
+               if (bufferIndex < 0) {
+                  return -1;
+               }
+            }
+            else if (c == CLOSE_CURLY) {
+               break;
+            }
+            else {
+               bufferIndex++;
+            }
+         } while (true);
+      }
+      else if (b == OPEN_BRACKET) {
+         bufferIndex++;
+         int index = 0;
+         do {
+            bufferIndex = skipWhitespace(bufferIndex);
+
+            final int c = byteBuffer[bufferIndex];
+            if (c == CLOSE_BRACKET) {
+               break;
+            }
+            else if (c == COMMA) {
+               bufferIndex++;
+               continue;
+            }
+
+            final FieldBasedPathQuery.Node child = node.element(index++);
+            bufferIndex = (child != null ? queryValue(bufferIndex, child, state) : skipValue(bufferIndex));
+            if (bufferIndex < 0) {
+               return -1;
+            }
+         } while (true);
+      }
+      else {
+         bufferIndex = skipValue(bufferIndex);
+      }
+
+      // Pointers below this value that were not matched cannot match
+      for (int slot : node.tailSlots) {
+         state.resolve(slot, null);
+      }
+
+      return (state.remaining == 0 ? -1 : (b == OPEN_CURLY || b == OPEN_BRACKET ? bufferIndex + 1 : bufferIndex));
+   }
+
+   /**
+    * Release references held from the last parse so that a pooled parser does
+    * not retain the caller's stream or an oversized buffer.
+    */
+   void reset()
+   {
+      source = null;
+      bufferLimit = 0;
+      streamIndex = 0;
+      captureMark = -1;
+      isUpdating = false;
+      while (depth > 0) {
+         // Release whatever an aborted parse left on the context stack
+         popContext();
+      }
+      if (ownedBuffer != null && ownedBuffer.length > BUFFER_SIZE) {
+         ownedBuffer = new byte[BUFFER_SIZE];
+      }
+      if (charBuffer.length > BUFFER_SIZE) {
+         charBuffer = new char[256];
+      }
+      byteBuffer = ownedBuffer;
+   }
+
+   private void setSource(final InputStream src)
+   {
+      if (ownedBuffer == null) {
+         ownedBuffer = new byte[BUFFER_SIZE];
+      }
+
+      source = src;
+      byteBuffer = ownedBuffer;
+      bufferLimit = 0;
+   }
+
+   private int parseObject(int bufferIndex, final ParseContext context)
+   {
+      do {
+         bufferIndex = fillBuffer(bufferIndex);
+
+         final int b = byteBuffer[bufferIndex];
+         if (b == OPEN_CURLY) {
+            bufferIndex = parseMembers(bufferIndex + 1, context);
+         }
+         else if (b == CLOSE_CURLY) {
+            return bufferIndex + 1;
+         }
+         else {
+            bufferIndex++;
+         }
+      } while (true);
+   }
+
+   private int parseMembers(int bufferIndex, final ParseContext context)
+   {
+      do {
+         bufferIndex = skipWhitespace(bufferIndex);
+
+         final int b = byteBuffer[bufferIndex];
+         if (b == QUOTE) {
+            bufferIndex = parseMember(bufferIndex, context);
+         }
+         else if (b == CLOSE_CURLY) {
+            return bufferIndex;
+         }
+         else {
+            bufferIndex++;
+         }
+      } while (true);
+   }
+
+   private int parseMember(int bufferIndex, final ParseContext context)
+   {
+      // Parse the member name, and resolve it while its bytes are still in the buffer
+      bufferIndex = parseMemberName(bufferIndex + 1);
+      context.lookupKey = nameHash;
+
+      final Clazz clazz = context.clazz;
+      final int index = clazz.lookup(nameHash, byteBuffer, nameStart, bufferIndex - 1 - nameStart);
+      if (index < 0 && isFailOnUnknown) {
+         throw unknownMember(clazz, byteBuffer, nameStart, bufferIndex - 1 - nameStart);
+      }
+
+      // Next character better be a colon
+      bufferIndex = skipUtil(bufferIndex, COLON);
+
+      // Unknown and excluded members are skipped without being parsed
+      if (index < 0 || clazz.getPhields()[index].excluded) {
+         return skipValue(skipWhitespace(bufferIndex));
+      }
+
+      // Now the value
+      final Phield phield = clazz.getPhields()[index];
+      final GeneratedAccessor accessor = accessorFor(clazz);
+
+      context.holderType = phield.type;
+      cacheValue = (isCacheStrings || phield.isCachedValue);
+      valueEnum = phield.enumConstants;
+      if (phield.isArray || phield.isCollection || phield.isMap) {
+         bufferIndex = parseContainer(bufferIndex, context, phield);
+      }
+      else if (phield.type == Types.OBJECT) {
+         final ParseContext nextContext = pushContext(phield.clazz, phield, memberTarget(context, phield), Types.OBJECT);
+         context.objectHolder = nextContext.target;
+         bufferIndex = parseValue(bufferIndex, context, nextContext);
+         popContext();
+      }
+      else {
+         nullValue = false;
+         bufferIndex = parseValue(bufferIndex, context, null);
+         if (nullValue && !bindsNull(phield)) {
+            return bufferIndex;
+         }
+      }
+
+      bindMember(accessor, index, phield, context);
+
+      return bufferIndex;
+   }
+
+   /**
+    * Get the object, collection or map that the value of a member is parsed into.
+    * When updating an existing instance, the object or container already held by
+    * the member is reused, with a container cleared first; otherwise, or if the
+    * member holds null or an object of a subclass, a new target is created.
+    *
+    * @param context the context of the object holding the member
+    * @param phield the member
+    * @return the target
+    */
+   private Object memberTarget(final ParseContext context, final Phield phield)
+   {
+      if (isUpdating && context.target.getClass() == context.clazz.getActualClass()) {
+         final Object existing = phield.access.getObject(context.target);
+         if (existing == null) {
+            return newMemberTarget(phield);
+         }
+         else if (phield.clazz != null && existing.getClass() == phield.clazz.getActualClass()) {
+            return existing;
+         }
+         else if (existing instanceof Collection && phield.isCollection) {
+            ((Collection<?>) existing).clear();
+            return existing;
+         }
+         else if (existing instanceof Map && phield.isMap) {
+            ((Map<?, ?>) existing).clear();
+            return existing;
+         }
+      }
+
+      return newMemberTarget(phield);
+   }
+
+   /**
+    * Create the object, collection or map that the value of a member is parsed into.
+    *
+    * @param phield the member
+    * @return the new target
+    */
+   Object newMemberTarget(final Phield phield)
+   {
+      if ((phield.isCollection || phield.isArray) && phield.collectionClass == null && collectionClass != null
+          && (phield.isArray || phield.field.getType().isAssignableFrom(collectionClass))) {
+         // The mapper's collection class, where it suits the declared type
+         return phield.newInstance(collectionClass);
+      }
+      else if (phield.clazz != null) {
+         return newTarget(phield.clazz);
+      }
+
+      return phield.newInstance();
+   }
+
+   /**
+    * Create the object that the members of an object of the specified class are
+    * parsed into.
+    *
+    * @param clazz the class of the object
+    * @return the new target
+    */
+   Object newTarget(final Clazz clazz)
+   {
+      if (isBeanAccess) {
+         return BeanAccessor.of(clazz).newInstance();
+      }
+      else if (isAllocateInstances) {
+         return clazz.allocateInstance();
+      }
+
+      return clazz.newInstance();
+   }
+
+   /**
+    * Take the context for the next nesting level from the stack, rebinding it to
+    * the specified target.  Contexts are allocated only the first time a level is
+    * reached, so a parser that has seen a document of similar depth allocates none.
+    *
+    * @param clazz the class of the target, or null
+    * @param phield the member holding the target, or null
+    * @param target the target, or null for a context that only holds scalar values
+    * @param holderType the type of the values held
+    * @return the context
+    */
+   private ParseContext pushContext(final Clazz clazz, final Phield phield, final Object target, final int holderType)
+   {
+      if (depth == contextStack.length) {
+         contextStack = Arrays.copyOf(contextStack, depth * 2);
+      }
+
+      ParseContext context = contextStack[depth];
+      if (context == null) {
+         context = new ParseContext();
+         contextStack[depth] = context;
+      }
+      depth++;
+
+      return context.reset(clazz, phield, target, holderType);
+   }
+
+   /**
+    * Return the context of the current nesting level to the stack, releasing the
+    * references it holds.
+    */
+   private void popContext()
+   {
+      contextStack[--depth].reset(null, null, null, Types.OBJECT);
+   }
+
+   /**
+    * Get the object parsed into a context once all of its members have been bound.
+    * With bean access, a class bound through its constructor is constructed here.
+    *
+    * @param context the context of the object
+    * @return the object
+    */
+   Object complete(final ParseContext context)
+   {
+      return (isBeanAccess && context.clazz != null ? BeanAccessor.of(context.clazz).complete(context.target) : context.target);
+   }
+
+   /**
+    * Get the accessor that binds members of the specified class.
+    *
+    * @param clazz the class
+    * @return the accessor, or null to store members directly into their fields
+    */
+   GeneratedAccessor accessorFor(final Clazz clazz)
+   {
+      if (isBeanAccess) {
+         return BeanAccessor.of(clazz);
+      }
+
+      return (isGeneratedAccess ? AccessorGenerator.accessorFor(clazz) : null);
+   }
+
+   /**
+    * Returns true if a JSON <code>null</code> is bound to the member.  A primitive
+    * member cannot hold null, so it keeps its current value instead; both the
+    * blocking and the push parser apply this rule.
+    *
+    * @param phield the member
+    * @return true if null is stored into the member
+    */
+   static boolean bindsNull(final Phield phield)
+   {
+      return !phield.isPrimitive || phield.type == Types.STRING;
+   }
+
+   /**
+    * Store the value held in the context into the member of the context's target,
+    * unless the member is excluded.
+    *
+    * @param accessor the generated accessor of the target class, or null for reflective access
+    * @param index the index of the member in the generated accessor
+    * @param phield the member
+    * @param context the context holding the value
+    */
+   void bindMember(final GeneratedAccessor accessor, final int index, final Phield phield, final ParseContext context)
+   {
+      if (!phield.excluded) {
+         if (accessor != null) {
+            accessor.setMember(index, context);
+         }
+         else {
+            setMember(phield, context);
+         }
+      }
+   }
+
+   private int parseValue(int bufferIndex, final ParseContext context, final ParseContext nextContext)
+   {
+      int limit = bufferLimit;
+      do {
+         do {
+            bufferIndex = skipWhitespace(bufferIndex);
+            
+            final int b = byteBuffer[bufferIndex++];
+            if (b == QUOTE) {
+               return skipCommaOrUptoCurly((isAsciiValues ? parseAsciiString(bufferIndex, context) : parseString(bufferIndex, context)));
+            }
+            else if ((b >= '0' && b <= '9') || b == HYPHEN) {
+               return skipCommaOrUptoCurly(parseNumber(bufferIndex - 1, context));
+            }
+            else if (b == OPEN_CURLY) {
+               bufferIndex = parseMembers(bufferIndex, nextContext);
+               context.objectHolder = complete(nextContext);
+               // fall-thru
+            }
+            else if (b == CLOSE_CURLY) {
+               return bufferIndex;
+            }
+            else if (b == OPEN_BRACKET) {
+               throw new RuntimeException("Unexpected array value");
+            }
+            else if (b == 't') {
+               context.booleanHolder = true;
+               return skipCommaOrUptoCurly(bufferIndex);
+            }
+            else if (b == 'f') {
+               context.booleanHolder = false;
+               return skipCommaOrUptoCurly(bufferIndex);
+            }
+            else if (b == 'n') {
+               context.objectHolder = null;
+               context.stringHolder = null;
+               nullValue = true;
+               return skipCommaOrUptoCurly(bufferIndex);
+            }
+         } while (bufferIndex < limit);
+
+         limit = bufferLimit;
+      } while (true);
+   }
+
+   /**
+    * Parse the value of an array, collection or map member into
+    * <code>context.objectHolder</code>.
+    *
+    * @param bufferIndex the index following the colon
+    * @param context the context of the object holding the member
+    * @param phield the member
+    * @return the index following the value
+    */
+   private int parseContainer(int bufferIndex, final ParseContext context, final Phield phield)
+   {
+      bufferIndex = skipWhitespace(bufferIndex);
+
+      final int b = byteBuffer[bufferIndex];
+      if (b == 'n') {
+         context.objectHolder = null;
+         return skipCommaOrUptoCurly(bufferIndex + 1);
+      }
+      else if (b == OPEN_CURLY && phield.isMap) {
+         if (phield.keyClass != null && phield.keyClass != String.class) {
+            throw new RuntimeException("Unsupported key type " + phield.keyClass.getName() + " for member \"" + phield.name + "\"");
+         }
+
+         @SuppressWarnings("unchecked")
+         final Map<String, Object> map = (Map<String, Object>) memberTarget(context, phield);
+         bufferIndex = parseMapMembers(bufferIndex + 1, phield, map);
+         context.objectHolder = map;
+      }
+      else if (b == OPEN_BRACKET && !phield.isMap) {
+         final ArrayBuilder builder = (phield.isArray ? new ArrayBuilder(phield) : new ArrayBuilder(phield, memberTarget(context, phield)));
+         bufferIndex = parseElements(bufferIndex + 1, phield, builder);
+         context.objectHolder = builder.build();
+      }
+      else {
+         throw new RuntimeException("Unexpected value for member \"" + phield.name + "\"");
+      }
+
+      return skipCommaOrUptoCurly(bufferIndex);
+   }
+
+   private int parseElements(int bufferIndex, final Phield phield, final ArrayBuilder builder)
+   {
+      final ParseContext holder = pushContext(null, null, null, phield.elementType);
+      do {
+         bufferIndex = skipWhitespace(bufferIndex);
+
+         final int b = byteBuffer[bufferIndex];
+         if (b == CLOSE_BRACKET) {
+            popContext();
+            return bufferIndex + 1;
+         }
+         else if (b == COMMA) {
+            bufferIndex++;
+         }
+         else if (b == 'n') {
+            builder.addObject(null);
+            bufferIndex = skipCommaOrUptoCurly(bufferIndex + 1);
+         }
+         else if (phield.elementType == Types.OBJECT) {
+            bufferIndex = parseElement(bufferIndex, phield, holder);
+            builder.addObject(holder.objectHolder);
+         }
+         else {
+            bufferIndex = parseElement(bufferIndex, phield, holder);
+            builder.add(holder);
+         }
+      } while (true);
+   }
+
+   private int parseMapMembers(int bufferIndex, final Phield phield, final Map<String, Object> map)
+   {
+      final ParseContext holder = pushContext(null, null, null, phield.elementType);
+      final ParseContext keyHolder = pushContext(null, null, null, Types.STRING);
+      do {
+         bufferIndex = skipWhitespace(bufferIndex);
+
+         final int b = byteBuffer[bufferIndex];
+         if (b == CLOSE_CURLY) {
+            popContext();
+            popContext();
+            return bufferIndex + 1;
+         }
+         else if (b == QUOTE) {
+            cacheValue = isCacheStrings;
+            bufferIndex = (isAsciiValues ? parseAsciiString(bufferIndex + 1, keyHolder) : parseString(bufferIndex + 1, keyHolder));
+            bufferIndex = skipWhitespace(skipUtil(bufferIndex, COLON));
+            if (byteBuffer[bufferIndex] == 'n') {
+               map.put(keyHolder.stringHolder, null);
+               bufferIndex = skipCommaOrUptoCurly(bufferIndex + 1);
+            }
+            else {
+               bufferIndex = parseElement(bufferIndex, phield, holder);
+               map.put(keyHolder.stringHolder, ArrayBuilder.valueOf(holder));
+            }
+         }
+         else {
+            bufferIndex++;
+         }
+      } while (true);
+   }
+
+   /**
+    * Parse a non-null element of an array or collection member, or a value of a map
+    * member, into the holder.  Bean elements are left in <code>holder.objectHolder</code>.
+    *
+    * @param bufferIndex the index of the first byte of the element
+    * @param phield the array, collection or map member
+    * @param holder the context holding values of the element type
+    * @return the index following the element and any comma
+    */
+   private int parseElement(final int bufferIndex, final Phield phield, final ParseContext holder)
+   {
+      if (phield.elementType != Types.OBJECT) {
+         cacheValue = (isCacheStrings || phield.isCachedValue);
+         valueEnum = phield.enumConstants;
+         return parseValue(bufferIndex, holder, null);
+      }
+
+      final Clazz elementClazz = phield.getElementClazz();
+      if (elementClazz == null || byteBuffer[bufferIndex] != OPEN_CURLY) {
+         throw new RuntimeException("Unsupported element value for member \"" + phield.name + "\"");
+      }
+
+      final ParseContext nextContext = pushContext(elementClazz, null, newTarget(elementClazz), Types.OBJECT);
+      final int endIndex = parseMembers(bufferIndex + 1, nextContext);
+      holder.objectHolder = complete(nextContext);
+      popContext();
+      return skipCommaOrUptoCurly(endIndex + 1);
+   }
+
+   private int parseString(int bufferIndex, final ParseContext context)
+   {
+      int startIndex = bufferIndex;
+      decodeRequired.bool = false;
+      do {
+         final int newIndex = findEndQuoteUTF8(byteBuffer, bufferIndex, bufferLimit, decodeRequired);
+         if (newIndex >= 0) {
+            if (context.holderType == Types.ENUM) {
+               context.objectHolder = valueEnum.valueOf(byteBuffer, startIndex, newIndex - startIndex);
+            }
+            else if (Types.isDate(context.holderType)) {
+               context.objectHolder = parseDate(byteBuffer, startIndex, newIndex - startIndex, context.holderType);
+            }
+            else {
+               context.stringHolder = newString(byteBuffer, startIndex, newIndex - startIndex, decodeRequired.bool, cacheValue);
+            }
+            return newIndex + 1;
+         }
+
+         // Preserve the string, including its opening quote
+         final int shift = fillBufferPreserving(startIndex - 1);
+         startIndex -= shift;
+         bufferIndex = ~newIndex - shift;
+      } while (true);
+   }
+
+   /**
+    * Create the string for the content of a string value, sharing the instance
+    * through this parser's {@link StringCache} if requested.
+    *
+    * @param bytes the array holding the content, as it appears between the quotes
+    * @param offset the index of the first byte
+    * @param length the length of the content in bytes
+    * @param decodeRequired true if the content contains escape sequences or non-ASCII bytes
+    * @param cache true to look the value up in, and add it to, the cache
+    * @return the string
+    */
+   String newString(final byte[] bytes, final int offset, final int length, final boolean decodeRequired, final boolean cache)
+   {
+      if (!cache || length > StringCache.MAX_LENGTH) {
+         return (decodeRequired ? decodeString(bytes, offset, length) : fastTrackAsciiDecode(bytes, offset, length));
+      }
+
+      if (stringCache == null) {
+         stringCache = new StringCache();
+      }
+
+      final int hash = Utf8Utils.hash(bytes, offset, offset + length);
+      String value = stringCache.get(hash, bytes, offset, length);
+      if (value == null) {
+         value = (decodeRequired ? decodeString(bytes, offset, length) : fastTrackAsciiDecode(bytes, offset, length));
+         stringCache.put(hash, bytes, offset, length, value);
+      }
+
+      return value;
+   }
+
+   /**
+    * Decode the content of a string containing escape sequences or non-ASCII bytes,
+    * using this parser's reusable char buffer.
+    *
+    * @param bytes the array holding the content, as it appears between the quotes
+    * @param offset the index of the first byte
+    * @param length the length of the content in bytes
+    * @return the decoded string
+    */
+   private String decodeString(final byte[] bytes, final int offset, final int length)
+   {
+      if (charBuffer.length < length) {
+         charBuffer = new char[Math.max(length, charBuffer.length * 2)];
+      }
+
+      return new String(charBuffer, 0, decode(bytes, offset, offset + length, charBuffer));
+   }
+
+   /**
+    * Hash a member name into <code>nameHash</code>, leaving the name in the buffer
+    * starting at <code>nameStart</code>.
+    *
+    * @param bufferIndex the index following the opening quote
+    * @return the index following the closing quote
+    */
+   private int parseMemberName(int bufferIndex)
+   {
+      nameStart = bufferIndex;
+      do {
+         final int newIndex = findEndQuote(byteBuffer, bufferIndex, bufferLimit, null);
+         if (newIndex >= 0) {
+            nameHash = Utf8Utils.hash(byteBuffer, nameStart, newIndex);
+            return newIndex + 1;
+         }
+
+         // Preserve the name, including its opening quote
+         final int shift = fillBufferPreserving(nameStart - 1);
+         nameStart -= shift;
+         bufferIndex = ~newIndex - shift;
+      } while (true);
+   }
+
+   private int parseAsciiString(int bufferIndex, final ParseContext context)
+   {
+      int startIndex = bufferIndex;
+      decodeRequired.bool = false;
+      do {
+         final int newIndex = findEndQuote(byteBuffer, bufferIndex, bufferLimit, decodeRequired);
+         if (newIndex >= 0) {
+            if (context.holderType == Types.ENUM) {
+               context.objectHolder = valueEnum.valueOf(byteBuffer, startIndex, newIndex - startIndex);
+            }
+            else if (Types.isDate(context.holderType)) {
+               context.objectHolder = parseDate(byteBuffer, startIndex, newIndex - startIndex, context.holderType);
+            }
+            else {
+               context.stringHolder = newString(byteBuffer, startIndex, newIndex - startIndex, decodeRequired.bool, cacheValue);
+            }
+            return newIndex + 1;
+         }
+
+         // Preserve the string, including its opening quote
+         final int shift = fillBufferPreserving(startIndex - 1);
+         startIndex -= shift;
+         bufferIndex = ~newIndex - shift;
+      } while (true);
+   }
+
+   private int parseNumber(int bufferIndex, final ParseContext context)
+   {
+      int startIndex = bufferIndex;
+      do {
+         final byte[] buffer = byteBuffer;
+         for (final int limit = bufferLimit; bufferIndex < limit; bufferIndex++) {
+            final int b = buffer[bufferIndex];
+            if ((b < '0' || b > '9') && b != '.' && b != '-' && b != '+' && b != 'e' && b != 'E') {
+               setNumber(buffer, startIndex, bufferIndex - startIndex, context);
+               return bufferIndex;
+            }
+         }
+
+         // Preserve the number
+         final int scanned = bufferLimit;
+         final int shift = fillBufferPreserving(startIndex);
+         startIndex -= shift;
+         bufferIndex = scanned - shift;
+      } while (true);
+   }
+
+   /**
+    * Convert a number into the holder matching the type of the member being parsed.
+    *
+    * @param bytes the array holding the number
+    * @param offset the index of the first byte of the number
+    * @param length the length of the number in bytes
+    * @param context the context to set the holder of
+    */
+   static void setNumber(final byte[] bytes, final int offset, final int length, final ParseContext context)
+   {
+      final int type = context.holderType;
+      if ((type & Types.INTEGRAL_TYPE) > 0) {
+         context.longHolder = checkRange(parseLong(bytes, offset, length), type);
+      }
+      else if (type == Types.BIGDECIMAL) {
+         context.objectHolder = parseBigDecimal(bytes, offset, length);
+      }
+      else if (type == Types.BIGINTEGER) {
+         context.objectHolder = parseBigInteger(bytes, offset, length);
+      }
+      else if (Types.isDate(type)) {
+         context.objectHolder = IsoDateParser.fromEpochMillis(parseLong(bytes, offset, length), type);
+      }
+      else {
+         context.doubleHolder = parseDouble(bytes, offset, length);
+      }
+   }
+
+   static void setMember(final Phield phield, final ParseContext context)
+   {
+      try {
+         final int type = phield.type;
+         if (phield.isIntegralType) {
+            switch(type) {
+            case Types.INT:
+               phield.access.putInt(context.target, (int) context.longHolder);
+               break;
+            case Types.LONG:
+               phield.access.putLong(context.target, context.longHolder);
+               break;
+            case Types.SHORT:
+               phield.access.putShort(context.target, (short) context.longHolder);
+               break;
+            case Types.BYTE:
+               phield.access.putByte(context.target, (byte) context.longHolder);
+               break;
+            case Types.CHAR:
+               phield.access.putChar(context.target, (char) context.longHolder);
+               break;
+            }
+         }
+         else {
+            switch(type) {
+            case Types.STRING:
+               phield.access.putObject(context.target, context.stringHolder);
+               break;
+            case Types.OBJECT:
+               phield.access.putObject(context.target, (context.objectHolder == Void.TYPE ? null : context.objectHolder));
+               break;
+            case Types.BIGDECIMAL:
+            case Types.BIGINTEGER:
+            case Types.DATE:
+            case Types.INSTANT:
+            case Types.OFFSETDATETIME:
+            case Types.LOCALDATE:
+            case Types.ENUM:
+               phield.access.putObject(context.target, context.objectHolder);
+               break;
+            case Types.BOOLEAN:
+               phield.access.putBoolean(context.target, context.booleanHolder);
+               break;
+            case Types.DOUBLE:
+               phield.access.putDouble(context.target, context.doubleHolder);
+               break;
+            case Types.FLOAT:
+               phield.access.putFloat(context.target, (float) context.doubleHolder);
+               break;
+            }
+         }
+      }
+      catch (SecurityException | IllegalArgumentException e) {
+         throw new RuntimeException(e);
+      }
+   }
+
+   /**
+    * Scan the members of an object for the specified member, skipping the values of
+    * any others.
+    *
+    * @param bufferIndex the index following the opening curly brace
+    * @param name the member name
+    * @return the index of the first byte of the member's value
+    */
+   private int findMember(int bufferIndex, final String name)
+   {
+      final byte[] nameBytes = escapedBytes(name);
+      do {
+         bufferIndex = skipWhitespace(bufferIndex);
+
+         final int b = byteBuffer[bufferIndex];
+         if (b == QUOTE) {
+            bufferIndex = parseMemberName(bufferIndex + 1);
+            final boolean found = (bufferIndex - 1 - nameStart == nameBytes.length && regionEquals(byteBuffer, nameStart, nameBytes, 0, nameBytes.length));
+
+            bufferIndex = skipWhitespace(skipUtil(bufferIndex, COLON));
+            if (found) {
+               return bufferIndex;
+            }
+            bufferIndex = skipValue(bufferIndex);
+         }
+         else if (b == CLOSE_CURLY) {
+            throw new RuntimeException("Member \"" + name + "\" not found");
+         }
+         else {
+            bufferIndex++;
+         }
+      } while (true);
+   }
+
+   /**
+    * Skip a value of any type without binding it and without allocating.  Only the
+    * nesting depth and the string and escape state are tracked, and because nothing
+    * is retained, consumed data is discarded as the buffer is refilled.
+    *
+    * @param bufferIndex the index of the first byte of the value
+    * @return the index following an object, array or string, otherwise the index
+    *         of the comma, curly brace or bracket that terminates the value
+    */
+   private int skipValue(int bufferIndex)
+   {
+      int depth = 0;
+      boolean inString = false;
+      boolean escaped = false;
+      do {
+         final byte[] buffer = byteBuffer;
+         for (final int limit = bufferLimit; bufferIndex < limit; bufferIndex++) {
+            final int b = buffer[bufferIndex];
+            if (inString) {
+               if (escaped) {
+                  escaped = false;
+               }
+               else if (b == '\\') {
+                  escaped = true;
+               }
+               else if (b == QUOTE) {
+                  inString = false;
+                  if (depth == 0) {
+                     return bufferIndex + 1;
+                  }
+               }
+            }
+            else if (b == QUOTE) {
+               inString = true;
+            }
+            else if (b == OPEN_CURLY || b == OPEN_BRACKET) {
+               depth++;
+            }
+            else if (b == CLOSE_CURLY || b == CLOSE_BRACKET) {
+               if (depth == 0) {
+                  return bufferIndex;
+               }
+               else if (--depth == 0) {
+                  return bufferIndex + 1;
+               }
+            }
+            else if (b == COMMA && depth == 0) {
+               return bufferIndex;
+            }
+         }
+
+         bufferIndex = fillBuffer(bufferIndex);
+      } while (true);
+   }
+
+   static RuntimeException unknownMember(final Clazz clazz, final byte[] bytes, final int offset, final int length)
+   {
+      return new RuntimeException("Unknown member \"" + new String(bytes, offset, length, StandardCharsets.UTF_8) + "\" for " + clazz);
+   }
+
+   private int skipCommaOrUptoCurly(int bufferIndex)
+   {
+      do {
+         final byte[] buffer = byteBuffer;
+         for (final int limit = bufferLimit; bufferIndex < limit; bufferIndex++) {
+            final int b = buffer[bufferIndex];
+            if (b == CLOSE_CURLY || b == CLOSE_BRACKET) {
+               return bufferIndex;
+            }
+            else if (b == COMMA) {
+               return bufferIndex + 1;
+            }
+         }
+
+         bufferIndex = fillBuffer(bufferIndex);
+      } while (true);
+   }
+
+   private int skipUtil(int bufferIndex, final int c)
+   {
+      do {
+         final byte[] buffer = byteBuffer;
+         for (final int limit = bufferLimit; bufferIndex < limit; bufferIndex++) {
+            if (buffer[bufferIndex] == c) {
+               return bufferIndex + 1;
+            }
+         }
+
+         bufferIndex = fillBuffer(bufferIndex);
+      } while (true);
+   }
+
+   private int skipWhitespace(int bufferIndex)
+   {
+      do {
+         bufferIndex = Utf8Utils.skipWhitespace(byteBuffer, bufferIndex, bufferLimit);
+         if (bufferIndex < bufferLimit) {
+            return bufferIndex;
+         }
+
+         bufferIndex = fillBuffer(bufferIndex);
+      } while (true);
+   }
+
+   /**
+    * Parse a date value of the specified type, consulting the date cache if one is
+    * configured.  The cache holds immutable values, and epoch milliseconds in place
+    * of {@link Date}, so that a cached value is never shared in mutable form.
+    *
+    * @param bytes the array holding the value, as it appears between the quotes
+    * @param offset the index of the first byte
+    * @param length the length of the value in bytes
+    * @param type the date type
+    * @return the value
+    */
+   Object parseDate(final byte[] bytes, final int offset, final int length, final int type)
+   {
+      if (dateCache == null) {
+         return toDate(bytes, offset, length, type);
+      }
+
+      final int hash = Utf8Utils.hash(bytes, offset, offset + length);
+      final Object cached = dateCache.get(hash, bytes, offset, length);
+      if (cached instanceof Long && type == Types.DATE) {
+         return new Date((Long) cached);
+      }
+      else if (cached != null && cached.getClass() == dateClass(type)) {
+         return cached;
+      }
+
+      final Object value = toDate(bytes, offset, length, type);
+      dateCache.put(hash, bytes, offset, length, (type == Types.DATE ? (Object) ((Date) value).getTime() : value));
+      return value;
+   }
+
+   private Object toDate(final byte[] bytes, final int offset, final int length, final int type)
+   {
+      if (dateParser.parse(bytes, offset, length)) {
+         final Object value = dateParser.toTemporal(type);
+         if (value != null) {
+            return value;
+         }
+      }
+
+      return IsoDateParser.fromString(new String(bytes, offset, length, StandardCharsets.UTF_8), type);
+   }
+
+   private static Class<?> dateClass(final int type)
+   {
+      switch (type) {
+      case Types.INSTANT:
+         return Instant.class;
+      case Types.OFFSETDATETIME:
+         return OffsetDateTime.class;
+      case Types.LOCALDATE:
+         return LocalDate.class;
+      default:
+         return Date.class;
+      }
+   }
+
+   /**
+    * Read the next block of data if the buffer has been consumed up to the specified
+    * index, discarding the consumed data unless a value is being captured.
+    *
+    * @param bufferIndex the current index
+    * @return the index at which parsing should resume
+    */
+   final protected int fillBuffer(final int bufferIndex)
+   {
+      if (bufferIndex == bufferLimit) {
+         if (captureMark >= 0) {
+            final int shift = fillBufferPreserving(captureMark);
+            captureMark -= shift;
+            return bufferIndex - shift;
+         }
+         else if (source == null) {
+            throw new RuntimeException("Insufficient data during parsing");
+         }
+
+         try {
+            int read = source.read(byteBuffer, 0, byteBuffer.length);
+            if (read > 0) {
+               bufferLimit = read;
+               return 0;
+            }
+
+            throw new RuntimeException("Insufficient data during parsing");
+         }
+         catch (IOException io) {
+            throw new RuntimeException(io);
+         }
+      }
+
+      return bufferIndex;
+   }
+
+   /**
+    * Read more data while a token that began at <code>markIndex</code> is still
+    * being scanned.  The unconsumed data from <code>markIndex</code> onward is moved
+    * to the front of the buffer (growing it if the token fills the buffer) and new
+    * data is appended after it.
+    *
+    * @param markIndex the index of the first byte that must be preserved
+    * @return the distance the preserved data moved, which the caller must subtract
+    *         from any indexes it holds
+    */
+   final protected int fillBufferPreserving(final int markIndex)
+   {
+      if (source == null) {
+         throw new RuntimeException("Insufficient data during parsing");
+      }
+
+      final int preserved = bufferLimit - markIndex;
+      if (markIndex > 0) {
+         System.arraycopy(byteBuffer, markIndex, byteBuffer, 0, preserved);
+      }
+      else if (preserved == byteBuffer.length) {
+         final byte[] newArray = new byte[byteBuffer.length * 2];
+         System.arraycopy(byteBuffer, 0, newArray, 0, preserved);
+         byteBuffer = ownedBuffer = newArray;
+      }
+      bufferLimit = preserved;
+
+      try {
+         int read = source.read(byteBuffer, bufferLimit, byteBuffer.length - bufferLimit);
+         if (read > 0) {
+            bufferLimit += read;
+            return markIndex;
+         }
+
+         throw new RuntimeException("Insufficient data during parsing");
+      }
+      catch (IOException io) {
+         throw new RuntimeException(io);
+      }
+   }
+
+   /**
+    * The results of a path query under evaluation.
+    */
+   private static final class QueryState
+   {
+      final JsonNode[] results;
+      final boolean[] resolved;
+      int remaining;
+
+      QueryState(final int pointerCount)
+      {
+         results = new JsonNode[pointerCount];
+         resolved = new boolean[pointerCount];
+         remaining = pointerCount;
+      }
+
+      void resolve(final int slot, final JsonNode value)
+      {
+         if (!resolved[slot]) {
+            resolved[slot] = true;
+            results[slot] = value;
+            remaining--;
+         }
+      }
+   }
+}
@@ -0,0 +1,564 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json.serializer;
+
+import static com.zaxxer.hikari.json.util.Utf8Utils.fastTrackAsciiDecode;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+
+import com.zaxxer.hikari.json.util.ClassUtils;
+import com.zaxxer.hikari.json.util.Clazz;
+import com.zaxxer.hikari.json.util.DoubleList;
+import com.zaxxer.hikari.json.util.EnumConstants;
+import com.zaxxer.hikari.json.util.FieldAccess;
+import com.zaxxer.hikari.json.util.IntList;
+import com.zaxxer.hikari.json.util.LongList;
+import com.zaxxer.hikari.json.util.Phield;
+import com.zaxxer.hikari.json.util.Types;
+
+/**
+ * The per-thread serialization state of a {@link FieldBasedJsonMapper}.  Values are
+ * encoded as UTF-8 directly into a reusable byte buffer, which is flushed to the
+ * destination stream when full.  Fields are read through the
+ * {@link com.zaxxer.hikari.json.util.FieldAccess} of each {@link Phield}, in the
+ * same {@link Clazz} metadata used by the parser.
+ *
+ * @author Brett Wooldridge
+ */
+final class FieldBasedJsonWriter
+{
+   static final int BUFFER_SIZE = 16384;
+
+   private static final byte[] NULL = { 'n', 'u', 'l', 'l' };
+   private static final byte[] TRUE = { 't', 'r', 'u', 'e' };
+   private static final byte[] FALSE = { 'f', 'a', 'l', 's', 'e' };
+   private static final byte[] HEX = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f' };
+   private static final byte[] MIN_LONG = Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+
+   // Longest single write: a six byte control character escape, a 4-byte UTF-8 sequence, or a long
+   private static final int MAX_TOKEN = 24;
+
+   private final boolean isAsciiValues;
+
+   private OutputStream out;
+   private Writer writer;
+   private byte[] buffer;
+   private int position;
+   private boolean nonAscii;
+
+   FieldBasedJsonWriter(final FieldBasedJsonMapper mapper)
+   {
+      this.isAsciiValues = mapper.isAsciiValues;
+      this.buffer = new byte[BUFFER_SIZE];
+   }
+
+   void writeValue(final OutputStream dest, final Object value)
+   {
+      out = dest;
+      writeAny(value);
+      flush();
+   }
+
+   void writeValue(final Writer dest, final Object value)
+   {
+      writer = dest;
+      writeAny(value);
+      flush();
+   }
+
+   String writeValueAsString(final Object value)
+   {
+      writeAny(value);
+      if (isAsciiValues || !nonAscii) {
+         return fastTrackAsciiDecode(buffer, 0, position);
+      }
+
+      return new String(buffer, 0, position, StandardCharsets.UTF_8);
+   }
+
+   /**
+    * Release references held from the last write so that a pooled writer does
+    * not retain the caller's stream or an oversized buffer.
+    */
+   void reset()
+   {
+      out = null;
+      writer = null;
+      position = 0;
+      nonAscii = false;
+      if (buffer.length > BUFFER_SIZE) {
+         buffer = new byte[BUFFER_SIZE];
+      }
+   }
+
+   private void writeAny(final Object value)
+   {
+      if (value == null) {
+         writeRaw(NULL);
+      }
+      else if (value instanceof String) {
+         writeString((String) value);
+      }
+      else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+         writeLong(((Number) value).longValue());
+      }
+      else if (value instanceof Double) {
+         writeDouble((Double) value);
+      }
+      else if (value instanceof Float) {
+         writeFloat((Float) value);
+      }
+      else if (value instanceof Number) {
+         writeAscii(value.toString());
+      }
+      else if (value instanceof Boolean) {
+         writeRaw((Boolean) value ? TRUE : FALSE);
+      }
+      else if (value instanceof Character) {
+         writeString(value.toString());
+      }
+      else if (value instanceof Date) {
+         writeDate((Date) value);
+      }
+      else if (value instanceof Instant || value instanceof OffsetDateTime || value instanceof LocalDate) {
+         writeByte('"');
+         writeAscii(value.toString());
+         writeByte('"');
+      }
+      else if (value instanceof Enum) {
+         final Enum<?> constant = (Enum<?>) value;
+         writeByte('"');
+         writeRaw(EnumConstants.of(constant.getDeclaringClass()).nameBytes(constant));
+         writeByte('"');
+      }
+      else if (value instanceof Collection) {
+         writeCollection((Collection<?>) value);
+      }
+      else if (value instanceof Map) {
+         writeMap((Map<?, ?>) value);
+      }
+      else if (value.getClass().isArray()) {
+         writeArray(value);
+      }
+      else {
+         writeObject(value, ClassUtils.reflect(value.getClass()));
+      }
+   }
+
+   private void writeObject(final Object target, final Clazz clazz)
+   {
+      writeByte('{');
+
+      boolean first = true;
+      for (final Phield phield : clazz.getDeclaredPhields()) {
+         if (phield.excluded) {
+            continue;
+         }
+
+         if (!first) {
+            writeByte(',');
+         }
+         first = false;
+
+         writeRaw(phield.nameBytes);
+         writeMember(target, phield);
+      }
+
+      writeByte('}');
+   }
+
+   private void writeMember(final Object target, final Phield phield)
+   {
+      final FieldAccess access = phield.access;
+      switch (phield.type) {
+      case Types.INT:
+         writeLong(access.getInt(target));
+         break;
+      case Types.LONG:
+         writeLong(access.getLong(target));
+         break;
+      case Types.SHORT:
+         writeLong(access.getShort(target));
+         break;
+      case Types.BYTE:
+         writeLong(access.getByte(target));
+         break;
+      case Types.CHAR:
+         writeLong(access.getChar(target));
+         break;
+      case Types.BOOLEAN:
+         writeRaw(access.getBoolean(target) ? TRUE : FALSE);
+         break;
+      case Types.DOUBLE:
+         writeDouble(access.getDouble(target));
+         break;
+      case Types.FLOAT:
+         writeFloat(access.getFloat(target));
+         break;
+      case Types.STRING: {
+         final String s = (String) access.getObject(target);
+         if (s != null) {
+            writeString(s);
+         }
+         else {
+            writeRaw(NULL);
+         }
+         break;
+      }
+      default: {
+         final Object value = access.getObject(target);
+         if (value != null && phield.clazz != null && value.getClass() == phield.clazz.getActualClass()) {
+            writeObject(value, phield.clazz);
+         }
+         else {
+            writeAny(value);
+         }
+      }
+      }
+   }
+
+   private void writeCollection(final Collection<?> collection)
+   {
+      writeByte('[');
+
+      if (collection instanceof IntList) {
+         final IntList list = (IntList) collection;
+         for (int i = 0; i < list.size(); i++) {
+            if (i > 0) writeByte(',');
+            writeLong(list.getInt(i));
+         }
+         writeByte(']');
+         return;
+      }
+      else if (collection instanceof LongList) {
+         final LongList list = (LongList) collection;
+         for (int i = 0; i < list.size(); i++) {
+            if (i > 0) writeByte(',');
+            writeLong(list.getLong(i));
+         }
+         writeByte(']');
+         return;
+      }
+      else if (collection instanceof DoubleList) {
+         final DoubleList list = (DoubleList) collection;
+         for (int i = 0; i < list.size(); i++) {
+            if (i > 0) writeByte(',');
+            writeDouble(list.getDouble(i));
+         }
+         writeByte(']');
+         return;
+      }
+
+      boolean first = true;
+      for (Object element : collection) {
+         if (!first) {
+            writeByte(',');
+         }
+         first = false;
+
+         writeAny(element);
+      }
+
+      writeByte(']');
+   }
+
+   private void writeMap(final Map<?, ?> map)
+   {
+      writeByte('{');
+
+      boolean first = true;
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+         if (!first) {
+            writeByte(',');
+         }
+         first = false;
+
+         writeString(String.valueOf(entry.getKey()));
+         writeByte(':');
+         writeAny(entry.getValue());
+      }
+
+      writeByte('}');
+   }
+
+   private void writeArray(final Object array)
+   {
+      writeByte('[');
+
+      final int length = Array.getLength(array);
+      if (array instanceof int[]) {
+         final int[] a = (int[]) array;
+         for (int i = 0; i < length; i++) {
+            if (i > 0) writeByte(',');
+            writeLong(a[i]);
+         }
+      }
+      else if (array instanceof long[]) {
+         final long[] a = (long[]) array;
+         for (int i = 0; i < length; i++) {
+            if (i > 0) writeByte(',');
+            writeLong(a[i]);
+         }
+      }
+      else if (array instanceof double[]) {
+         final double[] a = (double[]) array;
+         for (int i = 0; i < length; i++) {
+            if (i > 0) writeByte(',');
+            writeDouble(a[i]);
+         }
+      }
+      else if (array instanceof Object[]) {
+         final Object[] a = (Object[]) array;
+         for (int i = 0; i < length; i++) {
+            if (i > 0) writeByte(',');
+            writeAny(a[i]);
+         }
+      }
+      else {
+         for (int i = 0; i < length; i++) {
+            if (i > 0) writeByte(',');
+            writeAny(Array.get(array, i));
+         }
+      }
+
+      writeByte(']');
+   }
+
+   private void writeDate(final Date date)
+   {
+      writeByte('"');
+      writeAscii(Instant.ofEpochMilli(date.getTime()).toString());
+      writeByte('"');
+   }
+
+   private void writeDouble(final double d)
+   {
+      if (Double.isNaN(d) || Double.isInfinite(d)) {
+         writeRaw(NULL);
+      }
+      else {
+         writeAscii(Double.toString(d));
+      }
+   }
+
+   /**
+    * Write a float in the shortest form that reads back as the same float, rather
+    * than widening it to a double, which would write 1.1f as 1.100000023841858.
+    */
+   private void writeFloat(final float f)
+   {
+      if (Float.isNaN(f) || Float.isInfinite(f)) {
+         writeRaw(NULL);
+      }
+      else {
+         writeAscii(Float.toString(f));
+      }
+   }
+
+   private void writeLong(long value)
+   {
+      if (value == Long.MIN_VALUE) {
+         writeRaw(MIN_LONG);
+         return;
+      }
+
+      ensureCapacity(MAX_TOKEN);
+      final byte[] buf = buffer;
+      if (value < 0) {
+         buf[position++] = '-';
+         value = -value;
+      }
+
+      int digits = 1;
+      for (long v = value; v > 9; v /= 10) {
+         digits++;
+      }
+
+      int index = position + digits;
+      position = index;
+      do {
+         buf[--index] = (byte) ('0' + (value % 10));
+         value /= 10;
+      } while (value != 0);
+   }
+
+   private void writeString(final String s)
+   {
+      writeByte('"');
+
+      final int length = s.length();
+      int i = 0;
+      while (i < length) {
+         // Fast path: copy runs of characters that need neither escaping nor encoding
+         ensureCapacity(MAX_TOKEN + 1);
+         final byte[] buf = buffer;
+         int pos = position;
+         final int limit = Math.min(length, i + (buf.length - pos) - MAX_TOKEN);
+         for (; i < limit; i++) {
+            final char c = s.charAt(i);
+            if (c < 0x20 || c == '"' || c == '\\' || (c > 0x7f && !isAsciiValues)) {
+               break;
+            }
+            buf[pos++] = (byte) c;
+         }
+         position = pos;
+
+         if (i < limit) {
+            i = writeSpecialChar(s, i);
+         }
+      }
+
+      writeByte('"');
+   }
+
+   private int writeSpecialChar(final String s, int i)
+   {
+      final byte[] buf = buffer;
+      final char c = s.charAt(i);
+      switch (c) {
+      case '"':
+      case '\\':
+         buf[position++] = '\\';
+         buf[position++] = (byte) c;
+         return i + 1;
+      case '\n':
+         buf[position++] = '\\';
+         buf[position++] = 'n';
+         return i + 1;
+      case '\r':
+         buf[position++] = '\\';
+         buf[position++] = 'r';
+         return i + 1;
+      case '\t':
+         buf[position++] = '\\';
+         buf[position++] = 't';
+         return i + 1;
+      case '\b':
+         buf[position++] = '\\';
+         buf[position++] = 'b';
+         return i + 1;
+      case '\f':
+         buf[position++] = '\\';
+         buf[position++] = 'f';
+         return i + 1;
+      }
+
+      if (c < 0x20) {
+         buf[position++] = '\\';
+         buf[position++] = 'u';
+         buf[position++] = '0';
+         buf[position++] = '0';
+         buf[position++] = HEX[c >> 4];
+         buf[position++] = HEX[c & 0xf];
+         return i + 1;
+      }
+
+      nonAscii = true;
+      if (c < 0x800) {
+         buf[position++] = (byte) (0xc0 | (c >> 6));
+         buf[position++] = (byte) (0x80 | (c & 0x3f));
+      }
+      else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+         final int codePoint = Character.toCodePoint(c, s.charAt(++i));
+         buf[position++] = (byte) (0xf0 | (codePoint >> 18));
+         buf[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+         buf[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+         buf[position++] = (byte) (0x80 | (codePoint & 0x3f));
+      }
+      else if (Character.isSurrogate(c)) {
+         // Unpaired surrogate, not representable in UTF-8
+         buf[position++] = '?';
+      }
+      else {
+         buf[position++] = (byte) (0xe0 | (c >> 12));
+         buf[position++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+         buf[position++] = (byte) (0x80 | (c & 0x3f));
+      }
+
+      return i + 1;
+   }
+
+   private void writeAscii(final String s)
+   {
+      final int length = s.length();
+      ensureCapacity(length);
+      final byte[] buf = buffer;
+      int pos = position;
+      for (int i = 0; i < length; i++) {
+         buf[pos++] = (byte) s.charAt(i);
+      }
+      position = pos;
+   }
+
+   private void writeRaw(final byte[] bytes)
+   {
+      ensureCapacity(bytes.length);
+      System.arraycopy(bytes, 0, buffer, position, bytes.length);
+      position += bytes.length;
+   }
+
+   private void writeByte(final int b)
+   {
+      if (position == buffer.length) {
+         ensureCapacity(1);
+      }
+      buffer[position++] = (byte) b;
+   }
+
+   private void ensureCapacity(final int length)
+   {
+      if (buffer.length - position >= length) {
+         return;
+      }
+
+      if (out != null || writer != null) {
+         flush();
+      }
+
+      if (buffer.length - position < length) {
+         final byte[] newArray = new byte[Math.max(buffer.length * 2, position + length)];
+         System.arraycopy(buffer, 0, newArray, 0, position);
+         buffer = newArray;
+      }
+   }
+
+   private void flush()
+   {
+      try {
+         if (out != null) {
+            out.write(buffer, 0, position);
+         }
+         else if (writer != null) {
+            // Flushes only occur between whole characters, so each chunk decodes cleanly
+            writer.write(isAsciiValues || !nonAscii ? fastTrackAsciiDecode(buffer, 0, position) : new String(buffer, 0, position, StandardCharsets.UTF_8));
+         }
+         position = 0;
+      }
+      catch (IOException io) {
+         throw new RuntimeException(io);
+      }
+   }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json.serializer;
+
+import java.io.InputStream;
+import java.util.Arrays;
+
+import com.zaxxer.hikari.json.JsonNode;
+import com.zaxxer.hikari.json.PathQuery;
+import com.zaxxer.hikari.json.util.Utf8Utils;
+
+/**
+ * A {@link PathQuery} compiled into a trie of reference tokens.  Evaluation leases
+ * a {@link FieldBasedJsonParser}, which walks the trie as it scans the document.
+ *
+ * @author Brett Wooldridge
+ */
+final class FieldBasedPathQuery implements PathQuery
+{
+   private final FieldBasedJsonMapper mapper;
+   final Node root;
+   final int pointerCount;
+
+   FieldBasedPathQuery(final FieldBasedJsonMapper mapper, final String[] pointers)
+   {
+      this.mapper = mapper;
+      this.pointerCount = pointers.length;
+      this.root = new Node(null);
+
+      for (int slot = 0; slot < pointers.length; slot++) {
+         final String[] tokens = FieldBasedJsonMapper.parsePointer(pointers[slot]);
+         Node node = root;
+         for (int i = 0; i < tokens.length; i++) {
+            node.addTail(slot, tokens, i);
+            node = node.child(tokens[i]);
+         }
+         node.slots = append(node.slots, slot);
+      }
+   }
+
+   @Override
+   public JsonNode[] evaluate(final InputStream src)
+   {
+      final FieldBasedJsonParser parser = mapper.acquireParser();
+      try {
+         return parser.query(src, this);
+      }
+      finally {
+         mapper.releaseParser(parser);
+      }
+   }
+
+   @Override
+   public JsonNode[] evaluate(final byte[] src)
+   {
+      return evaluate(src, 0, src.length);
+   }
+
+   @Override
+   public JsonNode[] evaluate(final byte[] src, final int offset, final int length)
+   {
+      final FieldBasedJsonParser parser = mapper.acquireParser();
+      try {
+         return parser.query(src, offset, length, this);
+      }
+      finally {
+         mapper.releaseParser(parser);
+      }
+   }
+
+   private static int[] append(final int[] array, final int value)
+   {
+      final int[] copy = (array == null ? new int[1] : Arrays.copyOf(array, array.length + 1));
+      copy[copy.length - 1] = value;
+      return copy;
+   }
+
+   /**
+    * A reference token of one or more pointers.  A token matches a member whose
+    * name, as it appears in the document, equals it, or an array element whose
+    * index it spells.
+    */
+   static final class Node
+   {
+      final byte[] nameBytes;
+      final int arrayIndex;
+      Node[] children = new Node[0];
+      // The pointers that end at this node
+      int[] slots;
+      // The pointers that pass through this node, and the remainder of each beyond it,
+      // which are resolved against the value captured here if pointers also end here
+      int[] tailSlots = new int[0];
+      String[] tails = new String[0];
+
+      Node(final String token)
+      {
+         this.nameBytes = (token != null ? Utf8Utils.escapedBytes(token) : null);
+         this.arrayIndex = (token != null ? FieldBasedJsonMapper.parseArrayIndex(token) : -1);
+      }
+
+      Node child(final String token)
+      {
+         final byte[] bytes = Utf8Utils.escapedBytes(token);
+         for (Node child : children) {
+            if (Arrays.equals(child.nameBytes, bytes)) {
+               return child;
+            }
+         }
+
+         final Node child = new Node(token);
+         children = Arrays.copyOf(children, children.length + 1);
+         children[children.length - 1] = child;
+         return child;
+      }
+
+      /**
+       * @return the child matching the member name in the specified region, or null
+       */
+      Node member(final byte[] bytes, final int offset, final int length)
+      {
+         for (Node child : children) {
+            if (child.nameBytes.length == length && Utf8Utils.regionEquals(bytes, offset, child.nameBytes, 0, length)) {
+               return child;
+            }
+         }
+
+         return null;
+      }
+
+      /**
+       * @return the child matching the array index, or null
+       */
+      Node element(final int index)
+      {
+         for (Node child : children) {
+            if (child.arrayIndex == index) {
+               return child;
+            }
+         }
+
+         return null;
+      }
+
+      private void addTail(final int slot, final String[] tokens, final int index)
+      {
+         final StringBuilder tail = new StringBuilder();
+         for (int i = index; i < tokens.length; i++) {
+            tail.append('/').append(tokens[i].replace("~", "~0").replace("/", "~1"));
+         }
+
+         tailSlots = append(tailSlots, slot);
+         tails = Arrays.copyOf(tails, tails.length + 1);
+         tails[tails.length - 1] = tail.toString();
+      }
+   }
+}
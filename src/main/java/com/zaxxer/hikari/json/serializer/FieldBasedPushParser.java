@@ -0,0 +1,698 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json.serializer;
+
+import static com.zaxxer.hikari.json.util.Utf8Utils.fastTrackAsciiDecode;
+import static com.zaxxer.hikari.json.util.Utf8Utils.findSpecial;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+
+import com.zaxxer.hikari.json.PushParser;
+import com.zaxxer.hikari.json.util.ClassUtils;
+import com.zaxxer.hikari.json.util.Clazz;
+import com.zaxxer.hikari.json.util.MutableBoolean;
+import com.zaxxer.hikari.json.util.Phield;
+import com.zaxxer.hikari.json.util.Types;
+
+/**
+ * A resumable {@link PushParser}.  Unlike {@link FieldBasedJsonParser}, which
+ * recurses through the document and blocks in <code>InputStream.read()</code> when
+ * it needs more data, this parser keeps its position in an explicit stack of
+ * {@link Frame}s and a token state, so it can stop at the end of any chunk and
+ * resume when the next one arrives.  Values are bound to their members with the
+ * same {@link FieldBasedJsonParser#bindMember} used by the blocking parser.
+ * <p>
+ * That binder is leased from the mapper's parser cache when the opening brace
+ * arrives, and returned when the value completes or parsing fails, so that its
+ * string and date caches are shared with the blocking reads on the thread.  While
+ * the lease is held, blocking reads on the leasing thread simply create a parser of
+ * their own, as they do for re-entrant calls.  Because chunks may be fed from any
+ * thread, the binder is returned to the cache of whichever thread finishes the
+ * value, and a push parser that is abandoned part way through never returns it at
+ * all; in both cases the cache refills on demand.
+ *
+ * @author Brett Wooldridge
+ */
+final class FieldBasedPushParser<T> implements PushParser<T>
+{
+   // Frame states
+   private static final int VALUE_OR_END = 0; // after an opening curly brace or bracket
+   private static final int NAME = 1;         // after a comma in an object
+   private static final int COLON = 2;        // after a member name
+   private static final int VALUE = 3;        // after a colon, or a comma in an array
+   private static final int COMMA_OR_END = 4; // after a value
+
+   // Token states
+   private static final int NONE = 0;
+   private static final int IN_NAME = 1;
+   private static final int IN_STRING = 2;
+   private static final int IN_NUMBER = 3;
+   private static final int IN_LITERAL = 4;
+   private static final int IN_SKIP = 5;
+
+   private final FieldBasedJsonMapper mapper;
+   private final Class<T> valueType;
+   private final boolean isAsciiValues;
+   private final boolean isFailOnUnknown;
+   private final boolean isCacheStrings;
+
+   private FieldBasedJsonParser binder;
+   private Frame[] stack;
+   private int depth;
+   private T result;
+   private boolean complete;
+   private boolean failed;
+
+   private int token;
+   private int tokenStart;
+   private int hash;
+   private boolean escaped;
+   private final MutableBoolean decodeRequired = new MutableBoolean();
+   private int skipDepth;
+   private boolean skipInString;
+   private byte[] scratch;
+   private int scratchLength;
+   private byte[] chunkBuffer;
+
+   FieldBasedPushParser(final FieldBasedJsonMapper mapper, final Class<T> valueType)
+   {
+      this.mapper = mapper;
+      this.valueType = valueType;
+      this.isAsciiValues = mapper.isAsciiValues;
+      this.isFailOnUnknown = mapper.isFailOnUnknown;
+      this.isCacheStrings = mapper.isCacheStrings;
+      this.stack = new Frame[8];
+   }
+
+   @Override
+   public boolean feed(final ByteBuffer chunk)
+   {
+      if (chunk.hasArray()) {
+         feed(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+         chunk.position(chunk.limit());
+         return complete;
+      }
+
+      if (chunkBuffer == null) {
+         chunkBuffer = new byte[FieldBasedJsonParser.BUFFER_SIZE];
+      }
+
+      while (chunk.hasRemaining()) {
+         final int length = Math.min(chunk.remaining(), chunkBuffer.length);
+         chunk.get(chunkBuffer, 0, length);
+         feed(chunkBuffer, 0, length);
+      }
+
+      return complete;
+   }
+
+   @Override
+   public boolean feed(final byte[] chunk, final int offset, final int length)
+   {
+      if (offset < 0 || length < 0 || offset + length > chunk.length) {
+         throw new IndexOutOfBoundsException("offset " + offset + ", length " + length + ", array length " + chunk.length);
+      }
+      else if (failed) {
+         throw new RuntimeException("Parser failed on an earlier chunk");
+      }
+
+      try {
+         process(chunk, offset, offset + length);
+      }
+      catch (RuntimeException e) {
+         failed = true;
+         releaseBinder();
+         throw e;
+      }
+
+      return complete;
+   }
+
+   @Override
+   public boolean isComplete()
+   {
+      return complete;
+   }
+
+   @Override
+   public T endOfInput()
+   {
+      if (!complete) {
+         failed = true;
+         releaseBinder();
+         throw new RuntimeException("Insufficient data during parsing");
+      }
+
+      return result;
+   }
+
+   private void process(final byte[] buffer, int index, final int limit)
+   {
+      tokenStart = index;
+      while (index < limit) {
+         if (token != NONE) {
+            index = continueToken(buffer, index, limit);
+            continue;
+         }
+
+         final int b = buffer[index++];
+         if (b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+            continue;
+         }
+         else if (complete) {
+            throw new RuntimeException("Unexpected data after the end of the value");
+         }
+         else if (depth == 0) {
+            if (b != '{') {
+               throw unexpected(b);
+            }
+            binder = mapper.acquireParser();
+            final Clazz clazz = ClassUtils.reflect(valueType);
+            pushFrame(clazz, null, binder.newTarget(clazz), Types.OBJECT, false);
+            continue;
+         }
+
+         final Frame frame = stack[depth - 1];
+         switch (frame.state) {
+         case VALUE_OR_END:
+            if (b == (frame.isArray ? ']' : '}')) {
+               popFrame();
+               break;
+            }
+            else if (frame.isArray) {
+               index = startValue(frame, b, index);
+            }
+            else {
+               startName(frame, b, index);
+            }
+            break;
+         case NAME:
+            startName(frame, b, index);
+            break;
+         case COLON:
+            if (b != ':') {
+               throw unexpected(b);
+            }
+            frame.state = VALUE;
+            break;
+         case VALUE:
+            index = startValue(frame, b, index);
+            break;
+         case COMMA_OR_END:
+            if (b == ',') {
+               frame.state = (frame.isArray ? VALUE : NAME);
+            }
+            else if (b == (frame.isArray ? ']' : '}')) {
+               popFrame();
+            }
+            else {
+               throw unexpected(b);
+            }
+            break;
+         }
+      }
+
+      if (token != NONE && token != IN_SKIP) {
+         // Retain the part of the token in this chunk
+         appendScratch(buffer, tokenStart, limit);
+      }
+   }
+
+   private void startName(final Frame frame, final int b, final int index)
+   {
+      if (b != '"') {
+         throw unexpected(b);
+      }
+      startToken(IN_NAME, index);
+      hash = 0;
+      frame.state = COLON;
+   }
+
+   private int startValue(final Frame frame, final int b, final int index)
+   {
+      frame.state = COMMA_OR_END;
+      if (isSkipped(frame) && (b == '"' || b == '{' || b == '[')) {
+         // The value of an unknown member
+         startToken(IN_SKIP, index);
+         skipDepth = (b == '"' ? 0 : 1);
+         skipInString = (b == '"');
+      }
+      else if (b == '"') {
+         startToken(IN_STRING, index);
+      }
+      else if ((b >= '0' && b <= '9') || b == '-') {
+         startToken(IN_NUMBER, index - 1);
+      }
+      else if (b >= 'a' && b <= 'z') {
+         startToken(IN_LITERAL, index - 1);
+      }
+      else if (b == '{') {
+         if (frame.container != null) {
+            final Clazz elementClazz = frame.container.getElementClazz();
+            if (frame.container.elementType != Types.OBJECT || elementClazz == null) {
+               throw new RuntimeException("Unsupported object value for element of member \"" + frame.container.name + "\"");
+            }
+            pushFrame(elementClazz, null, binder.newTarget(elementClazz), Types.OBJECT, false);
+         }
+         else if (objectMember(frame).isMap) {
+            if (frame.phield.keyClass != null && frame.phield.keyClass != String.class) {
+               throw new RuntimeException("Unsupported key type " + frame.phield.keyClass.getName() + " for member \"" + frame.phield.name + "\"");
+            }
+            @SuppressWarnings("unchecked")
+            final Map<String, Object> map = (Map<String, Object>) binder.newMemberTarget(frame.phield);
+            pushFrame(null, null, null, frame.phield.elementType, false).bindContainer(frame.phield, null, map);
+         }
+         else if (frame.phield.isCollection || frame.phield.isArray) {
+            throw new RuntimeException("Unexpected object value for member \"" + frame.phield.name + "\"");
+         }
+         else {
+            pushFrame(frame.phield.clazz, frame.phield, binder.newMemberTarget(frame.phield), Types.OBJECT, false);
+         }
+      }
+      else if (b == '[') {
+         final Phield phield = (frame.container != null ? null : objectMember(frame));
+         if (phield == null || !(phield.isCollection || phield.isArray)) {
+            throw new RuntimeException("Unsupported array value" + (phield != null ? " for member \"" + phield.name + "\"" : " in an array"));
+         }
+         final ArrayBuilder builder = (phield.isArray ? new ArrayBuilder(phield) : new ArrayBuilder(phield, binder.newMemberTarget(phield)));
+         pushFrame(null, null, null, phield.elementType, true).bindContainer(phield, builder, null);
+      }
+      else {
+         throw unexpected(b);
+      }
+
+      return index;
+   }
+
+   private int continueToken(final byte[] buffer, int index, final int limit)
+   {
+      switch (token) {
+      case IN_NAME:
+         int h = hash;
+         for (; index < limit; index++) {
+            final int b = buffer[index];
+            if (b == '"' && !escaped) {
+               token = NONE;
+               resolveMember(stack[depth - 1], h, buffer, index);
+               return index + 1;
+            }
+            escaped = (b == '\\' && !escaped);
+            h = 31 * h + b;
+         }
+         hash = h;
+         return limit;
+      case IN_STRING:
+         while (index < limit) {
+            if (escaped) {
+               escaped = false;
+               index++;
+               continue;
+            }
+
+            index = findSpecial(buffer, index, limit, (isAsciiValues ? null : decodeRequired));
+            if (index == limit) {
+               break;
+            }
+
+            final int b = buffer[index];
+            if (b == '"') {
+               token = NONE;
+               endString(buffer, index);
+               return index + 1;
+            }
+            else if (b != '\\') {
+               throw new RuntimeException("Unescaped control character in string");
+            }
+            escaped = true;
+            decodeRequired.bool = true;
+            index++;
+         }
+         return limit;
+      case IN_NUMBER:
+         for (; index < limit; index++) {
+            final int b = buffer[index];
+            if (!((b >= '0' && b <= '9') || b == '-' || b == '+' || b == '.' || b == 'e' || b == 'E')) {
+               token = NONE;
+               endNumber(buffer, index);
+               return index;
+            }
+         }
+         return limit;
+      case IN_SKIP:
+         for (; index < limit; index++) {
+            final int b = buffer[index];
+            if (skipInString) {
+               if (b == '"' && !escaped) {
+                  skipInString = false;
+                  if (skipDepth == 0) {
+                     token = NONE;
+                     return index + 1;
+                  }
+               }
+               escaped = (b == '\\' && !escaped);
+            }
+            else if (b == '"') {
+               skipInString = true;
+            }
+            else if (b == '{' || b == '[') {
+               skipDepth++;
+            }
+            else if ((b == '}' || b == ']') && --skipDepth == 0) {
+               token = NONE;
+               return index + 1;
+            }
+         }
+         return limit;
+      default:
+         for (; index < limit; index++) {
+            final int b = buffer[index];
+            if (b < 'a' || b > 'z') {
+               token = NONE;
+               endLiteral(buffer, index);
+               return index;
+            }
+         }
+         return limit;
+      }
+   }
+
+   private void startToken(final int type, final int index)
+   {
+      token = type;
+      tokenStart = index;
+      escaped = false;
+      decodeRequired.bool = false;
+      scratchLength = 0;
+   }
+
+   private void resolveMember(final Frame frame, final int memberHash, final byte[] buffer, final int endIndex)
+   {
+      final Clazz clazz = frame.context.clazz;
+      if (scratchLength > 0) {
+         appendScratch(buffer, tokenStart, endIndex);
+      }
+      final byte[] bytes = (scratchLength == 0 ? buffer : scratch);
+      final int offset = (scratchLength == 0 ? tokenStart : 0);
+      final int length = (scratchLength == 0 ? endIndex - tokenStart : scratchLength);
+
+      if (frame.map != null) {
+         // Names are not scanned for escapes, so map keys are always decoded
+         frame.key = binder.newString(bytes, offset, length, true, isCacheStrings);
+         return;
+      }
+
+      frame.index = clazz.lookup(memberHash, bytes, offset, length);
+      if (frame.index < 0 && isFailOnUnknown) {
+         throw FieldBasedJsonParser.unknownMember(clazz, bytes, offset, length);
+      }
+
+      // A null field marks an unknown or excluded member, whose value is skipped
+      final Phield phield = (frame.index >= 0 ? clazz.getPhields()[frame.index] : null);
+      frame.phield = (phield != null && !phield.excluded ? phield : null);
+   }
+
+   private void endString(final byte[] buffer, final int endIndex)
+   {
+      final Frame frame = stack[depth - 1];
+      final Phield phield = scalarMember(frame);
+
+      if (scratchLength > 0) {
+         appendScratch(buffer, tokenStart, endIndex);
+      }
+
+      final byte[] bytes = (scratchLength > 0 ? scratch : buffer);
+      final int offset = (scratchLength > 0 ? 0 : tokenStart);
+      final int length = (scratchLength > 0 ? scratchLength : endIndex - tokenStart);
+
+      final ParseContext context = frame.context;
+      final int type = (frame.container != null ? phield.elementType : phield.type);
+      context.holderType = type;
+      if (type == Types.ENUM) {
+         context.objectHolder = phield.enumConstants.valueOf(bytes, offset, length);
+      }
+      else if (Types.isDate(type)) {
+         context.objectHolder = binder.parseDate(bytes, offset, length, type);
+      }
+      else {
+         context.stringHolder = binder.newString(bytes, offset, length, decodeRequired.bool, (isCacheStrings || phield.isCachedValue));
+      }
+      bindScalar(frame, phield);
+   }
+
+   private void endNumber(final byte[] buffer, final int endIndex)
+   {
+      final byte[] bytes;
+      final int offset;
+      final int length;
+      if (scratchLength == 0) {
+         bytes = buffer;
+         offset = tokenStart;
+         length = endIndex - tokenStart;
+      }
+      else {
+         appendScratch(buffer, tokenStart, endIndex);
+         bytes = scratch;
+         offset = 0;
+         length = scratchLength;
+      }
+
+      final Frame frame = stack[depth - 1];
+      if (isSkipped(frame)) {
+         return;
+      }
+
+      final Phield phield = scalarMember(frame);
+      final ParseContext context = frame.context;
+      context.holderType = (frame.container != null ? phield.elementType : phield.type);
+      FieldBasedJsonParser.setNumber(bytes, offset, length, context);
+
+      bindScalar(frame, phield);
+   }
+
+   private void endLiteral(final byte[] buffer, final int endIndex)
+   {
+      if (scratchLength > 0) {
+         appendScratch(buffer, tokenStart, endIndex);
+      }
+
+      final byte[] bytes = (scratchLength > 0 ? scratch : buffer);
+      final int offset = (scratchLength > 0 ? 0 : tokenStart);
+      final int length = (scratchLength > 0 ? scratchLength : endIndex - tokenStart);
+      final String literal = fastTrackAsciiDecode(bytes, offset, length);
+
+      final Frame frame = stack[depth - 1];
+      if (isSkipped(frame)) {
+         return;
+      }
+      else if ("null".equals(literal)) {
+         if (frame.container != null) {
+            addElement(frame, null);
+         }
+         else if (FieldBasedJsonParser.bindsNull(frame.phield)) {
+            frame.context.holderType = frame.phield.type;
+            frame.context.objectHolder = null;
+            frame.context.stringHolder = null;
+            binder.bindMember(frame.accessor, frame.index, frame.phield, frame.context);
+         }
+         return;
+      }
+
+      final boolean value;
+      if ("true".equals(literal)) {
+         value = true;
+      }
+      else if ("false".equals(literal)) {
+         value = false;
+      }
+      else {
+         throw new RuntimeException("Unexpected literal \"" + literal + "\"");
+      }
+
+      final Phield phield = scalarMember(frame);
+      frame.context.holderType = (frame.container != null ? phield.elementType : phield.type);
+      frame.context.booleanHolder = value;
+      bindScalar(frame, phield);
+   }
+
+   private Phield objectMember(final Frame frame)
+   {
+      if (frame.phield.type != Types.OBJECT) {
+         throw new RuntimeException("Unexpected object or array value for member \"" + frame.phield.name + "\"");
+      }
+
+      return frame.phield;
+   }
+
+   private Phield scalarMember(final Frame frame)
+   {
+      if (frame.container != null) {
+         if (frame.container.elementType == Types.OBJECT) {
+            throw new RuntimeException("Unsupported scalar value for element of member \"" + frame.container.name + "\"");
+         }
+         return frame.container;
+      }
+      else if (frame.phield.type == Types.OBJECT) {
+         throw new RuntimeException("Unexpected scalar value for member \"" + frame.phield.name + "\"");
+      }
+
+      return frame.phield;
+   }
+
+   /**
+    * Bind the scalar value held in the frame's context to the current member, or
+    * add it to the array or map of the frame.
+    */
+   private void bindScalar(final Frame frame, final Phield phield)
+   {
+      if (frame.builder != null) {
+         frame.builder.add(frame.context);
+      }
+      else if (frame.map != null) {
+         frame.map.put(frame.key, ArrayBuilder.valueOf(frame.context));
+      }
+      else {
+         binder.bindMember(frame.accessor, frame.index, phield, frame.context);
+      }
+   }
+
+   private void addElement(final Frame frame, final Object element)
+   {
+      if (frame.builder != null) {
+         frame.builder.addObject(element);
+      }
+      else {
+         frame.map.put(frame.key, element);
+      }
+   }
+
+   /**
+    * Whether the value in the frame belongs to an unknown or excluded member.
+    */
+   private static boolean isSkipped(final Frame frame)
+   {
+      return frame.phield == null && frame.container == null;
+   }
+
+   private Frame pushFrame(final Clazz clazz, final Phield phield, final Object target, final int holderType, final boolean isArray)
+   {
+      if (depth == stack.length) {
+         stack = Arrays.copyOf(stack, depth * 2);
+      }
+
+      Frame frame = stack[depth];
+      if (frame == null) {
+         frame = stack[depth] = new Frame();
+      }
+
+      frame.context.reset(clazz, phield, target, holderType);
+      frame.isArray = isArray;
+      frame.state = VALUE_OR_END;
+      frame.accessor = (clazz != null ? binder.accessorFor(clazz) : null);
+      frame.phield = null;
+      frame.container = null;
+      frame.builder = null;
+      frame.map = null;
+      frame.key = null;
+      depth++;
+      return frame;
+   }
+
+   @SuppressWarnings("unchecked")
+   private void popFrame()
+   {
+      final Frame frame = stack[--depth];
+      final Object target = (frame.builder != null ? frame.builder.build() : frame.map != null ? frame.map : binder.complete(frame.context));
+      frame.context.reset(null, null, null, Types.OBJECT);
+      frame.builder = null;
+      frame.map = null;
+
+      if (depth == 0) {
+         result = (T) target;
+         complete = true;
+         releaseBinder();
+         return;
+      }
+
+      final Frame parent = stack[depth - 1];
+      if (parent.container != null) {
+         addElement(parent, target);
+      }
+      else {
+         parent.context.holderType = Types.OBJECT;
+         parent.context.objectHolder = target;
+         binder.bindMember(parent.accessor, parent.index, parent.phield, parent.context);
+      }
+   }
+
+   private void appendScratch(final byte[] buffer, final int from, final int to)
+   {
+      final int length = to - from;
+      if (scratch == null) {
+         scratch = new byte[Math.max(64, length)];
+      }
+      else if (scratchLength + length > scratch.length) {
+         scratch = Arrays.copyOf(scratch, Math.max(scratch.length * 2, scratchLength + length));
+      }
+
+      System.arraycopy(buffer, from, scratch, scratchLength, length);
+      scratchLength += length;
+   }
+
+   /**
+    * Return the leased binder, exactly once, to the current thread's parser cache.
+    */
+   private void releaseBinder()
+   {
+      if (binder != null) {
+         mapper.releaseParser(binder);
+         binder = null;
+      }
+   }
+
+   private static RuntimeException unexpected(final int b)
+   {
+      return new RuntimeException("Unexpected character '" + (char) (b & 0xff) + "' during parsing");
+   }
+
+   /**
+    * The state of one open object or array.
+    */
+   private static final class Frame
+   {
+      // Reused, like the frame itself, each time this depth is reached
+      final ParseContext context = new ParseContext();
+      boolean isArray;
+      int state;
+      GeneratedAccessor accessor;
+      Phield phield;
+      int index;
+
+      // The array, collection or map member whose elements this frame holds
+      Phield container;
+      ArrayBuilder builder;
+      Map<String, Object> map;
+      String key;
+
+      void bindContainer(final Phield container, final ArrayBuilder builder, final Map<String, Object> map)
+      {
+         this.container = container;
+         this.builder = builder;
+         this.map = map;
+      }
+   }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json.serializer;
+
+import java.util.NoSuchElementException;
+
+import com.zaxxer.hikari.json.ValueIterator;
+
+/**
+ * A {@link ValueIterator} that leases a {@link FieldBasedJsonParser} for its
+ * lifetime, returning it to the mapper when the array is exhausted, parsing fails,
+ * or the iterator is closed.
+ *
+ * @author Brett Wooldridge
+ */
+final class FieldBasedValueIterator<T> implements ValueIterator<T>
+{
+   private final FieldBasedJsonMapper mapper;
+   private final Class<T> elementType;
+   private FieldBasedJsonParser parser;
+
+   FieldBasedValueIterator(final FieldBasedJsonMapper mapper, final FieldBasedJsonParser parser, final Class<T> elementType)
+   {
+      this.mapper = mapper;
+      this.parser = parser;
+      this.elementType = elementType;
+   }
+
+   @Override
+   public boolean hasNext()
+   {
+      if (parser == null) {
+         return false;
+      }
+
+      try {
+         if (parser.hasNextElement()) {
+            return true;
+         }
+      }
+      catch (RuntimeException e) {
+         close();
+         throw e;
+      }
+
+      close();
+      return false;
+   }
+
+   @Override
+   public T next()
+   {
+      if (!hasNext()) {
+         throw new NoSuchElementException();
+      }
+
+      try {
+         return parser.nextElement(elementType);
+      }
+      catch (RuntimeException e) {
+         close();
+         throw e;
+      }
+   }
+
+   @Override
+   public void close()
+   {
+      if (parser != null) {
+         mapper.releaseParser(parser);
+         parser = null;
+      }
+   }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json.serializer;
+
+/**
+ * Base class of the per-class accessors generated by {@link AccessorGenerator}.
+ * Subclasses are generated into the class loader of the target class, so this
+ * class must remain public.
+ *
+ * @author Brett Wooldridge
+ */
+public abstract class GeneratedAccessor
+{
+   /**
+    * Store the value held in the context into the field at the specified index
+    * of <code>context.target</code>.
+    *
+    * @param index the field index returned by {@link com.zaxxer.hikari.json.util.Clazz#lookup}
+    * @param context the context holding the parsed value
+    */
+   public abstract void setMember(int index, ParseContext context);
+
+   /**
+    * Construct a new instance of the target class.
+    *
+    * @return a new instance
+    */
+   public abstract Object newInstance();
+}
@@ -0,0 +1,368 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json.serializer;
+
+import static com.zaxxer.hikari.json.util.Utf8Utils.findEndQuoteUTF8;
+import static com.zaxxer.hikari.json.util.Utf8Utils.skipWhitespace;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import com.zaxxer.hikari.json.util.MutableBoolean;
+import com.zaxxer.hikari.json.util.Utf8Utils;
+
+/**
+ * A structural index over a JSON document held in a byte array.  The document is
+ * scanned once, validating its structure, into a tape of <code>long</code>
+ * entries, each holding a token type in its top byte and a payload below it:
+ * <ul>
+ * <li>object and array starts take two entries, the first holding the member or
+ *     element count and the tape index of the matching end, the second the byte
+ *     offset of the opening curly brace or bracket</li>
+ * <li>object and array ends hold the byte offset of the closing curly brace or
+ *     bracket</li>
+ * <li>strings, including member names, and numbers take two entries, the first
+ *     holding the byte offset of the content, the second the length of the content
+ *     in bytes (shifted left by one) and whether it must be decoded</li>
+ * <li><code>true</code>, <code>false</code> and <code>null</code> take one entry</li>
+ * </ul>
+ * Values are not decoded until they are read through a {@link TapeNode}.
+ *
+ * @author Brett Wooldridge
+ */
+final class JsonTape
+{
+   static final int OBJECT = '{';
+   static final int OBJECT_END = '}';
+   static final int ARRAY = '[';
+   static final int ARRAY_END = ']';
+   static final int STRING = '"';
+   static final int NUMBER = '0';
+   static final int TRUE = 't';
+   static final int FALSE = 'f';
+   static final int NULL = 'n';
+
+   private static final int MAX_COUNT = 0xFF_FFFF;
+
+   // Scanner states
+   private static final int VALUE = 0;          // at the start, after a colon, or after a comma in an array
+   private static final int VALUE_OR_END = 1;   // after an opening bracket
+   private static final int NAME = 2;           // after a comma in an object
+   private static final int NAME_OR_END = 3;    // after an opening curly brace
+   private static final int COLON = 4;          // after a member name
+   private static final int COMMA_OR_END = 5;   // after a value in an object or array
+   private static final int DONE = 6;           // after the top-level value
+
+   private static final byte[] TRUE_BYTES = { 't', 'r', 'u', 'e' };
+   private static final byte[] FALSE_BYTES = { 'f', 'a', 'l', 's', 'e' };
+   private static final byte[] NULL_BYTES = { 'n', 'u', 'l', 'l' };
+
+   final byte[] bytes;
+   private long[] tape;
+   private int length;
+
+   private JsonTape(final byte[] bytes, final int capacity)
+   {
+      this.bytes = bytes;
+      this.tape = new long[capacity];
+   }
+
+   /**
+    * Index the JSON document held in the specified region of an array.  The array
+    * is referenced, not copied, and must not be modified while the tape is in use.
+    *
+    * @param bytes the array holding UTF-8 encoded JSON
+    * @param offset the index of the first byte of the document
+    * @param length the length of the document in bytes
+    * @return the tape, whose root value is at index 0
+    */
+   static JsonTape index(final byte[] bytes, final int offset, final int length)
+   {
+      final JsonTape tape = new JsonTape(bytes, 16 + length / 4);
+      tape.scan(offset, offset + length);
+      return tape;
+   }
+
+   /**
+    * Read an InputStream to its end.
+    *
+    * @param src the stream
+    * @return an array holding exactly the bytes read
+    */
+   static byte[] readFully(final InputStream src)
+   {
+      try {
+         byte[] buffer = new byte[8192];
+         int length = 0;
+         for (int read; (read = src.read(buffer, length, buffer.length - length)) != -1; ) {
+            length += read;
+            if (length == buffer.length) {
+               buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+         }
+
+         return Arrays.copyOf(buffer, length);
+      }
+      catch (IOException io) {
+         throw new RuntimeException(io);
+      }
+   }
+
+   int type(final int index)
+   {
+      return (int) (tape[index] >>> 56);
+   }
+
+   /**
+    * @param index the tape index of a value
+    * @return the tape index of the following value or end
+    */
+   int next(final int index)
+   {
+      switch (type(index)) {
+      case OBJECT:
+      case ARRAY:
+         return (int) tape[index] + 1;
+      case STRING:
+      case NUMBER:
+         return index + 2;
+      default:
+         return index + 1;
+      }
+   }
+
+   /**
+    * @param index the tape index of an object or array
+    * @return the number of members or elements
+    */
+   int count(final int index)
+   {
+      final int count = (int) (tape[index] >>> 32) & MAX_COUNT;
+      if (count < MAX_COUNT) {
+         return count;
+      }
+
+      // Saturated, so count the hard way
+      final boolean isObject = (type(index) == OBJECT);
+      int n = 0;
+      for (int i = index + 2; type(i) != OBJECT_END && type(i) != ARRAY_END; i = next(isObject ? i + 2 : i)) {
+         n++;
+      }
+      return n;
+   }
+
+   /**
+    * @param index the tape index of a string or number
+    * @return the byte offset of the content
+    */
+   int offset(final int index)
+   {
+      return (int) tape[index];
+   }
+
+   /**
+    * @param index the tape index of a string or number
+    * @return the length of the content in bytes
+    */
+   int length(final int index)
+   {
+      return (int) (tape[index + 1] >>> 1);
+   }
+
+   /**
+    * @param index the tape index of a string
+    * @return true if the content contains escapes or non-ASCII bytes
+    */
+   boolean isDecodeRequired(final int index)
+   {
+      return (tape[index + 1] & 1) != 0;
+   }
+
+   /**
+    * @param index the tape index of an object or array
+    * @return the byte offset of its opening curly brace or bracket
+    */
+   int startOffset(final int index)
+   {
+      return (int) tape[index + 1];
+   }
+
+   /**
+    * @param index the tape index of an object or array
+    * @return the byte offset of its closing curly brace or bracket
+    */
+   int endOffset(final int index)
+   {
+      return (int) tape[(int) tape[index]];
+   }
+
+   private void scan(int index, final int limit)
+   {
+      final MutableBoolean decodeRequired = new MutableBoolean();
+      int[] stack = new int[32];
+      int[] counts = new int[32];
+      int depth = 0;
+      int state = VALUE;
+
+      while (true) {
+         index = skipWhitespace(bytes, index, limit);
+         if (index >= limit) {
+            if (state != DONE) {
+               throw new RuntimeException("Unexpected end of input");
+            }
+            return;
+         }
+
+         final int b = bytes[index];
+         switch (state) {
+         case NAME_OR_END:
+            if (b == '}') {
+               break;
+            }
+            // Not empty, so rescan the same byte as a member name
+            state = NAME;
+            continue;
+         case NAME:
+            if (b != '"') {
+               throw unexpected(b);
+            }
+            index = appendString(index, limit, decodeRequired);
+            state = COLON;
+            continue;
+         case COLON:
+            if (b != ':') {
+               throw unexpected(b);
+            }
+            index++;
+            state = VALUE;
+            continue;
+         case COMMA_OR_END:
+            if (b == ',') {
+               index++;
+               state = (type(stack[depth - 1]) == OBJECT ? NAME : VALUE);
+               continue;
+            }
+            break;
+         case VALUE_OR_END:
+            if (b == ']') {
+               break;
+            }
+            // Not empty, so rescan the same byte as an element
+            state = VALUE;
+            continue;
+         case VALUE:
+            if (b == '{' || b == '[') {
+               if (depth == stack.length) {
+                  stack = Arrays.copyOf(stack, depth * 2);
+                  counts = Arrays.copyOf(counts, depth * 2);
+               }
+               ensureCapacity(2);
+               stack[depth] = length;
+               counts[depth++] = 0;
+               tape[length++] = (long) b << 56;
+               tape[length++] = index++;
+               state = (b == '{' ? NAME_OR_END : VALUE_OR_END);
+               continue;
+            }
+
+            index = appendScalar(b, index, limit, decodeRequired);
+            state = (depth == 0 ? DONE : COMMA_OR_END);
+            if (depth > 0) {
+               counts[depth - 1]++;
+            }
+            continue;
+         default:
+            throw new RuntimeException("Unexpected data after the end of the value");
+         }
+
+         // A closing curly brace or bracket, valid in the current state if it matches the open value
+         final int start = stack[depth - 1];
+         if (b != (type(start) == OBJECT ? '}' : ']')) {
+            throw unexpected(b);
+         }
+
+         ensureCapacity(1);
+         tape[start] |= ((long) Math.min(counts[depth - 1], MAX_COUNT) << 32) | length;
+         tape[length++] = ((long) b << 56) | index++;
+         if (--depth == 0) {
+            state = DONE;
+         }
+         else {
+            counts[depth - 1]++;
+            state = COMMA_OR_END;
+         }
+      }
+   }
+
+   private int appendScalar(final int b, final int index, final int limit, final MutableBoolean decodeRequired)
+   {
+      if (b == '"') {
+         return appendString(index, limit, decodeRequired);
+      }
+      else if ((b >= '0' && b <= '9') || b == '-') {
+         int end = index + 1;
+         while (end < limit && isNumberByte(bytes[end])) {
+            end++;
+         }
+
+         ensureCapacity(2);
+         tape[length++] = ((long) NUMBER << 56) | index;
+         tape[length++] = (long) (end - index) << 1;
+         return end;
+      }
+
+      final byte[] literal = (b == 't' ? TRUE_BYTES : b == 'f' ? FALSE_BYTES : b == 'n' ? NULL_BYTES : null);
+      if (literal == null || index + literal.length > limit || !Utf8Utils.regionEquals(bytes, index, literal, 0, literal.length)) {
+         throw unexpected(b);
+      }
+
+      ensureCapacity(1);
+      tape[length++] = (long) b << 56;
+      return index + literal.length;
+   }
+
+   private int appendString(final int index, final int limit, final MutableBoolean decodeRequired)
+   {
+      decodeRequired.bool = false;
+      final int endQuote = findEndQuoteUTF8(bytes, index + 1, limit, decodeRequired);
+      if (endQuote < 0) {
+         throw new RuntimeException("Unexpected end of input in string");
+      }
+
+      ensureCapacity(2);
+      tape[length++] = ((long) STRING << 56) | (index + 1);
+      tape[length++] = ((long) (endQuote - index - 1) << 1) | (decodeRequired.bool ? 1 : 0);
+      return endQuote + 1;
+   }
+
+   private void ensureCapacity(final int entries)
+   {
+      if (length + entries > tape.length) {
+         tape = Arrays.copyOf(tape, tape.length * 2);
+      }
+   }
+
+   private static boolean isNumberByte(final int b)
+   {
+      return (b >= '0' && b <= '9') || b == '-' || b == '+' || b == '.' || b == 'e' || b == 'E';
+   }
+
+   private static RuntimeException unexpected(final int b)
+   {
+      return new RuntimeException("Unexpected character '" + (char) (b & 0xff) + "' during parsing");
+   }
+}
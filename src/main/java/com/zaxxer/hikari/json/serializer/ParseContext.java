@@ -6,10 +6,10 @@ import com.zaxxer.hikari.json.util.Phield;
 
 public final class ParseContext
 {
-   public final Clazz clazz;
-   public final Phield phield;
+   public Clazz clazz;
+   public Phield phield;
 
-   public final Object target;
+   public Object target;
 
    public int holderType;
    public String stringHolder;
@@ -19,57 +19,56 @@ public final class ParseContext
    public double doubleHolder;
    public int lookupKey;
 
+   /**
+    * Create an empty context, to be bound by {@link #reset} each time it is reused.
+    */
+   ParseContext() {
+   }
+
    public ParseContext(final Class<?> targetType) {
       this.clazz = ClassUtils.reflect(targetType);
       this.phield = null;
-      try {
-         target = clazz.newInstance();
-      }
-      catch (InstantiationException | IllegalAccessException e) {
-         throw new RuntimeException(e);
-      }
+      this.target = clazz.newInstance();
    }
 
    public ParseContext(final Clazz clazz) {
       this.clazz = clazz;
       this.phield = null;
-      try {
-         target = clazz.newInstance();
-      }
-      catch (InstantiationException | IllegalAccessException e) {
-         throw new RuntimeException(e);
-      }
+      this.target = clazz.newInstance();
    }
 
    public ParseContext(final Phield phield) {
       this.phield = phield;
       this.clazz = phield.clazz;
-      try {
-         if (clazz != null) {
-            target = clazz.newInstance();
-         }
-         else {
-            target = phield.newInstance();
-         }
-      }
-      catch (InstantiationException | IllegalAccessException e) {
-         throw new RuntimeException(e);
-      }
+      this.target = (clazz != null ? clazz.newInstance() : phield.newInstance());
    }
 
    public ParseContext(final Phield phield, Object override) {
       this.phield = phield;
       this.clazz = phield.clazz;
-      try {
-         if (clazz != null) {
-            target = clazz.newInstance();
-         }
-         else {
-            target = phield.newInstance(override);
-         }
-      }
-      catch (InstantiationException | IllegalAccessException e) {
-         throw new RuntimeException(e);
-      }
+      this.target = (clazz != null ? clazz.newInstance() : phield.newInstance(override));
+   }
+
+   /**
+    * Rebind a reused context, clearing any values held from its previous use.
+    *
+    * @param clazz the class of the target, or null
+    * @param phield the member holding the target, or null
+    * @param target the target, or null for a context that only holds scalar values
+    * @param holderType the type of the values held
+    * @return this context
+    */
+   ParseContext reset(final Clazz clazz, final Phield phield, final Object target, final int holderType) {
+      this.clazz = clazz;
+      this.phield = phield;
+      this.target = target;
+      this.holderType = holderType;
+      this.stringHolder = null;
+      this.objectHolder = null;
+      this.booleanHolder = false;
+      this.longHolder = 0;
+      this.doubleHolder = 0;
+      this.lookupKey = 0;
+      return this;
    }
 }
@@ -0,0 +1,286 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json.serializer;
+
+import static com.zaxxer.hikari.json.util.NumberUtils.checkRange;
+import static com.zaxxer.hikari.json.util.NumberUtils.parseBigDecimal;
+import static com.zaxxer.hikari.json.util.NumberUtils.parseDouble;
+import static com.zaxxer.hikari.json.util.NumberUtils.parseLong;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.zaxxer.hikari.json.JsonNode;
+import com.zaxxer.hikari.json.util.Types;
+import com.zaxxer.hikari.json.util.Utf8Utils;
+
+/**
+ * A {@link JsonNode} that is a view of one value of a {@link JsonTape}.  A node
+ * is two fields; members and elements are found by walking the tape, skipping
+ * nested objects and arrays in a single step.
+ *
+ * @author Brett Wooldridge
+ */
+final class TapeNode implements JsonNode
+{
+   private final JsonTape tape;
+   private final int index;
+
+   TapeNode(final JsonTape tape, final int index)
+   {
+      this.tape = tape;
+      this.index = index;
+   }
+
+   @Override
+   public boolean isObject()
+   {
+      return tape.type(index) == JsonTape.OBJECT;
+   }
+
+   @Override
+   public boolean isArray()
+   {
+      return tape.type(index) == JsonTape.ARRAY;
+   }
+
+   @Override
+   public boolean isString()
+   {
+      return tape.type(index) == JsonTape.STRING;
+   }
+
+   @Override
+   public boolean isNumber()
+   {
+      return tape.type(index) == JsonTape.NUMBER;
+   }
+
+   @Override
+   public boolean isBoolean()
+   {
+      final int type = tape.type(index);
+      return type == JsonTape.TRUE || type == JsonTape.FALSE;
+   }
+
+   @Override
+   public boolean isNull()
+   {
+      return tape.type(index) == JsonTape.NULL;
+   }
+
+   @Override
+   public int size()
+   {
+      return (isObject() || isArray() ? tape.count(index) : 0);
+   }
+
+   @Override
+   public JsonNode get(final String name)
+   {
+      if (!isObject()) {
+         return null;
+      }
+
+      // Member names are compared as they appear in the document, as with bound members
+      final byte[] nameBytes = Utf8Utils.escapedBytes(name);
+      for (int i = index + 2; tape.type(i) != JsonTape.OBJECT_END; i = tape.next(i + 2)) {
+         if (tape.length(i) == nameBytes.length && Utf8Utils.regionEquals(tape.bytes, tape.offset(i), nameBytes, 0, nameBytes.length)) {
+            return new TapeNode(tape, i + 2);
+         }
+      }
+
+      return null;
+   }
+
+   @Override
+   public JsonNode get(final int elementIndex)
+   {
+      if (!isArray() || elementIndex < 0) {
+         return null;
+      }
+
+      int n = 0;
+      for (int i = index + 2; tape.type(i) != JsonTape.ARRAY_END; i = tape.next(i)) {
+         if (n++ == elementIndex) {
+            return new TapeNode(tape, i);
+         }
+      }
+
+      return null;
+   }
+
+   @Override
+   public JsonNode at(final String pointer)
+   {
+      JsonNode node = this;
+      for (String token : FieldBasedJsonMapper.parsePointer(pointer)) {
+         if (node.isArray()) {
+            node = node.get(FieldBasedJsonMapper.parseArrayIndex(token));
+         }
+         else {
+            node = node.get(token);
+         }
+
+         if (node == null) {
+            return null;
+         }
+      }
+
+      return node;
+   }
+
+   @Override
+   public Iterator<String> fieldNames()
+   {
+      final boolean isObject = isObject();
+      return new Iterator<String>() {
+         private int i = index + 2;
+
+         @Override
+         public boolean hasNext()
+         {
+            return isObject && tape.type(i) != JsonTape.OBJECT_END;
+         }
+
+         @Override
+         public String next()
+         {
+            if (!hasNext()) {
+               throw new NoSuchElementException();
+            }
+
+            final String name = decode(i);
+            i = tape.next(i + 2);
+            return name;
+         }
+      };
+   }
+
+   @Override
+   public Iterator<JsonNode> iterator()
+   {
+      final int end = (isObject() ? JsonTape.OBJECT_END : isArray() ? JsonTape.ARRAY_END : -1);
+      final int step = (isObject() ? 2 : 0);
+      return new Iterator<JsonNode>() {
+         private int i = index + 2;
+
+         @Override
+         public boolean hasNext()
+         {
+            return end != -1 && tape.type(i) != end;
+         }
+
+         @Override
+         public JsonNode next()
+         {
+            if (!hasNext()) {
+               throw new NoSuchElementException();
+            }
+
+            final TapeNode node = new TapeNode(tape, i + step);
+            i = tape.next(i + step);
+            return node;
+         }
+      };
+   }
+
+   @Override
+   public String stringValue()
+   {
+      checkType(JsonTape.STRING, "a string");
+      return decode(index);
+   }
+
+   @Override
+   public long longValue()
+   {
+      checkType(JsonTape.NUMBER, "a number");
+      return parseLong(tape.bytes, tape.offset(index), tape.length(index));
+   }
+
+   @Override
+   public int intValue()
+   {
+      return (int) checkRange(longValue(), Types.INT);
+   }
+
+   @Override
+   public double doubleValue()
+   {
+      checkType(JsonTape.NUMBER, "a number");
+      return parseDouble(tape.bytes, tape.offset(index), tape.length(index));
+   }
+
+   @Override
+   public BigDecimal decimalValue()
+   {
+      checkType(JsonTape.NUMBER, "a number");
+      return parseBigDecimal(tape.bytes, tape.offset(index), tape.length(index));
+   }
+
+   @Override
+   public boolean booleanValue()
+   {
+      if (!isBoolean()) {
+         throw new RuntimeException("Value " + this + " is not a boolean");
+      }
+
+      return tape.type(index) == JsonTape.TRUE;
+   }
+
+   @Override
+   public String toString()
+   {
+      switch (tape.type(index)) {
+      case JsonTape.OBJECT:
+      case JsonTape.ARRAY:
+         final int start = tape.startOffset(index);
+         return new String(tape.bytes, start, tape.endOffset(index) + 1 - start, StandardCharsets.UTF_8);
+      case JsonTape.STRING:
+         return new String(tape.bytes, tape.offset(index) - 1, tape.length(index) + 2, StandardCharsets.UTF_8);
+      case JsonTape.NUMBER:
+         return Utf8Utils.fastTrackAsciiDecode(tape.bytes, tape.offset(index), tape.length(index));
+      case JsonTape.TRUE:
+         return "true";
+      case JsonTape.FALSE:
+         return "false";
+      default:
+         return "null";
+      }
+   }
+
+   private String decode(final int stringIndex)
+   {
+      final int offset = tape.offset(stringIndex);
+      final int length = tape.length(stringIndex);
+      if (!tape.isDecodeRequired(stringIndex)) {
+         return Utf8Utils.fastTrackAsciiDecode(tape.bytes, offset, length);
+      }
+
+      final char[] chars = new char[length];
+      return new String(chars, 0, Utf8Utils.decode(tape.bytes, offset, offset + length, chars));
+   }
+
+   private void checkType(final int type, final String description)
+   {
+      if (tape.type(index) != type) {
+         throw new RuntimeException("Value " + this + " is not " + description);
+      }
+   }
+}
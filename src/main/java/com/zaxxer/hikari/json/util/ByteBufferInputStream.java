@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json.util;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An InputStream over the remaining bytes of a ByteBuffer, used to feed direct and
+ * memory-mapped buffers to the parser in bulk transfers.  The position of the
+ * caller's buffer is not modified.
+ *
+ * @author Brett Wooldridge
+ */
+public final class ByteBufferInputStream extends InputStream
+{
+   private final ByteBuffer buffer;
+
+   public ByteBufferInputStream(final ByteBuffer buffer)
+   {
+      this.buffer = buffer.duplicate();
+   }
+
+   @Override
+   public int read()
+   {
+      return (buffer.hasRemaining() ? buffer.get() & 0xff : -1);
+   }
+
+   @Override
+   public int read(final byte[] b, final int off, final int len)
+   {
+      final int remaining = buffer.remaining();
+      if (remaining == 0) {
+         return (len == 0 ? 0 : -1);
+      }
+
+      final int length = Math.min(len, remaining);
+      buffer.get(b, off, length);
+      return length;
+   }
+
+   @Override
+   public int available()
+   {
+      return buffer.remaining();
+   }
+}
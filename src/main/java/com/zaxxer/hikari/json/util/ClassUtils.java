@@ -1,15 +1,36 @@
 package com.zaxxer.hikari.json.util;
 
 import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Registry of {@link Clazz} metadata.  Lookups are a lock-free {@link ClassValue}
+ * read.  A {@link Clazz} is only ever published once it, and every {@link Clazz}
+ * reachable from it, is fully built; graphs are built privately by the calling
+ * thread (resolving cycles against the thread's in-progress set) and published
+ * together when the outermost build completes.  Outermost builds are serialized
+ * by a lock, so a graph only ever references the published {@link Clazz} of
+ * each class; were they to overlap, two threads could each publish part of their
+ * own copy of a shared graph, leaving published metadata that references copies
+ * other than the published ones (which, for example, lack a registered pool).
+ */
 public final class ClassUtils
 {
-   public static final Map<Class<?>, Clazz> clazzMap;
+   private static final ClassValue<AtomicReference<Clazz>> clazzValue;
+   private static final ThreadLocal<HashMap<Class<?>, Clazz>> inProgress;
+   private static final Object buildLock = new Object();
 
    static
    {
-      clazzMap = new HashMap<>();
+      clazzValue = new ClassValue<AtomicReference<Clazz>>() {
+         @Override
+         protected AtomicReference<Clazz> computeValue(Class<?> type)
+         {
+            return new AtomicReference<>();
+         }
+      };
+
+      inProgress = new ThreadLocal<>();
    }
 
    private ClassUtils()
@@ -17,16 +38,67 @@ public final class ClassUtils
       // private constructor
    }
 
-   public static Clazz reflect(Class<?> targetClass)
+   public static Clazz reflect(final Class<?> targetClass)
    {
-      Clazz clazz = clazzMap.get(targetClass);
-      if (clazz == null) {
-         clazz = new Clazz(targetClass);
-         clazzMap.put(targetClass, clazz);
+      final AtomicReference<Clazz> slot = clazzValue.get(targetClass);
+      final Clazz clazz = slot.get();
+      if (clazz != null) {
+         return clazz;
+      }
+
+      return build(targetClass, slot);
+   }
 
-         clazz.parseFields();
+   /**
+    * Build and publish the metadata for the specified classes ahead of time, so
+    * that the first parse of each type does not pay the reflection cost.
+    *
+    * @param classes the classes to register
+    */
+   public static void register(final Class<?>... classes)
+   {
+      for (Class<?> clazz : classes) {
+         reflect(clazz);
       }
+   }
 
-      return clazz;
+   private static Clazz build(final Class<?> targetClass, final AtomicReference<Clazz> slot)
+   {
+      HashMap<Class<?>, Clazz> building = inProgress.get();
+      if (building != null) {
+         // Nested within a build on this thread, possibly a cycle
+         Clazz clazz = building.get(targetClass);
+         if (clazz == null) {
+            clazz = new Clazz(targetClass);
+            building.put(targetClass, clazz);
+            clazz.parseFields();
+         }
+         return clazz;
+      }
+
+      synchronized (buildLock) {
+         // Published by another thread while this one waited
+         final Clazz published = slot.get();
+         if (published != null) {
+            return published;
+         }
+
+         building = new HashMap<>();
+         inProgress.set(building);
+         final Clazz clazz = new Clazz(targetClass);
+         try {
+            building.put(targetClass, clazz);
+            clazz.parseFields();
+         }
+         finally {
+            inProgress.remove();
+         }
+
+         for (Clazz built : building.values()) {
+            clazzValue.get(built.getActualClass()).set(built);
+         }
+
+         return clazz;
+      }
    }
 }
@@ -2,17 +2,37 @@ package com.zaxxer.hikari.json.util;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
 
 import com.zaxxer.hikari.json.JsonProperty;
+import com.zaxxer.hikari.json.serializer.GeneratedAccessor;
 
 public final class Clazz
 {
    private final Class<?> actualClass;
 
    private final Phield[] fields;
+   private final Phield[] declaredFields;
    private final int[] fieldHashes;
-   private final int[] quickLookup;
+
+   // Perfect hash of the distinct member hashes to slots holding (index + 1) into fields
+   private int[] lookupTable;
+   private int[] displacements;
+   private int lookupMask;
+
+   private volatile GeneratedAccessor generatedAccessor;
+   private volatile boolean accessorResolved;
+
+   // Supplies recycled instances ahead of the instantiators, or null
+   private volatile Supplier<?> instancePool;
+
+   // Resolved on first use; a racing thread resolves the same cached instantiator
+   private Supplier<Object> instantiator;
+   private Supplier<Object> allocator;
 
    public Clazz(Class<?> clazz)
    {
@@ -24,8 +44,8 @@ public final class Clazz
       }
 
       fields = new Phield[fieldCount];
+      declaredFields = new Phield[fieldCount];
       fieldHashes = new int[fieldCount];
-      quickLookup = new int[32];
    }
 
    void parseFields()
@@ -34,52 +54,207 @@ public final class Clazz
       for (Field field : actualClass.getDeclaredFields()) {
          if (!Modifier.isStatic(field.getModifiers())) {
             JsonProperty jsonProperty = field.getAnnotation(JsonProperty.class);
-            int hash = (jsonProperty != null ? jsonProperty.name().hashCode() : field.getName().hashCode());
-            fieldHashes[ndx] = hash;
-            ndx++;
+            boolean excluded = (jsonProperty != null && jsonProperty.exclude());
+            boolean cacheValue = (jsonProperty != null && jsonProperty.cacheValue());
+
+            declaredFields[ndx++] = new Phield(field, memberName(field), excluded, cacheValue);
          }
       }
 
-      Arrays.sort(fieldHashes);
-      for (Field field : actualClass.getDeclaredFields()) {
-         if (!Modifier.isStatic(field.getModifiers())) {
-            JsonProperty jsonProperty = field.getAnnotation(JsonProperty.class);
-            int hash = (jsonProperty != null ? jsonProperty.name().hashCode() : field.getName().hashCode());
-            boolean excluded = (jsonProperty != null && jsonProperty.exclude());
+      // Fields are indexed in hash order, so that members sharing a hash are adjacent
+      System.arraycopy(declaredFields, 0, fields, 0, fields.length);
+      Arrays.sort(fields, Comparator.comparingInt((Phield phield) -> phield.nameHash));
+      for (int i = 0; i < fields.length; i++) {
+         fieldHashes[i] = fields[i].nameHash;
+      }
+
+      buildLookupTable();
+   }
+
+   /**
+    * Build a collision-free table of the distinct member hashes using hash and
+    * displace: hashes are grouped into buckets, and each bucket, largest first, is
+    * assigned the first displacement that places all of its hashes in free slots.
+    * The table starts at the smallest power of two that holds every hash and is
+    * only doubled if some bucket cannot be placed.
+    */
+   private void buildLookupTable()
+   {
+      int distinct = 0;
+      for (int i = 0; i < fieldHashes.length; i++) {
+         distinct += (i == 0 || fieldHashes[i] != fieldHashes[i - 1] ? 1 : 0);
+      }
+
+      for (int size = (distinct > 1 ? Integer.highestOneBit(distinct - 1) << 1 : 1); ; size <<= 1) {
+         if (tryBuildLookupTable(size)) {
+            return;
+         }
+      }
+   }
+
+   private boolean tryBuildLookupTable(final int size)
+   {
+      final int mask = size - 1;
 
-            Phield phield = new Phield(field, excluded);
+      final List<List<Integer>> buckets = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+         buckets.add(new ArrayList<>());
+      }
+      for (int i = 0; i < fieldHashes.length; i++) {
+         if (i == 0 || fieldHashes[i] != fieldHashes[i - 1]) {
+            buckets.get(bucket(fieldHashes[i]) & mask).add(i);
+         }
+      }
+
+      final Integer[] order = new Integer[size];
+      for (int i = 0; i < size; i++) {
+         order[i] = i;
+      }
+      Arrays.sort(order, Comparator.comparingInt((Integer b) -> -buckets.get(b).size()));
 
-            // Hash slot
-            int slot = (hash & quickLookup.length - 1);
-            for (int i = 0; i < fieldHashes.length; i++) {
+      final int[] table = new int[size];
+      final int[] displace = new int[size];
+      final int[] slots = new int[fieldHashes.length];
+      for (int b : order) {
+         final List<Integer> bucket = buckets.get(b);
+         if (bucket.isEmpty()) {
+            break;
+         }
 
-               if (fieldHashes[i] == hash) {
-                  fields[i] = phield;
-                  quickLookup[slot] = i + 1;
-                  break;
+         int d = 1;
+         placement: for (; d < 0x10000; d++) {
+            for (int k = 0; k < bucket.size(); k++) {
+               final int slot = slot(fieldHashes[bucket.get(k)], d) & mask;
+               if (table[slot] != 0) {
+                  continue placement;
+               }
+               for (int j = 0; j < k; j++) {
+                  if (slots[j] == slot) {
+                     continue placement;
+                  }
                }
+               slots[k] = slot;
             }
+            break;
+         }
+
+         if (d == 0x10000) {
+            return false;
+         }
+
+         displace[b] = d;
+         for (int k = 0; k < bucket.size(); k++) {
+            table[slots[k]] = bucket.get(k) + 1;
          }
       }
+
+      lookupTable = table;
+      displacements = displace;
+      lookupMask = mask;
+      return true;
+   }
+
+   private static int bucket(int hash)
+   {
+      hash *= 0x9E3779B9;
+      return hash ^ (hash >>> 16);
+   }
+
+   private static int slot(int hash, final int displacement)
+   {
+      // MurmurHash3 finalizer
+      hash ^= displacement;
+      hash ^= hash >>> 16;
+      hash *= 0x85EBCA6B;
+      hash ^= hash >>> 13;
+      hash *= 0xC2B2AE35;
+      return hash ^ (hash >>> 16);
+   }
+
+   private static String memberName(final Field field)
+   {
+      JsonProperty jsonProperty = field.getAnnotation(JsonProperty.class);
+      return (jsonProperty != null && !jsonProperty.name().isEmpty() ? jsonProperty.name() : field.getName());
    }
 
    public Class<?> getActualClass() {
       return actualClass;
    }
 
-   public Phield getPhield(final int hashCode) {
-      final int ndx = quickLookup[(hashCode & quickLookup.length - 1)] - 1; // Hash slot lookup
-      if (ndx != -1 && fieldHashes[ndx] == hashCode) {
-         return fields[ndx];
-      }
+   public Phield[] getPhields()
+   {
+      return fields;
+   }
 
-      for (int i = 0; i < fieldHashes.length; i++) {
-         if (fieldHashes[i] == hashCode) {
-            return fields[i];
+   /**
+    * Get the fields in the order they are declared in the class, as opposed to the
+    * hash order of {@link #getPhields()}.
+    *
+    * @return the fields in declaration order
+    */
+   public Phield[] getDeclaredPhields()
+   {
+      return declaredFields;
+   }
+
+   public int[] getPhieldHashes()
+   {
+      return fieldHashes;
+   }
+
+   public GeneratedAccessor getGeneratedAccessor()
+   {
+      return generatedAccessor;
+   }
+
+   public boolean isAccessorResolved()
+   {
+      return accessorResolved;
+   }
+
+   public void setGeneratedAccessor(final GeneratedAccessor accessor)
+   {
+      this.generatedAccessor = accessor;
+      this.accessorResolved = true;
+   }
+
+   /**
+    * Find a member by name.  The hash selects a single candidate slot, and the
+    * member name is verified byte for byte against the field, so distinct names
+    * that share a hash are told apart and unknown names are rejected.
+    *
+    * @param hashCode the hash of the name bytes, as computed by {@link Utf8Utils#hash}
+    * @param bytes the array holding the member name, as it appears between the quotes
+    * @param offset the index of the first byte of the name
+    * @param length the length of the name in bytes
+    * @return the index of the field in {@link #getPhields()}, or -1 if the member is unknown
+    */
+   public int lookup(final int hashCode, final byte[] bytes, final int offset, final int length)
+   {
+      final int mask = lookupMask;
+      int ndx = lookupTable[slot(hashCode, displacements[bucket(hashCode) & mask]) & mask] - 1;
+      if (ndx >= 0) {
+         for (final int[] hashes = fieldHashes; ndx < hashes.length && hashes[ndx] == hashCode; ndx++) {
+            if (fields[ndx].nameEquals(bytes, offset, length)) {
+               return ndx;
+            }
          }
       }
 
-      throw new RuntimeException("No method found for hashCode " + hashCode);
+      return -1;
+   }
+
+   /**
+    * Find a member by name.
+    *
+    * @param name the member name
+    * @return the field, or null if the member is unknown
+    */
+   public Phield getPhield(final String name)
+   {
+      final byte[] bytes = Utf8Utils.escapedBytes(name);
+      final int ndx = lookup(Utf8Utils.hash(bytes, 0, bytes.length), bytes, 0, bytes.length);
+      return (ndx >= 0 ? fields[ndx] : null);
    }
 
    @Override
@@ -88,8 +263,81 @@ public final class Clazz
       return "Clazz [" + actualClass.getCanonicalName() + "]";
    }
 
-   public Object newInstance() throws InstantiationException, IllegalAccessException
+   /**
+    * Set the pool that new instances are taken from before any is constructed.  The
+    * pool returns null when it is empty, in which case an instance is constructed as
+    * usual.  A pooled instance is parsed into as it is, so members absent from the
+    * document keep whatever values the pool left in them.
+    *
+    * @param pool the pool, or null to remove it
+    */
+   public void setInstancePool(final Supplier<?> pool)
    {
-      return actualClass.newInstance();
+      this.instancePool = pool;
+   }
+
+   public Supplier<?> getInstancePool()
+   {
+      return instancePool;
+   }
+
+   /**
+    * Take an instance from the pool, if one is set.
+    *
+    * @return a recycled instance, or null
+    */
+   public Object pooledInstance()
+   {
+      final Supplier<?> pool = instancePool;
+      return (pool != null ? pool.get() : null);
+   }
+
+   /**
+    * Take an instance from the pool, or construct one through the generated
+    * accessor, if there is one, or the cached instantiator of the no-arg constructor.
+    *
+    * @return a new instance
+    */
+   public Object newInstance()
+   {
+      final Object pooled = pooledInstance();
+      if (pooled != null) {
+         return pooled;
+      }
+
+      final GeneratedAccessor accessor = generatedAccessor;
+      if (accessor != null) {
+         return accessor.newInstance();
+      }
+
+      Supplier<Object> supplier = instantiator;
+      if (supplier == null) {
+         supplier = Instantiators.of(actualClass);
+         instantiator = supplier;
+      }
+
+      return supplier.get();
+   }
+
+   /**
+    * Take or create a new instance as {@link #newInstance()}, or if the class has no no-arg
+    * constructor, allocate one without running any constructor.
+    *
+    * @return a new instance
+    */
+   public Object allocateInstance()
+   {
+      final Object pooled = pooledInstance();
+      if (pooled != null) {
+         return pooled;
+      }
+
+      Supplier<Object> supplier = allocator;
+      if (supplier == null) {
+         supplier = Instantiators.allocatorOf(actualClass);
+         allocator = supplier;
+      }
+
+      return supplier.get();
    }
 }
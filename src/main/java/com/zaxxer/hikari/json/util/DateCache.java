@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json.util;
+
+import java.util.Arrays;
+
+/**
+ * A bounded cache of parsed date values keyed by their bytes as they appear in a
+ * document, so that a hit costs a hash and a byte comparison rather than decoding
+ * a key.  Each hash selects a pair of adjacent slots, so that two values whose
+ * hashes collide can both be held; a miss fills the free slot of the pair, or
+ * replaces the first.  Like {@link StringCache} it is not thread-safe; each parser
+ * owns its own cache.
+ *
+ * @author Brett Wooldridge
+ */
+public final class DateCache
+{
+   private final int mask;
+   private final int[] hashes;
+   private final byte[][] keys;
+   private final Object[] values;
+
+   /**
+    * Create a cache of at least the specified number of slots, rounded up to a
+    * power of two of at least two.
+    *
+    * @param size the number of values to hold
+    */
+   public DateCache(final int size)
+   {
+      final int slots = (size > 2 ? Integer.highestOneBit(size - 1) << 1 : 2);
+      mask = slots - 1;
+      hashes = new int[slots];
+      keys = new byte[slots][];
+      values = new Object[slots];
+   }
+
+   /**
+    * Get the cached value for the specified bytes.
+    *
+    * @param hash the hash of the bytes, as computed by {@link Utf8Utils#hash}
+    * @param bytes the array holding the value
+    * @param offset the index of the first byte of the value
+    * @param length the length of the value in bytes
+    * @return the cached value, or null if the value is not cached
+    */
+   public Object get(final int hash, final byte[] bytes, final int offset, final int length)
+   {
+      final int slot = slot(hash);
+      if (matches(slot, hash, bytes, offset, length)) {
+         return values[slot];
+      }
+      else if (matches(slot ^ 1, hash, bytes, offset, length)) {
+         return values[slot ^ 1];
+      }
+
+      return null;
+   }
+
+   /**
+    * Cache the value for the specified bytes, in the free slot of its pair or in
+    * place of the first.
+    *
+    * @param hash the hash of the bytes, as computed by {@link Utf8Utils#hash}
+    * @param bytes the array holding the value
+    * @param offset the index of the first byte of the value
+    * @param length the length of the value in bytes
+    * @param value the parsed value
+    */
+   public void put(final int hash, final byte[] bytes, final int offset, final int length, final Object value)
+   {
+      int slot = slot(hash);
+      if (keys[slot] != null && keys[slot ^ 1] == null) {
+         slot ^= 1;
+      }
+
+      final byte[] key = keys[slot];
+      if (key != null && key.length == length) {
+         // Dates of one format have one length, so the evicted key's array is reused
+         System.arraycopy(bytes, offset, key, 0, length);
+      }
+      else {
+         keys[slot] = Arrays.copyOfRange(bytes, offset, offset + length);
+      }
+      hashes[slot] = hash;
+      values[slot] = value;
+   }
+
+   private boolean matches(final int slot, final int hash, final byte[] bytes, final int offset, final int length)
+   {
+      final byte[] key = keys[slot];
+      return key != null && hashes[slot] == hash && key.length == length && Utf8Utils.regionEquals(bytes, offset, key, 0, length);
+   }
+
+   private int slot(final int hash)
+   {
+      return (hash ^ (hash >>> 16)) & mask;
+   }
+}
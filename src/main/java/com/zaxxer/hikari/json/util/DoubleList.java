@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json.util;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+import java.util.function.DoubleConsumer;
+
+/**
+ * A {@link java.util.List} of <code>double</code> values backed by a <code>double[]</code>.  As a
+ * collection member, selected by its field type, by
+ * {@link com.zaxxer.hikari.json.JsonCollection} or by the
+ * <code>COLLECTION_CLASS</code> option, it is filled through
+ * {@link DoubleConsumer#accept} without boxing.  Any other collection class
+ * implementing {@link DoubleConsumer} is filled the same way.
+ *
+ * @author Brett Wooldridge
+ */
+public final class DoubleList extends AbstractList<Double> implements RandomAccess, DoubleConsumer
+{
+   private double[] elements;
+   private int size;
+
+   public DoubleList()
+   {
+      this(10);
+   }
+
+   public DoubleList(final int capacity)
+   {
+      elements = new double[capacity];
+   }
+
+   /**
+    * Append a value to the end of this list.
+    *
+    * @param value the value
+    */
+   public void addDouble(final double value)
+   {
+      if (size == elements.length) {
+         grow(size + 1);
+      }
+      elements[size++] = value;
+      modCount++;
+   }
+
+   /**
+    * Get the value at the specified position, without boxing.
+    *
+    * @param index the index of the value
+    * @return the value
+    */
+   public double getDouble(final int index)
+   {
+      checkIndex(index);
+      return elements[index];
+   }
+
+   /**
+    * Replace the value at the specified position, without boxing.
+    *
+    * @param index the index of the value
+    * @param value the new value
+    * @return the previous value
+    */
+   public double setDouble(final int index, final double value)
+   {
+      checkIndex(index);
+      final double previous = elements[index];
+      elements[index] = value;
+      return previous;
+   }
+
+   /**
+    * Copy the values of this list into a new array.
+    *
+    * @return an array holding the values in order
+    */
+   public double[] toDoubleArray()
+   {
+      return Arrays.copyOf(elements, size);
+   }
+
+   @Override
+   public void accept(final double value)
+   {
+      addDouble(value);
+   }
+
+   @Override
+   public Double get(final int index)
+   {
+      return getDouble(index);
+   }
+
+   @Override
+   public Double set(final int index, final Double value)
+   {
+      return setDouble(index, value);
+   }
+
+   @Override
+   public void add(final int index, final Double value)
+   {
+      if (index < 0 || index > size) {
+         throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+      }
+
+      final double v = value;
+      if (size == elements.length) {
+         grow(size + 1);
+      }
+      System.arraycopy(elements, index, elements, index + 1, size - index);
+      elements[index] = v;
+      size++;
+      modCount++;
+   }
+
+   @Override
+   public Double remove(final int index)
+   {
+      checkIndex(index);
+      final double previous = elements[index];
+      System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+      size--;
+      modCount++;
+      return previous;
+   }
+
+   @Override
+   public void clear()
+   {
+      size = 0;
+      modCount++;
+   }
+
+   @Override
+   public int size()
+   {
+      return size;
+   }
+
+   private void grow(final int minCapacity)
+   {
+      elements = Arrays.copyOf(elements, Math.max(minCapacity, elements.length * 2));
+   }
+
+   private void checkIndex(final int index)
+   {
+      if (index < 0 || index >= size) {
+         throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+      }
+   }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json.util;
+
+import java.nio.charset.StandardCharsets;
+
+import com.zaxxer.hikari.json.JsonProperty;
+
+/**
+ * The constants of an enum class, indexed by the bytes of their JSON names so that
+ * a value can be resolved directly against the buffer without creating a String.
+ * A constant's JSON name is its {@link JsonProperty#name()} if present, otherwise
+ * its {@link Enum#name()}.
+ *
+ * @author Brett Wooldridge
+ */
+public final class EnumConstants
+{
+   private static final ClassValue<EnumConstants> enumConstants = new ClassValue<EnumConstants>() {
+      @Override
+      protected EnumConstants computeValue(final Class<?> type)
+      {
+         return new EnumConstants(type);
+      }
+   };
+
+   private final Class<?> enumClass;
+   private final Enum<?>[] constants;
+   private final byte[][] names;
+   private final int[] hashes;
+
+   // Open-addressed table of (ordinal + 1), indexed by name hash
+   private final int[] table;
+
+   private EnumConstants(final Class<?> enumClass)
+   {
+      this.enumClass = enumClass;
+      this.constants = (Enum<?>[]) enumClass.getEnumConstants();
+      this.names = new byte[constants.length][];
+      this.hashes = new int[constants.length];
+      this.table = new int[Integer.highestOneBit(Math.max(1, constants.length) * 2) * 2];
+
+      for (Enum<?> constant : constants) {
+         final int ordinal = constant.ordinal();
+         names[ordinal] = Utf8Utils.escapedBytes(jsonName(constant));
+         hashes[ordinal] = Utf8Utils.hash(names[ordinal], 0, names[ordinal].length);
+
+         int slot = slot(hashes[ordinal]);
+         while (table[slot] != 0) {
+            slot = (slot + 1) & (table.length - 1);
+         }
+         table[slot] = ordinal + 1;
+      }
+   }
+
+   /**
+    * Get the constants of the specified enum class, building them on first use.
+    *
+    * @param enumClass the enum class
+    * @return the constants
+    */
+   public static EnumConstants of(final Class<?> enumClass)
+   {
+      return enumConstants.get(enumClass);
+   }
+
+   /**
+    * Resolve a constant from its JSON name, as it appears between the quotes of a
+    * document.
+    *
+    * @param bytes the array holding the name
+    * @param offset the index of the first byte of the name
+    * @param length the length of the name in bytes
+    * @return the constant
+    * @throws RuntimeException if no constant has the name
+    */
+   public Enum<?> valueOf(final byte[] bytes, final int offset, final int length)
+   {
+      final int hash = Utf8Utils.hash(bytes, offset, offset + length);
+      for (int slot = slot(hash); table[slot] != 0; slot = (slot + 1) & (table.length - 1)) {
+         final int ordinal = table[slot] - 1;
+         if (hashes[ordinal] == hash && names[ordinal].length == length && Utf8Utils.regionEquals(bytes, offset, names[ordinal], 0, length)) {
+            return constants[ordinal];
+         }
+      }
+
+      throw new RuntimeException("Unknown constant \"" + new String(bytes, offset, length, StandardCharsets.UTF_8) + "\" for " + enumClass);
+   }
+
+   /**
+    * Get the JSON name of a constant, escaped as it would appear between quotes.
+    *
+    * @param constant the constant
+    * @return the escaped UTF-8 bytes of the name
+    */
+   public byte[] nameBytes(final Enum<?> constant)
+   {
+      return names[constant.ordinal()];
+   }
+
+   private int slot(final int hash)
+   {
+      return (hash ^ (hash >>> 16)) & (table.length - 1);
+   }
+
+   private static String jsonName(final Enum<?> constant)
+   {
+      try {
+         final JsonProperty jsonProperty = constant.getDeclaringClass().getField(constant.name()).getAnnotation(JsonProperty.class);
+         return (jsonProperty != null && !jsonProperty.name().isEmpty() ? jsonProperty.name() : constant.name());
+      }
+      catch (NoSuchFieldException e) {
+         throw new RuntimeException(e);
+      }
+   }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json.util;
+
+import java.lang.reflect.Field;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads and writes one field of a bound class.  The backend is selected once, at
+ * startup: <code>sun.misc.Unsafe</code> field offsets where Unsafe is available,
+ * otherwise <code>MethodHandle</code> getters and setters, which need no access to
+ * JDK internals.  Set the system property <code>com.zaxxer.hikari.json.fieldAccess</code>
+ * to <code>unsafe</code> or <code>methodhandle</code> to override the selection.
+ * Because only one backend is ever loaded, the call sites stay monomorphic.
+ *
+ * @author Brett Wooldridge
+ */
+public abstract class FieldAccess
+{
+   public static final String BACKEND_PROPERTY = "com.zaxxer.hikari.json.fieldAccess";
+   public static final String UNSAFE = "unsafe";
+   public static final String METHOD_HANDLE = "methodhandle";
+
+   private static final String BACKEND = selectBackend();
+
+   /**
+    * Create the accessor of the specified field using the backend selected at startup.
+    *
+    * @param field the field to access
+    * @return the accessor
+    */
+   public static FieldAccess of(final Field field)
+   {
+      return of(field, BACKEND);
+   }
+
+   /**
+    * Create the accessor of the specified field using the specified backend.
+    *
+    * @param field the field to access
+    * @param backend {@link #UNSAFE} or {@link #METHOD_HANDLE}
+    * @return the accessor
+    */
+   public static FieldAccess of(final Field field, final String backend)
+   {
+      if (UNSAFE.equals(backend)) {
+         return new UnsafeFieldAccess(field);
+      }
+      else if (METHOD_HANDLE.equals(backend)) {
+         return new MethodHandleFieldAccess(field);
+      }
+
+      throw new RuntimeException("Unknown field access backend \"" + backend + "\"");
+   }
+
+   /**
+    * Get the name of the backend selected at startup.
+    *
+    * @return {@link #UNSAFE} or {@link #METHOD_HANDLE}
+    */
+   public static String backend()
+   {
+      return BACKEND;
+   }
+
+   /**
+    * Returns true if the Unsafe backend was selected at startup, in which case the
+    * word-at-a-time scanners in {@link Utf8Utils} also read through Unsafe.
+    *
+    * @return true if the Unsafe backend is in use
+    */
+   public static boolean isUnsafe()
+   {
+      return BACKEND == UNSAFE;
+   }
+
+   private static String selectBackend()
+   {
+      final Logger logger = LoggerFactory.getLogger(FieldAccess.class);
+      final String requested = System.getProperty(BACKEND_PROPERTY);
+      if (METHOD_HANDLE.equalsIgnoreCase(requested)) {
+         return METHOD_HANDLE;
+      }
+      else if (requested != null && !UNSAFE.equalsIgnoreCase(requested)) {
+         logger.warn("Unknown value \"{}\" of {}, selecting the backend automatically", requested, BACKEND_PROPERTY);
+      }
+
+      if (UnsafeHelper.getUnsafe() != null) {
+         return UNSAFE;
+      }
+
+      logger.debug("sun.misc.Unsafe is not available, using MethodHandle field access");
+      return METHOD_HANDLE;
+   }
+
+   public abstract int getInt(Object target);
+
+   public abstract long getLong(Object target);
+
+   public abstract short getShort(Object target);
+
+   public abstract byte getByte(Object target);
+
+   public abstract char getChar(Object target);
+
+   public abstract boolean getBoolean(Object target);
+
+   public abstract double getDouble(Object target);
+
+   public abstract float getFloat(Object target);
+
+   public abstract Object getObject(Object target);
+
+   public abstract void putInt(Object target, int value);
+
+   public abstract void putLong(Object target, long value);
+
+   public abstract void putShort(Object target, short value);
+
+   public abstract void putByte(Object target, byte value);
+
+   public abstract void putChar(Object target, char value);
+
+   public abstract void putBoolean(Object target, boolean value);
+
+   public abstract void putDouble(Object target, double value);
+
+   public abstract void putFloat(Object target, float value);
+
+   public abstract void putObject(Object target, Object value);
+}
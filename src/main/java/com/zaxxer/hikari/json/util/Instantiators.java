@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json.util;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.util.function.Supplier;
+
+/**
+ * Cached instantiators, one per class, so that creating an object on the hot path
+ * is a direct call rather than a reflective <code>Class.newInstance()</code>.  The
+ * public no-arg constructor of a public class is linked through
+ * {@link LambdaMetafactory} into a generated {@link Supplier}; other no-arg
+ * constructors are invoked through their method handles.  Classes without a
+ * no-arg constructor may opt in to <code>Unsafe.allocateInstance</code>, which
+ * runs no constructor and no field initializers.
+ *
+ * @author Brett Wooldridge
+ */
+public final class Instantiators
+{
+   private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+   private static final ClassValue<Supplier<Object>> constructors = new ClassValue<Supplier<Object>>() {
+      @Override
+      protected Supplier<Object> computeValue(final Class<?> type)
+      {
+         final Supplier<Object> constructor = noArgConstructor(type);
+         return (constructor != null ? constructor : () -> {
+            throw new RuntimeException(type + " has no accessible no-arg constructor");
+         });
+      }
+   };
+
+   private static final ClassValue<Supplier<Object>> allocators = new ClassValue<Supplier<Object>>() {
+      @Override
+      protected Supplier<Object> computeValue(final Class<?> type)
+      {
+         final Supplier<Object> constructor = noArgConstructor(type);
+         return (constructor != null ? constructor : allocator(type));
+      }
+   };
+
+   private Instantiators()
+   {
+      // utility class
+   }
+
+   /**
+    * Get the instantiator that invokes the no-arg constructor of a class.
+    *
+    * @param type the class to instantiate
+    * @return the instantiator, which throws if the class has no usable no-arg constructor
+    */
+   public static Supplier<Object> of(final Class<?> type)
+   {
+      return constructors.get(type);
+   }
+
+   /**
+    * Get the instantiator that invokes the no-arg constructor of a class, or if it
+    * has none, allocates instances with <code>Unsafe.allocateInstance</code>.
+    *
+    * @param type the class to instantiate
+    * @return the instantiator
+    */
+   public static Supplier<Object> allocatorOf(final Class<?> type)
+   {
+      return allocators.get(type);
+   }
+
+   /**
+    * Link the no-arg constructor of a class.
+    *
+    * @param type the class
+    * @return the constructor, or null if the class is abstract or has no no-arg constructor
+    */
+   @SuppressWarnings("unchecked")
+   public static Supplier<Object> noArgConstructor(final Class<?> type)
+   {
+      if (type.isInterface() || type.isPrimitive() || type.isArray() || Modifier.isAbstract(type.getModifiers())) {
+         return null;
+      }
+
+      final Constructor<?> ctor;
+      try {
+         ctor = type.getDeclaredConstructor();
+      }
+      catch (NoSuchMethodException e) {
+         return null;
+      }
+
+      try {
+         if (isPublic(type) && Modifier.isPublic(ctor.getModifiers())) {
+            final MethodHandle handle = LOOKUP.unreflectConstructor(ctor);
+            final CallSite site = LambdaMetafactory.metafactory(LOOKUP, "get", MethodType.methodType(Supplier.class),
+                                                                MethodType.methodType(Object.class), handle, MethodType.methodType(type));
+            return (Supplier<Object>) site.getTarget().invokeExact();
+         }
+
+         ctor.setAccessible(true);
+         final MethodHandle handle = LOOKUP.unreflectConstructor(ctor).asType(MethodType.methodType(Object.class));
+         return () -> construct(handle);
+      }
+      catch (Throwable e) {
+         throw new RuntimeException("Unable to access the no-arg constructor of " + type, e);
+      }
+   }
+
+   /**
+    * Returns true if the class and every class enclosing it is public.
+    *
+    * @param type the class
+    * @return true if the class is accessible from any package
+    */
+   public static boolean isPublic(final Class<?> type)
+   {
+      for (Class<?> c = type; c != null; c = c.getEnclosingClass()) {
+         if (!Modifier.isPublic(c.getModifiers())) {
+            return false;
+         }
+      }
+
+      return true;
+   }
+
+   private static Supplier<Object> allocator(final Class<?> type)
+   {
+      if (UnsafeHelper.getUnsafe() == null || type.isInterface() || type.isPrimitive() || type.isArray() || Modifier.isAbstract(type.getModifiers())) {
+         return () -> {
+            throw new RuntimeException("Unable to allocate an instance of " + type);
+         };
+      }
+
+      return () -> {
+         try {
+            return UnsafeHelper.allocateInstance(type);
+         }
+         catch (InstantiationException e) {
+            throw new RuntimeException(e);
+         }
+      };
+   }
+
+   private static Object construct(final MethodHandle handle)
+   {
+      try {
+         return (Object) handle.invokeExact();
+      }
+      catch (RuntimeException | Error e) {
+         throw e;
+      }
+      catch (Throwable e) {
+         throw new RuntimeException(e);
+      }
+   }
+}
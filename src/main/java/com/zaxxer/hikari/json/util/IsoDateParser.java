@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json.util;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Date;
+
+/**
+ * A reusable parser for RFC 3339 timestamps (<code>2013-12-14T01:55:33.412Z</code>)
+ * and ISO-8601 calendar dates (<code>2013-12-14</code>) that works directly on
+ * the bytes of a document.  The parser holds the fields of the last value parsed,
+ * so a parse allocates nothing beyond the resulting date object.  Forms the parser
+ * does not recognize are left to {@link #fromString}, which uses
+ * <code>java.time</code>.  It is not thread-safe; each parser owns its own instance.
+ *
+ * @author Brett Wooldridge
+ */
+public final class IsoDateParser
+{
+   private static final long DAYS_0000_TO_1970 = 719_528L;
+   private static final long MILLIS_PER_DAY = 86_400_000L;
+
+   private int year;
+   private int month;
+   private int day;
+   private int hour;
+   private int minute;
+   private int second;
+   private int nano;
+   private int offsetSeconds;
+   private boolean hasTime;
+   private boolean hasOffset;
+
+   /**
+    * Parse a date or timestamp.
+    *
+    * @param bytes the array holding the value, as it appears between the quotes
+    * @param offset the index of the first byte
+    * @param length the length of the value in bytes
+    * @return true if the value was recognized, false if it must be parsed with {@link #fromString}
+    */
+   public boolean parse(final byte[] bytes, final int offset, final int length)
+   {
+      final int end = offset + length;
+      if (length < 10 || bytes[offset + 4] != '-' || bytes[offset + 7] != '-') {
+         return false;
+      }
+
+      year = digits(bytes, offset, 4);
+      month = digits(bytes, offset + 5, 2);
+      day = digits(bytes, offset + 8, 2);
+      if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+         return false;
+      }
+
+      hour = minute = second = nano = offsetSeconds = 0;
+      hasTime = hasOffset = false;
+      if (length == 10) {
+         return true;
+      }
+
+      int i = offset + 10;
+      final int separator = bytes[i];
+      if ((separator != 'T' && separator != 't' && separator != ' ') || end - i < 6 || bytes[i + 3] != ':') {
+         return false;
+      }
+
+      hour = digits(bytes, i + 1, 2);
+      minute = digits(bytes, i + 4, 2);
+      i += 6;
+      if (i < end && bytes[i] == ':') {
+         second = (end - i >= 3 ? digits(bytes, i + 1, 2) : -1);
+         i += 3;
+
+         if (i < end && bytes[i] == '.') {
+            int scale = 100_000_000;
+            for (i++; i < end && bytes[i] >= '0' && bytes[i] <= '9' && scale > 0; i++) {
+               nano += (bytes[i] - '0') * scale;
+               scale /= 10;
+            }
+            if (scale == 100_000_000 || (i < end && bytes[i] >= '0' && bytes[i] <= '9')) {
+               return false;
+            }
+         }
+      }
+
+      if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+         return false;
+      }
+      hasTime = true;
+
+      if (i == end) {
+         return true;
+      }
+
+      final int sign = bytes[i];
+      if ((sign == 'Z' || sign == 'z') && i + 1 == end) {
+         hasOffset = true;
+         return true;
+      }
+      else if ((sign == '+' || sign == '-') && end - i == 6 && bytes[i + 3] == ':') {
+         final int offsetHours = digits(bytes, i + 1, 2);
+         final int offsetMinutes = digits(bytes, i + 4, 2);
+         if (offsetHours < 0 || offsetHours > 18 || offsetMinutes < 0 || offsetMinutes > 59 || (offsetHours == 18 && offsetMinutes > 0)) {
+            return false;
+         }
+
+         offsetSeconds = (sign == '-' ? -1 : 1) * (offsetHours * 3600 + offsetMinutes * 60);
+         hasOffset = true;
+         return true;
+      }
+
+      return false;
+   }
+
+   /**
+    * Create a value of the specified type from the last value parsed.
+    *
+    * @param type one of {@link Types#DATE}, {@link Types#INSTANT}, {@link Types#OFFSETDATETIME}
+    *        or {@link Types#LOCALDATE}
+    * @return the value, or null if the last value parsed lacks the time or offset the type requires
+    */
+   public Object toTemporal(final int type)
+   {
+      if (type == Types.LOCALDATE) {
+         return LocalDate.of(year, month, day);
+      }
+      else if (!hasTime || !hasOffset) {
+         return null;
+      }
+
+      switch (type) {
+      case Types.DATE:
+         return new Date(epochSecond() * 1000 + nano / 1_000_000);
+      case Types.INSTANT:
+         return Instant.ofEpochSecond(epochSecond(), nano);
+      default:
+         return OffsetDateTime.of(year, month, day, hour, minute, second, nano, ZoneOffset.ofTotalSeconds(offsetSeconds));
+      }
+   }
+
+   /**
+    * Create a value of the specified type from milliseconds since the epoch.  Offset
+    * date-times and local dates are in UTC.
+    *
+    * @param epochMillis milliseconds since 1970-01-01T00:00:00Z
+    * @param type the date type
+    * @return the value
+    */
+   public static Object fromEpochMillis(final long epochMillis, final int type)
+   {
+      switch (type) {
+      case Types.DATE:
+         return new Date(epochMillis);
+      case Types.INSTANT:
+         return Instant.ofEpochMilli(epochMillis);
+      case Types.OFFSETDATETIME:
+         return OffsetDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+      default:
+         return LocalDate.ofEpochDay(Math.floorDiv(epochMillis, MILLIS_PER_DAY));
+      }
+   }
+
+   /**
+    * Create a value of the specified type from any form <code>java.time</code> accepts.
+    *
+    * @param value the date or timestamp
+    * @param type the date type
+    * @return the value
+    * @throws java.time.format.DateTimeParseException if the value cannot be parsed
+    */
+   public static Object fromString(final String value, final int type)
+   {
+      if (type == Types.LOCALDATE) {
+         return (value.length() > 10 ? OffsetDateTime.parse(value).toLocalDate() : LocalDate.parse(value));
+      }
+
+      final OffsetDateTime dateTime = OffsetDateTime.parse(value);
+      switch (type) {
+      case Types.DATE:
+         return Date.from(dateTime.toInstant());
+      case Types.INSTANT:
+         return dateTime.toInstant();
+      default:
+         return dateTime;
+      }
+   }
+
+   private long epochSecond()
+   {
+      final long y = year;
+      long days = 365 * y + (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+      days += (367 * month - 362) / 12 + day - 1;
+      if (month > 2) {
+         days -= (isLeapYear(year) ? 1 : 2);
+      }
+
+      return (days - DAYS_0000_TO_1970) * 86_400 + hour * 3600 + minute * 60 + second - offsetSeconds;
+   }
+
+   private static int lengthOfMonth(final int year, final int month)
+   {
+      switch (month) {
+      case 2:
+         return (isLeapYear(year) ? 29 : 28);
+      case 4:
+      case 6:
+      case 9:
+      case 11:
+         return 30;
+      default:
+         return 31;
+      }
+   }
+
+   private static boolean isLeapYear(final int year)
+   {
+      return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+   }
+
+   /**
+    * Parse a fixed number of decimal digits.
+    *
+    * @return the value, or -1 if any byte is not a digit
+    */
+   private static int digits(final byte[] bytes, final int offset, final int count)
+   {
+      int value = 0;
+      for (int i = offset; i < offset + count; i++) {
+         final int digit = bytes[i] - '0';
+         if (digit < 0 || digit > 9) {
+            return -1;
+         }
+         value = value * 10 + digit;
+      }
+
+      return value;
+   }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+/**
+ * {@link FieldAccess} through <code>MethodHandle</code> getters and setters, which
+ * need no access to JDK internals.  Final fields, whose setters cannot be looked up
+ * on every JDK, are written through {@link Field#set}.
+ *
+ * @author Brett Wooldridge
+ */
+final class MethodHandleFieldAccess extends FieldAccess
+{
+   private final MethodHandle getter;
+   private final MethodHandle setter;
+
+   MethodHandleFieldAccess(final Field field)
+   {
+      final MethodHandles.Lookup lookup = MethodHandles.lookup();
+      final Class<?> type = (field.getType().isPrimitive() ? field.getType() : Object.class);
+      try {
+         field.setAccessible(true);
+         getter = lookup.unreflectGetter(field).asType(MethodType.methodType(type, Object.class));
+         setter = unreflectSetter(lookup, field).asType(MethodType.methodType(void.class, Object.class, type));
+      }
+      catch (ReflectiveOperationException e) {
+         throw new RuntimeException("Unable to access field " + field, e);
+      }
+   }
+
+   private static MethodHandle unreflectSetter(final MethodHandles.Lookup lookup, final Field field) throws ReflectiveOperationException
+   {
+      try {
+         return lookup.unreflectSetter(field);
+      }
+      catch (IllegalAccessException e) {
+         return lookup.findVirtual(Field.class, "set", MethodType.methodType(void.class, Object.class, Object.class)).bindTo(field);
+      }
+   }
+
+   @Override
+   public int getInt(final Object target)
+   {
+      try {
+         return (int) getter.invokeExact(target);
+      }
+      catch (Throwable e) {
+         throw new RuntimeException(e);
+      }
+   }
+
+   @Override
+   public long getLong(final Object target)
+   {
+      try {
+         return (long) getter.invokeExact(target);
+      }
+      catch (Throwable e) {
+         throw new RuntimeException(e);
+      }
+   }
+
+   @Override
+   public short getShort(final Object target)
+   {
+      try {
+         return (short) getter.invokeExact(target);
+      }
+      catch (Throwable e) {
+         throw new RuntimeException(e);
+      }
+   }
+
+   @Override
+   public byte getByte(final Object target)
+   {
+      try {
+         return (byte) getter.invokeExact(target);
+      }
+      catch (Throwable e) {
+         throw new RuntimeException(e);
+      }
+   }
+
+   @Override
+   public char getChar(final Object target)
+   {
+      try {
+         return (char) getter.invokeExact(target);
+      }
+      catch (Throwable e) {
+         throw new RuntimeException(e);
+      }
+   }
+
+   @Override
+   public boolean getBoolean(final Object target)
+   {
+      try {
+         return (boolean) getter.invokeExact(target);
+      }
+      catch (Throwable e) {
+         throw new RuntimeException(e);
+      }
+   }
+
+   @Override
+   public double getDouble(final Object target)
+   {
+      try {
+         return (double) getter.invokeExact(target);
+      }
+      catch (Throwable e) {
+         throw new RuntimeException(e);
+      }
+   }
+
+   @Override
+   public float getFloat(final Object target)
+   {
+      try {
+         return (float) getter.invokeExact(target);
+      }
+      catch (Throwable e) {
+         throw new RuntimeException(e);
+      }
+   }
+
+   @Override
+   public Object getObject(final Object target)
+   {
+      try {
+         return (Object) getter.invokeExact(target);
+      }
+      catch (Throwable e) {
+         throw new RuntimeException(e);
+      }
+   }
+
+   @Override
+   public void putInt(final Object target, final int value)
+   {
+      try {
+         setter.invokeExact(target, value);
+      }
+      catch (Throwable e) {
+         throw new RuntimeException(e);
+      }
+   }
+
+   @Override
+   public void putLong(final Object target, final long value)
+   {
+      try {
+         setter.invokeExact(target, value);
+      }
+      catch (Throwable e) {
+         throw new RuntimeException(e);
+      }
+   }
+
+   @Override
+   public void putShort(final Object target, final short value)
+   {
+      try {
+         setter.invokeExact(target, value);
+      }
+      catch (Throwable e) {
+         throw new RuntimeException(e);
+      }
+   }
+
+   @Override
+   public void putByte(final Object target, final byte value)
+   {
+      try {
+         setter.invokeExact(target, value);
+      }
+      catch (Throwable e) {
+         throw new RuntimeException(e);
+      }
+   }
+
+   @Override
+   public void putChar(final Object target, final char value)
+   {
+      try {
+         setter.invokeExact(target, value);
+      }
+      catch (Throwable e) {
+         throw new RuntimeException(e);
+      }
+   }
+
+   @Override
+   public void putBoolean(final Object target, final boolean value)
+   {
+      try {
+         setter.invokeExact(target, value);
+      }
+      catch (Throwable e) {
+         throw new RuntimeException(e);
+      }
+   }
+
+   @Override
+   public void putDouble(final Object target, final double value)
+   {
+      try {
+         setter.invokeExact(target, value);
+      }
+      catch (Throwable e) {
+         throw new RuntimeException(e);
+      }
+   }
+
+   @Override
+   public void putFloat(final Object target, final float value)
+   {
+      try {
+         setter.invokeExact(target, value);
+      }
+      catch (Throwable e) {
+         throw new RuntimeException(e);
+      }
+   }
+
+   @Override
+   public void putObject(final Object target, final Object value)
+   {
+      try {
+         setter.invokeExact(target, value);
+      }
+      catch (Throwable e) {
+         throw new RuntimeException(e);
+      }
+   }
+}
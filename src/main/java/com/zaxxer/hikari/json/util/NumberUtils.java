@@ -0,0 +1,411 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json.util;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Number conversion directly from the bytes of a JSON number.
+ * <p>
+ * Doubles are converted with Clinger's fast path when the significand and the
+ * power of ten are both exactly representable, and otherwise with the
+ * Eisel-Lemire algorithm, which multiplies the significand by a 128-bit truncated
+ * power of ten and bails out whenever the truncation could affect rounding.  Only
+ * then, or for subnormal results, is the number handed to
+ * {@link Double#parseDouble(String)}.  Every result is correctly rounded, and the
+ * common paths do not allocate.
+ *
+ * @author Brett Wooldridge
+ */
+public final class NumberUtils
+{
+   /** The most digits a BigInteger value may have before the decimal point, as Jackson limits number length */
+   public static final int MAX_INTEGER_DIGITS = 1000;
+
+   private static final int MIN_POWER = -342;
+   private static final int MAX_POWER = 308;
+
+   private static final double[] POWERS_OF_TEN = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+      1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+   };
+
+   // The most and least significant 64 bits of 10^q (normalized to 128 bits and
+   // truncated) for q from MIN_POWER to MAX_POWER
+   private static final long[] MANTISSA_64;
+   private static final long[] MANTISSA_128;
+
+   static
+   {
+      MANTISSA_64 = new long[MAX_POWER - MIN_POWER + 1];
+      MANTISSA_128 = new long[MAX_POWER - MIN_POWER + 1];
+
+      final BigInteger five = BigInteger.valueOf(5);
+      BigInteger power = BigInteger.ONE;
+      for (int q = 0; q <= MAX_POWER; q++) {
+         final int shift = 128 - power.bitLength();
+         setMantissa(q, (shift >= 0 ? power.shiftLeft(shift) : power.shiftRight(-shift)));
+         power = power.multiply(five);
+      }
+
+      power = five;
+      for (int q = -1; q >= MIN_POWER; q--) {
+         setMantissa(q, BigInteger.ONE.shiftLeft(power.bitLength() + 127).divide(power));
+         power = power.multiply(five);
+      }
+   }
+
+   private NumberUtils()
+   {
+      // utility class
+   }
+
+   /**
+    * Parse a JSON number into a long.  Numbers with a fraction or exponent are
+    * accepted if their value is an integer.
+    *
+    * @param array the array holding the number
+    * @param offset the index of the first byte of the number
+    * @param length the length of the number in bytes
+    * @return the value
+    * @throws NumberFormatException if the number is malformed, not an integer, or
+    *         out of the range of a long
+    */
+   public static long parseLong(final byte[] array, final int offset, final int length)
+   {
+      int i = offset;
+      final int end = offset + length;
+      final boolean negative = (length > 0 && array[i] == '-');
+      if (negative) {
+         i++;
+      }
+
+      if (i == end) {
+         throw invalid(array, offset, length);
+      }
+
+      // Accumulate negatively, so that Long.MIN_VALUE can be represented
+      long value = 0;
+      for (; i < end; i++) {
+         final int digit = array[i] - '0';
+         if (digit < 0 || digit > 9) {
+            return parseIntegralDecimal(array, offset, length);
+         }
+         else if (value < Long.MIN_VALUE / 10 || (value = value * 10 - digit) > 0) {
+            throw new NumberFormatException("Numeric overflow: " + text(array, offset, length));
+         }
+      }
+
+      if (negative) {
+         return value;
+      }
+      else if (value == Long.MIN_VALUE) {
+         throw new NumberFormatException("Numeric overflow: " + text(array, offset, length));
+      }
+
+      return -value;
+   }
+
+   /**
+    * Verify that a value parsed by {@link #parseLong} fits the specified integral type.
+    *
+    * @param value the value
+    * @param type the {@link Types} constant of the destination field
+    * @return the value
+    * @throws NumberFormatException if the value is out of range for the type
+    */
+   public static long checkRange(final long value, final int type)
+   {
+      final boolean inRange;
+      switch (type) {
+      case Types.INT:
+         inRange = (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE);
+         break;
+      case Types.SHORT:
+         inRange = (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE);
+         break;
+      case Types.BYTE:
+         inRange = (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE);
+         break;
+      case Types.CHAR:
+         inRange = (value >= Character.MIN_VALUE && value <= Character.MAX_VALUE);
+         break;
+      default:
+         inRange = true;
+      }
+
+      if (!inRange) {
+         throw new NumberFormatException("Numeric overflow: " + value);
+      }
+
+      return value;
+   }
+
+   /**
+    * Parse a JSON number into the nearest double.
+    *
+    * @param array the array holding the number
+    * @param offset the index of the first byte of the number
+    * @param length the length of the number in bytes
+    * @return the correctly rounded value
+    * @throws NumberFormatException if the number is malformed
+    */
+   public static double parseDouble(final byte[] array, final int offset, final int length)
+   {
+      int i = offset;
+      final int end = offset + length;
+      final boolean negative = (length > 0 && array[i] == '-');
+      if (negative) {
+         i++;
+      }
+
+      // Up to 19 significant digits fit an unsigned long; the rest only matter if non-zero
+      long significand = 0;
+      int digits = 0;
+      int power = 0;
+      boolean truncated = false;
+
+      final int intStart = i;
+      for (; i < end; i++) {
+         final int digit = array[i] - '0';
+         if (digit < 0 || digit > 9) {
+            break;
+         }
+         else if (digits < 19) {
+            significand = significand * 10 + digit;
+            digits += (significand != 0 ? 1 : 0);
+         }
+         else {
+            power++;
+            truncated |= (digit != 0);
+         }
+      }
+
+      boolean valid = (i > intStart);
+      if (i < end && array[i] == '.') {
+         final int fractionStart = ++i;
+         for (; i < end; i++) {
+            final int digit = array[i] - '0';
+            if (digit < 0 || digit > 9) {
+               break;
+            }
+            else if (digits < 19) {
+               significand = significand * 10 + digit;
+               digits += (significand != 0 ? 1 : 0);
+               power--;
+            }
+            else {
+               truncated |= (digit != 0);
+            }
+         }
+         valid &= (i > fractionStart);
+      }
+
+      if (i < end && (array[i] == 'e' || array[i] == 'E')) {
+         final boolean negativeExponent = (++i < end && array[i] == '-');
+         if (i < end && (array[i] == '-' || array[i] == '+')) {
+            i++;
+         }
+
+         final int exponentStart = i;
+         int exponent = 0;
+         for (; i < end; i++) {
+            final int digit = array[i] - '0';
+            if (digit < 0 || digit > 9) {
+               break;
+            }
+            exponent = Math.min(exponent * 10 + digit, 100_000);
+         }
+         valid &= (i > exponentStart);
+         power += (negativeExponent ? -exponent : exponent);
+      }
+
+      if (!valid || i != end) {
+         throw invalid(array, offset, length);
+      }
+
+      double d = toDouble(negative, significand, power);
+      if (truncated && d != toDouble(negative, significand + 1, power)) {
+         // The dropped digits could change the rounding
+         d = Double.NaN;
+      }
+
+      return (Double.isNaN(d) ? Double.parseDouble(text(array, offset, length)) : d);
+   }
+
+   public static BigDecimal parseBigDecimal(final byte[] array, final int offset, final int length)
+   {
+      return new BigDecimal(text(array, offset, length));
+   }
+
+   /**
+    * Parse an integer value of any size.  The digit count is checked before the
+    * value is expanded, so that an exponent such as <code>1e999999999</code> is
+    * rejected rather than computed.
+    *
+    * @param array the array holding the value
+    * @param offset the index of the first byte of the value
+    * @param length the length of the value in bytes
+    * @return the value
+    * @throws NumberFormatException if the value is not an integer, or has more than
+    *         {@link #MAX_INTEGER_DIGITS} digits
+    */
+   public static BigInteger parseBigInteger(final byte[] array, final int offset, final int length)
+   {
+      final BigDecimal value = parseBigDecimal(array, offset, length);
+      if (value.signum() == 0) {
+         return BigInteger.ZERO;
+      }
+
+      final long integerDigits = (long) value.precision() - value.scale();
+      if (integerDigits > MAX_INTEGER_DIGITS) {
+         throw new NumberFormatException("Integer of " + integerDigits + " digits exceeds the limit of " + MAX_INTEGER_DIGITS);
+      }
+
+      else if (integerDigits > 0) {
+         try {
+            return value.toBigIntegerExact();
+         }
+         catch (ArithmeticException e) {
+            // a non-zero fraction
+         }
+      }
+
+      throw new NumberFormatException("Not an integer: " + text(array, offset, length));
+   }
+
+   /**
+    * Convert a significand and power of ten to the nearest double.
+    *
+    * @param negative true if the value is negative
+    * @param significand the unsigned decimal significand
+    * @param power the power of ten
+    * @return the value, or NaN if it cannot be determined without the slow path
+    */
+   static double toDouble(final boolean negative, final long significand, final int power)
+   {
+      if (significand == 0 || power < MIN_POWER) {
+         return (negative ? -0.0 : 0.0);
+      }
+      else if (power > MAX_POWER) {
+         return (negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY);
+      }
+      else if (power >= -22 && power <= 22 && significand >= 0 && significand <= (1L << 53)) {
+         // Clinger: both operands are exact, so a single rounding
+         final double d = (power < 0 ? significand / POWERS_OF_TEN[-power] : significand * POWERS_OF_TEN[power]);
+         return (negative ? -d : d);
+      }
+
+      return eiselLemire(negative, significand, power);
+   }
+
+   private static double eiselLemire(final boolean negative, final long significand, final int power)
+   {
+      final long exponent = (((152170L + 65536L) * power) >> 16) + 1024 + 63;
+
+      int lz = Long.numberOfLeadingZeros(significand);
+      final long i = significand << lz;
+
+      final long factorMantissa = MANTISSA_64[power - MIN_POWER];
+      long upper = unsignedMultiplyHigh(i, factorMantissa);
+      long lower = i * factorMantissa;
+
+      // Unless the low 9 bits of the upper word are all ones, the truncation of the
+      // power of ten cannot carry into the leading 55 bits
+      if ((upper & 0x1FF) == 0x1FF && Long.compareUnsigned(lower + i, lower) < 0) {
+         final long factorMantissaLow = MANTISSA_128[power - MIN_POWER];
+         final long productLow = i * factorMantissaLow;
+         final long productMiddle2 = unsignedMultiplyHigh(i, factorMantissaLow);
+         long productHigh = upper;
+         final long productMiddle = lower + productMiddle2;
+         if (Long.compareUnsigned(productMiddle, lower) < 0) {
+            productHigh++;
+         }
+
+         if (productMiddle + 1 == 0 && (productHigh & 0x1FF) == 0x1FF && Long.compareUnsigned(productLow + i, productLow) < 0) {
+            return Double.NaN;
+         }
+
+         upper = productHigh;
+         lower = productMiddle;
+      }
+
+      final long upperBit = upper >>> 63;
+      long mantissa = upper >>> (upperBit + 9);
+      lz += (int) (1 ^ upperBit);
+
+      // Exactly halfway between two doubles, round-to-even needs more precision
+      if (lower == 0 && (upper & 0x1FF) == 0 && (mantissa & 3) == 1) {
+         return Double.NaN;
+      }
+
+      mantissa += 1;
+      mantissa >>>= 1;
+      if (mantissa >= (1L << 53)) {
+         mantissa = (1L << 52);
+         lz--;
+      }
+      mantissa &= ~(1L << 52);
+
+      final long realExponent = exponent - lz;
+      if (realExponent < 1 || realExponent > 2046) {
+         // Subnormal or overflow
+         return Double.NaN;
+      }
+
+      return Double.longBitsToDouble(mantissa | (realExponent << 52) | (negative ? 1L << 63 : 0L));
+   }
+
+   private static long parseIntegralDecimal(final byte[] array, final int offset, final int length)
+   {
+      try {
+         return parseBigDecimal(array, offset, length).longValueExact();
+      }
+      catch (ArithmeticException e) {
+         throw new NumberFormatException("Not a long integer: " + text(array, offset, length));
+      }
+   }
+
+   private static long unsignedMultiplyHigh(final long x, final long y)
+   {
+      final long x0 = x & 0xFFFFFFFFL;
+      final long x1 = x >>> 32;
+      final long y0 = y & 0xFFFFFFFFL;
+      final long y1 = y >>> 32;
+
+      final long p01 = x0 * y1;
+      final long middle = x1 * y0 + ((x0 * y0) >>> 32) + (p01 & 0xFFFFFFFFL);
+      return x1 * y1 + (middle >>> 32) + (p01 >>> 32);
+   }
+
+   private static void setMantissa(final int power, final BigInteger value)
+   {
+      MANTISSA_64[power - MIN_POWER] = value.shiftRight(64).longValue();
+      MANTISSA_128[power - MIN_POWER] = value.longValue();
+   }
+
+   private static String text(final byte[] array, final int offset, final int length)
+   {
+      return new String(array, offset, length, StandardCharsets.ISO_8859_1);
+   }
+
+   private static NumberFormatException invalid(final byte[] array, final int offset, final int length)
+   {
+      return new NumberFormatException("Invalid number: " + text(array, offset, length));
+   }
+}
@@ -1,18 +1,35 @@
 package com.zaxxer.hikari.json.util;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
 
 import com.zaxxer.hikari.json.JsonCollection;
 
 public final class Phield
 {
+   // Instantiated for members declared as an interface or abstract class, the first assignable one is used
+   private static final Class<?>[] COLLECTION_CLASSES = { ArrayList.class, HashSet.class, TreeSet.class, ArrayDeque.class };
+   private static final Class<?>[] MAP_CLASSES = { HashMap.class, TreeMap.class, ConcurrentHashMap.class, ConcurrentSkipListMap.class };
+
    public final Field field;
+   public final String name;
+   public final byte[] nameBytes;
+   public final int nameHash;
    public final Clazz clazz;
    public final Clazz collectionParameterClazz1;
    public final Clazz collectionParameterClazz2;
@@ -21,83 +38,131 @@ public final class Phield
    public final boolean isArray;
    public final boolean isPrimitive;
    public final boolean isIntegralType;
-   public final long fieldOffset;
+   /** Reads and writes this field of a target instance */
+   public final FieldAccess access;
    public final int type;
    public final boolean excluded;
+   public final boolean isCachedValue;
+   /** The constants of the enum type of this member, or of its elements */
+   public final EnumConstants enumConstants;
+   /** The element type of an array or collection, or the value type of a map */
+   public final Class<?> elementClass;
+   public final int elementType;
+   /** The key type of a map */
+   public final Class<?> keyClass;
    @SuppressWarnings("rawtypes")
    public final Class<? extends Collection> collectionClass;
+   /** The class instantiated for the value of a collection or map member */
+   public final Class<?> instanceClass;
 
-   public Phield(final Field field, final boolean excluded) {
+   public Phield(final Field field, final String name, final boolean excluded, final boolean isCachedValue) {
       Class<?> fieldClass = field.getType();
       this.field = field;
+      this.name = name;
+      final byte[] escaped = Utf8Utils.escapedBytes(name);
+      this.nameBytes = new byte[escaped.length + 3];
+      this.nameBytes[0] = '"';
+      System.arraycopy(escaped, 0, nameBytes, 1, escaped.length);
+      this.nameBytes[escaped.length + 1] = '"';
+      this.nameBytes[escaped.length + 2] = ':';
+      this.nameHash = Utf8Utils.hash(escaped, 0, escaped.length);
       this.field.setAccessible(true);
-      this.fieldOffset = UnsafeHelper.getUnsafe().objectFieldOffset(field);
+      this.access = FieldAccess.of(field);
       this.isCollection = Collection.class.isAssignableFrom(fieldClass);
       this.isMap = Map.class.isAssignableFrom(fieldClass);
       this.isArray = fieldClass.isArray();
       this.isPrimitive = fieldClass.isPrimitive() || fieldClass == String.class;
-      this.type = getType(field);
+      this.type = getType(fieldClass);
       this.isIntegralType = (type & Types.INTEGRAL_TYPE) > 0;
       this.excluded = excluded;
-
+      this.isCachedValue = isCachedValue;
       if (isCollection || isMap) {
-         clazz = null;
-
          JsonCollection jsonCollection = field.getAnnotation(JsonCollection.class);
-         collectionClass = (jsonCollection != null ? jsonCollection.collectionClass() : null);
+         if (jsonCollection != null) {
+            collectionClass = jsonCollection.collectionClass();
+            if (!fieldClass.isAssignableFrom(collectionClass)) {
+               throw new RuntimeException("Collection class " + collectionClass.getName() + " cannot be assigned to member \"" + name + "\" of type " + fieldClass.getName());
+            }
+         }
+         else if (isCollection && !fieldClass.isInterface() && !Modifier.isAbstract(fieldClass.getModifiers())) {
+            collectionClass = fieldClass.asSubclass(Collection.class);
+         }
+         else {
+            collectionClass = null;
+         }
 
-         Type genericType = field.getGenericType();
-         if (genericType instanceof ParameterizedType) {
-            Type[] actualTypeArguments = ((ParameterizedType) genericType).getActualTypeArguments();
-            collectionParameterClazz1 = ClassUtils.reflect((Class<?>) actualTypeArguments[0]);
-            collectionParameterClazz2 = (actualTypeArguments.length == 2) ? ClassUtils.reflect((Class<?>) actualTypeArguments[1]) : null;
-            return;
+         if (excluded) {
+            instanceClass = null;
          }
-      }
-      else if (isArray) {
-         clazz = null;
-         collectionClass = null;
-         Type genericType = field.getGenericType();
-         if (genericType instanceof Class<?>) {
-            collectionParameterClazz1 = ClassUtils.reflect((Class<?>) genericType);
-            collectionParameterClazz2 = null;
-            return;
+         else if (isMap) {
+            instanceClass = instanceClass(fieldClass, name, MAP_CLASSES);
+         }
+         else {
+            instanceClass = (collectionClass != null ? collectionClass : instanceClass(fieldClass, name, COLLECTION_CLASSES));
          }
+
+         Type genericType = field.getGenericType();
+         Type[] typeArguments = (genericType instanceof ParameterizedType ? ((ParameterizedType) genericType).getActualTypeArguments() : new Type[0]);
+         keyClass = (isMap && typeArguments.length == 2 ? rawClass(typeArguments[0]) : null);
+         elementClass = (typeArguments.length > 0 ? rawClass(typeArguments[typeArguments.length - 1]) : primitiveElementClass(collectionClass));
+         collectionParameterClazz1 = (typeArguments.length > 0 ? reflectable(rawClass(typeArguments[0])) : null);
+         collectionParameterClazz2 = (typeArguments.length == 2 ? reflectable(rawClass(typeArguments[1])) : null);
+         clazz = null;
       }
-      else if (!fieldClass.getName().startsWith("java.")) {
-         clazz = ClassUtils.reflect(fieldClass);
+      else if (isArray) {
          collectionClass = null;
+         instanceClass = null;
+         keyClass = null;
+         elementClass = fieldClass.getComponentType();
+         collectionParameterClazz1 = reflectable(elementClass);
+         collectionParameterClazz2 = null;
+         clazz = null;
       }
       else {
          collectionClass = null;
-         clazz = null;
+         instanceClass = null;
+         keyClass = null;
+         elementClass = null;
+         collectionParameterClazz1 = null;
+         collectionParameterClazz2 = null;
+         clazz = reflectable(fieldClass);
       }
 
-      collectionParameterClazz1 = null;
-      collectionParameterClazz2 = null;
+      this.elementType = (elementClass != null ? getType(wrapperToPrimitive(elementClass)) : Types.OBJECT);
+      final Class<?> enumClass = (elementClass != null ? elementClass : fieldClass);
+      this.enumConstants = (enumClass.isEnum() ? EnumConstants.of(enumClass) : null);
    }
 
-   public Object newInstance(final Object... override) throws InstantiationException, IllegalAccessException
+   public Object newInstance(final Object... override)
    {
       if (clazz != null) {
          return clazz.newInstance();
       }
-      else if (isCollection || isArray) {
-         if (override.length > 0) {
-            return ((Class<?>) override[0]).newInstance();
-         }
-         else if (collectionClass != null) {
-            return collectionClass.newInstance();
-         }
-         else {
-            return new ArrayList<Object>();
-         }
+      else if (override.length > 0) {
+         return Instantiators.of((Class<?>) override[0]).get();
+      }
+      else if (isCollection || isMap) {
+         return Instantiators.of(instanceClass).get();
       }
-      else if (isMap) {
-         return new HashMap<Object, Object>();
+      else if (isArray) {
+         return new ArrayList<Object>();
       }
 
-      return field.getType().newInstance();
+      return Instantiators.of(field.getType()).get();
+   }
+
+   /**
+    * Compare the member name, as it appears between the quotes of a document, with
+    * the name of this field.
+    *
+    * @param bytes the array holding the member name
+    * @param offset the index of the first byte of the name
+    * @param length the length of the name in bytes
+    * @return true if the names are equal
+    */
+   public boolean nameEquals(final byte[] bytes, final int offset, final int length)
+   {
+      return length == nameBytes.length - 3 && Utf8Utils.regionEquals(bytes, offset, nameBytes, 1, length);
    }
 
    public Clazz getCollectionParameterClazz1()
@@ -110,9 +175,119 @@ public final class Phield
       return collectionParameterClazz2;
    }
 
-   private int getType(Field field)
+   /**
+    * Get the class metadata of the elements of an array or collection, or of the
+    * values of a map.
+    *
+    * @return the metadata, or null if the element type is not a bean class
+    */
+   public Clazz getElementClazz()
+   {
+      return (isMap ? collectionParameterClazz2 : collectionParameterClazz1);
+   }
+
+   /**
+    * Choose the class instantiated for a member: the declared class if it is
+    * concrete, otherwise the first of the defaults that can be assigned to it.
+    *
+    * @param fieldClass the declared class of the member
+    * @param name the name of the member
+    * @param defaults the classes to choose from for an interface or abstract class
+    * @return the class to instantiate
+    */
+   private static Class<?> instanceClass(final Class<?> fieldClass, final String name, final Class<?>[] defaults)
+   {
+      if (!fieldClass.isInterface() && !Modifier.isAbstract(fieldClass.getModifiers())) {
+         return fieldClass;
+      }
+
+      for (Class<?> defaultClass : defaults) {
+         if (fieldClass.isAssignableFrom(defaultClass)) {
+            return defaultClass;
+         }
+      }
+
+      throw new RuntimeException("Unsupported type " + fieldClass.getName() + " for member \"" + name + "\", declare a concrete class");
+   }
+
+   private static Clazz reflectable(final Class<?> type)
+   {
+      if (type.isPrimitive() || type.isArray() || type.isEnum() || type.isInterface() || type.getName().startsWith("java.")) {
+         return null;
+      }
+
+      return ClassUtils.reflect(type);
+   }
+
+   private static Class<?> rawClass(final Type type)
+   {
+      if (type instanceof Class) {
+         return (Class<?>) type;
+      }
+      else if (type instanceof ParameterizedType) {
+         return (Class<?>) ((ParameterizedType) type).getRawType();
+      }
+
+      return Object.class;
+   }
+
+   /**
+    * Get the element class implied by a collection class that accepts primitive
+    * values, for collection members declared without type arguments.
+    *
+    * @param collectionClass the collection class, or null
+    * @return the wrapper class of the primitive accepted, or Object.class
+    */
+   private static Class<?> primitiveElementClass(final Class<?> collectionClass)
+   {
+      if (collectionClass == null) {
+         return Object.class;
+      }
+      else if (IntConsumer.class.isAssignableFrom(collectionClass)) {
+         return Integer.class;
+      }
+      else if (LongConsumer.class.isAssignableFrom(collectionClass)) {
+         return Long.class;
+      }
+      else if (DoubleConsumer.class.isAssignableFrom(collectionClass)) {
+         return Double.class;
+      }
+
+      return Object.class;
+   }
+
+   private static Class<?> wrapperToPrimitive(final Class<?> type)
+   {
+      if (type == Integer.class) {
+         return int.class;
+      }
+      else if (type == Long.class) {
+         return long.class;
+      }
+      else if (type == Double.class) {
+         return double.class;
+      }
+      else if (type == Float.class) {
+         return float.class;
+      }
+      else if (type == Short.class) {
+         return short.class;
+      }
+      else if (type == Byte.class) {
+         return byte.class;
+      }
+      else if (type == Character.class) {
+         return char.class;
+      }
+      else if (type == Boolean.class) {
+         return boolean.class;
+      }
+
+      return type;
+   }
+
+   private static int getType(final Class<?> type)
    {
-      Class<?> type = field.getType();
       if (type == byte.class) {
          return Types.BYTE;
       }
@@ -143,6 +318,21 @@ public final class Phield
       else if (type == java.util.Date.class) {
          return Types.DATE;
       }
+      else if (type == java.math.BigDecimal.class) {
+         return Types.BIGDECIMAL;
+      }
+      else if (type == java.math.BigInteger.class) {
+         return Types.BIGINTEGER;
+      }
+      else if (type == java.time.Instant.class) {
+         return Types.INSTANT;
+      }
+      else if (type == java.time.OffsetDateTime.class) {
+         return Types.OFFSETDATETIME;
+      }
+      else if (type == java.time.LocalDate.class) {
+         return Types.LOCALDATE;
+      }
       else if (type.isEnum()) {
          return Types.ENUM;
       }
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json.util;
+
+import java.util.Arrays;
+
+/**
+ * A bounded cache of string values keyed by their bytes as they appear in a
+ * document, so that repeated values share a single {@link String} instance.  The
+ * cache is direct-mapped: each hash selects one slot, and a miss replaces whatever
+ * the slot held.  It is not thread-safe; each parser owns its own cache.
+ *
+ * @author Brett Wooldridge
+ */
+public final class StringCache
+{
+   /** Values longer than this many bytes are not cached */
+   public static final int MAX_LENGTH = 64;
+
+   private static final int SLOTS = 1024;
+
+   private final int[] hashes;
+   private final byte[][] keys;
+   private final String[] values;
+
+   public StringCache()
+   {
+      hashes = new int[SLOTS];
+      keys = new byte[SLOTS][];
+      values = new String[SLOTS];
+   }
+
+   /**
+    * Get the cached string for the specified bytes.
+    *
+    * @param hash the hash of the bytes, as computed by {@link Utf8Utils#hash}
+    * @param bytes the array holding the value
+    * @param offset the index of the first byte of the value
+    * @param length the length of the value in bytes
+    * @return the cached string, or null if the value is not cached
+    */
+   public String get(final int hash, final byte[] bytes, final int offset, final int length)
+   {
+      final int slot = slot(hash);
+      final byte[] key = keys[slot];
+      if (key != null && hashes[slot] == hash && key.length == length && Utf8Utils.regionEquals(bytes, offset, key, 0, length)) {
+         return values[slot];
+      }
+
+      return null;
+   }
+
+   /**
+    * Cache the string for the specified bytes, replacing the value in its slot.
+    *
+    * @param hash the hash of the bytes, as computed by {@link Utf8Utils#hash}
+    * @param bytes the array holding the value
+    * @param offset the index of the first byte of the value
+    * @param length the length of the value in bytes
+    * @param value the decoded string
+    */
+   public void put(final int hash, final byte[] bytes, final int offset, final int length, final String value)
+   {
+      final int slot = slot(hash);
+      hashes[slot] = hash;
+      keys[slot] = Arrays.copyOfRange(bytes, offset, offset + length);
+      values[slot] = value;
+   }
+
+   private static int slot(final int hash)
+   {
+      return (hash ^ (hash >>> 16)) & (SLOTS - 1);
+   }
+}
@@ -20,6 +20,22 @@ public class Types
    public static final int OBJECT  = 0b0100_0;
    public static final int DATE    = 0b0101_0;
    public static final int ENUM    = 0b0110_0;
+   public static final int BIGDECIMAL = 0b0111_0;
+   public static final int BIGINTEGER = 0b1000_0;
+   public static final int INSTANT = 0b1001_0;
+   public static final int OFFSETDATETIME = 0b1010_0;
+   public static final int LOCALDATE = 0b1011_0;
 
    public static final int INTEGRAL_TYPE = 0b1;
+
+   /**
+    * Determine whether the type is one of the date types parsed by {@link IsoDateParser}.
+    *
+    * @param type the type
+    * @return true for {@link #DATE}, {@link #INSTANT}, {@link #OFFSETDATETIME} and {@link #LOCALDATE}
+    */
+   public static boolean isDate(final int type)
+   {
+      return type == DATE || (type >= INSTANT && type <= LOCALDATE);
+   }
 }
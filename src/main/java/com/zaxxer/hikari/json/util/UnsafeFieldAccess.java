@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2015 Brett Wooldridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaxxer.hikari.json.util;
+
+import java.lang.reflect.Field;
+
+import sun.misc.Unsafe;
+
+/**
+ * {@link FieldAccess} through <code>sun.misc.Unsafe</code> field offsets.
+ *
+ * @author Brett Wooldridge
+ */
+final class UnsafeFieldAccess extends FieldAccess
+{
+   private static final Unsafe UNSAFE = UnsafeHelper.getUnsafe();
+
+   private final long offset;
+
+   UnsafeFieldAccess(final Field field)
+   {
+      if (UNSAFE == null) {
+         throw new RuntimeException("sun.misc.Unsafe is not available");
+      }
+      this.offset = UNSAFE.objectFieldOffset(field);
+   }
+
+   @Override
+   public int getInt(final Object target)
+   {
+      return UNSAFE.getInt(target, offset);
+   }
+
+   @Override
+   public long getLong(final Object target)
+   {
+      return UNSAFE.getLong(target, offset);
+   }
+
+   @Override
+   public short getShort(final Object target)
+   {
+      return UNSAFE.getShort(target, offset);
+   }
+
+   @Override
+   public byte getByte(final Object target)
+   {
+      return UNSAFE.getByte(target, offset);
+   }
+
+   @Override
+   public char getChar(final Object target)
+   {
+      return UNSAFE.getChar(target, offset);
+   }
+
+   @Override
+   public boolean getBoolean(final Object target)
+   {
+      return UNSAFE.getBoolean(target, offset);
+   }
+
+   @Override
+   public double getDouble(final Object target)
+   {
+      return UNSAFE.getDouble(target, offset);
+   }
+
+   @Override
+   public float getFloat(final Object target)
+   {
+      return UNSAFE.getFloat(target, offset);
+   }
+
+   @Override
+   public Object getObject(final Object target)
+   {
+      return UNSAFE.getObject(target, offset);
+   }
+
+   @Override
+   public void putInt(final Object target, final int value)
+   {
+      UNSAFE.putInt(target, offset, value);
+   }
+
+   @Override
+   public void putLong(final Object target, final long value)
+   {
+      UNSAFE.putLong(target, offset, value);
+   }
+
+   @Override
+   public void putShort(final Object target, final short value)
+   {
+      UNSAFE.putShort(target, offset, value);
+   }
+
+   @Override
+   public void putByte(final Object target, final byte value)
+   {
+      UNSAFE.putByte(target, offset, value);
+   }
+
+   @Override
+   public void putChar(final Object target, final char value)
+   {
+      UNSAFE.putChar(target, offset, value);
+   }
+
+   @Override
+   public void putBoolean(final Object target, final boolean value)
+   {
+      UNSAFE.putBoolean(target, offset, value);
+   }
+
+   @Override
+   public void putDouble(final Object target, final double value)
+   {
+      UNSAFE.putDouble(target, offset, value);
+   }
+
+   @Override
+   public void putFloat(final Object target, final float value)
+   {
+      UNSAFE.putFloat(target, offset, value);
+   }
+
+   @Override
+   public void putObject(final Object target, final Object value)
+   {
+      UNSAFE.putObject(target, offset, value);
+   }
+}
@@ -20,45 +20,103 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.nio.ByteBuffer;
 
+import org.slf4j.LoggerFactory;
+
 import sun.misc.Unsafe;
 
+/**
+ * Access to <code>sun.misc.Unsafe</code> and the <code>DirectByteBuffer</code>
+ * internals.  Everything here degrades gracefully on JDKs that deny the access:
+ * {@link #getUnsafe()} returns null, and the buffer methods throw when called.
+ */
 public final class UnsafeHelper
 {
    private static final Unsafe UNSAFE;
-   private static Constructor<?> DIRECT_BYTEBUFFER_CONSTRUCTOR;
-   private static long ADDRESS_FIELD_OFFSET;
+   private static final Constructor<?> DIRECT_BYTEBUFFER_CONSTRUCTOR;
+   private static final long ADDRESS_FIELD_OFFSET;
+   private static final long BYTE_ARRAY_OFFSET;
 
    static {
+      Unsafe unsafe = null;
       try {
          Field f = Unsafe.class.getDeclaredField("theUnsafe");
          f.setAccessible(true);
-         UNSAFE = (Unsafe) f.get(null);
+         unsafe = (Unsafe) f.get(null);
       }
-      catch (Exception e) {
-         throw new RuntimeException("Unable to obtain reference to sun.misc.Unsafe", e);
+      catch (Exception | LinkageError e) {
+         LoggerFactory.getLogger(UnsafeHelper.class).debug("Unable to obtain reference to sun.misc.Unsafe", e);
       }
+      UNSAFE = unsafe;
+      BYTE_ARRAY_OFFSET = (unsafe != null ? unsafe.arrayBaseOffset(byte[].class) : -1);
 
+      Constructor<?> constructor = null;
+      long addressOffset = -1;
       try {
+         // Requires --add-opens java.base/java.nio=ALL-UNNAMED on JDK 16 and later
          Class<?> clazz = Class.forName("java.nio.DirectByteBuffer");
-         DIRECT_BYTEBUFFER_CONSTRUCTOR = clazz.getDeclaredConstructor(long.class, int.class);
-         DIRECT_BYTEBUFFER_CONSTRUCTOR.setAccessible(true);
+         constructor = clazz.getDeclaredConstructor(long.class, int.class);
+         constructor.setAccessible(true);
 
          clazz = Class.forName("java.nio.Buffer");
          Field addressField = clazz.getDeclaredField("address");
-         ADDRESS_FIELD_OFFSET = UNSAFE.objectFieldOffset(addressField);
+         addressOffset = (UNSAFE != null ? UNSAFE.objectFieldOffset(addressField) : -1);
       }
       catch (Exception e) {
-         throw new RuntimeException("Unable to obtain reference to java.nio.DirectByteBuffer constructor", e);
+         constructor = null;
       }
+      DIRECT_BYTEBUFFER_CONSTRUCTOR = constructor;
+      ADDRESS_FIELD_OFFSET = addressOffset;
+   }
+
+   private UnsafeHelper()
+   {
+      // utility class
    }
 
+   /**
+    * Get the <code>sun.misc.Unsafe</code> instance.
+    *
+    * @return the instance, or null if it is not available
+    */
    public static Unsafe getUnsafe()
    {
       return UNSAFE;
    }
 
+   /**
+    * Read the eight bytes of an array at the specified index as a word in native
+    * byte order.  Only valid if {@link #getUnsafe()} is not null; classes that must
+    * load without <code>sun.misc.Unsafe</code> read words through this method rather
+    * than referencing Unsafe themselves.
+    *
+    * @param array the array
+    * @param index the index of the first byte
+    * @return the word
+    */
+   public static long getLong(final byte[] array, final int index)
+   {
+      return UNSAFE.getLong(array, BYTE_ARRAY_OFFSET + index);
+   }
+
+   /**
+    * Allocate an instance of a class without running any constructor.  Only valid
+    * if {@link #getUnsafe()} is not null.
+    *
+    * @param type the class to allocate
+    * @return the uninitialized instance
+    * @throws InstantiationException if the class cannot be allocated
+    */
+   public static Object allocateInstance(final Class<?> type) throws InstantiationException
+   {
+      return UNSAFE.allocateInstance(type);
+   }
+
    public static ByteBuffer wrapNativeMemory(long address, int capacity)
    {
+      if (DIRECT_BYTEBUFFER_CONSTRUCTOR == null) {
+         throw new RuntimeException("Unable to obtain reference to java.nio.DirectByteBuffer constructor");
+      }
+
       try {
          return (ByteBuffer) DIRECT_BYTEBUFFER_CONSTRUCTOR.newInstance(new Object[] { address, capacity });
       }
@@ -69,6 +127,10 @@ public final class UnsafeHelper
 
    public static long getDirectByteBufferAddress(ByteBuffer byteBuffer)
    {
+      if (ADDRESS_FIELD_OFFSET < 0) {
+         throw new RuntimeException("Unable to obtain offset of java.nio.Buffer.address");
+      }
+
       return UNSAFE.getLong(byteBuffer, ADDRESS_FIELD_OFFSET);
    }
-}
\ No newline at end of file
+}
@@ -1,66 +1,327 @@
 package com.zaxxer.hikari.json.util;
 
-import java.lang.reflect.Field;
-
-import sun.misc.Unsafe;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 
 public final class Utf8Utils
 {
-   private static final Unsafe unsafe;
-   private static final long fieldOffset;
+   // Word reads go through Unsafe only if it is the selected field access backend, and
+   // only by way of UnsafeHelper, so that this class loads where Unsafe is absent
+   private static final boolean UNSAFE_WORDS = FieldAccess.isUnsafe();
+   private static final boolean LITTLE_ENDIAN = (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN);
 
-   static
-   {
-      unsafe = UnsafeHelper.getUnsafe();
-      try {
-         Field valueField = String.class.getDeclaredField("value");
-         fieldOffset = unsafe.objectFieldOffset(valueField);
-      }
-      catch (NoSuchFieldException | SecurityException e) {
-         throw new RuntimeException("sun.misc.Unsafe not available");
-      }
-   }
+   private static final long LOW_BITS = 0x7f7f7f7f7f7f7f7fL;
+   private static final long HIGH_BITS = 0x8080808080808080L;
+   private static final long QUOTES = 0x2222222222222222L;
+   private static final long BACKSLASHES = 0x5c5c5c5c5c5c5c5cL;
+   private static final long SPACES = 0x2020202020202020L;
+   private static final long TABS = 0x0909090909090909L;
+   private static final long NEWLINES = 0x0a0a0a0a0a0a0a0aL;
+   private static final long RETURNS = 0x0d0d0d0d0d0d0d0dL;
+   // Adding this to the low seven bits of a byte sets its high bit if it is >= 0x20
+   private static final long CONTROL_BIAS = 0x6060606060606060L;
 
    private Utf8Utils() {
       // utility class
    }
 
-   public static int findEndQuote(final byte[] array, int index)
+   /**
+    * Find the closing quote of a string whose content begins at <code>index</code>,
+    * skipping escaped characters.  The content is scanned a word at a time.
+    *
+    * @param array the array to scan
+    * @param index the index following the opening quote, or a resume index
+    * @param limit the index following the last available byte
+    * @param escapeDetected set to true if an escape sequence is scanned, or null
+    * @return the index of the closing quote, or if the data ran out, the complement
+    *         (<code>~</code>) of the index at which scanning must resume once more
+    *         data has been appended
+    */
+   public static int findEndQuote(final byte[] array, final int index, final int limit, final MutableBoolean escapeDetected)
+   {
+      return findEndQuote(array, index, limit, escapeDetected, false);
+   }
+
+   /**
+    * Find the closing quote of a string as {@link #findEndQuote}, additionally
+    * detecting whether the content must be passed through {@link #decode}.
+    *
+    * @param array the array to scan
+    * @param index the index following the opening quote, or a resume index
+    * @param limit the index following the last available byte
+    * @param decodeRequired set to true if an escape sequence or a non-ASCII byte is scanned
+    * @return the index of the closing quote, or the complement of the resume index
+    */
+   public static int findEndQuoteUTF8(final byte[] array, final int index, final int limit, final MutableBoolean decodeRequired)
+   {
+      return findEndQuote(array, index, limit, decodeRequired, true);
+   }
+
+   private static int findEndQuote(final byte[] array, int index, final int limit, final MutableBoolean flag, final boolean detectNonAscii)
    {
-      for (; index < array.length; index++) {
-         if (array[index] == 0x22 /* quote */ && array[index - 1] != 0x5c /* backslash */) {
+      do {
+         index = findSpecial(array, index, limit, (detectNonAscii ? flag : null));
+         if (index == limit) {
+            return ~limit;
+         }
+
+         final int b = array[index];
+         if (b == 0x22 /* quote */) {
             return index;
          }
-      }
+         else if (b != 0x5c /* backslash */) {
+            throw new RuntimeException("Unescaped control character in string at offset " + index);
+         }
+         else if (index + 1 == limit) {
+            // The escaped character has not arrived yet, resume at the backslash
+            return ~index;
+         }
 
-      return -1; // we ran out of data
+         if (flag != null) {
+            flag.bool = true;
+         }
+         index += 2;
+      } while (true);
    }
 
-   public static int findEndQuoteAndHash(final byte[] array, int index, final MutableInteger hash)
+   /**
+    * Find the next quote, backslash or control byte in a string, scanning a word at
+    * a time.
+    *
+    * @param array the array to scan
+    * @param index the index to start scanning at
+    * @param limit the index following the last available byte
+    * @param utf8Detected set to true if a non-ASCII byte is scanned, or null
+    * @return the index of the byte, or <code>limit</code> if there is none
+    */
+   public static int findSpecial(final byte[] array, int index, final int limit, final MutableBoolean utf8Detected)
    {
-      for (;index < array.length; index++) {
-         final int c = array[index];
-         if (c == 0x22 /* quote */ && array[index - 1] != 0x5c /* backslash */) {
+      final boolean detect = (utf8Detected != null && !utf8Detected.bool);
+      long nonAscii = 0;
+      for (final int wordLimit = limit - 8; index <= wordLimit; index += 8) {
+         final long word = readWord(array, index);
+         final long mask = zeroBytes(word ^ QUOTES) | zeroBytes(word ^ BACKSLASHES) | (~((word & LOW_BITS) + CONTROL_BIAS) & ~word & HIGH_BITS);
+         if (mask != 0) {
+            // Locate the byte, and any non-ASCII bytes before it, with the byte loop
+            break;
+         }
+         nonAscii |= word & HIGH_BITS;
+      }
+
+      if (detect && nonAscii != 0) {
+         utf8Detected.bool = true;
+      }
+
+      for (; index < limit; index++) {
+         final int b = array[index];
+         if (b == 0x22 /* quote */ || b == 0x5c /* backslash */ || (b >= 0 && b < 0x20)) {
             return index;
          }
-         hash.value = 31 * hash.value + c;
+         else if (b < 0 && detect) {
+            utf8Detected.bool = true;
+         }
       }
 
-      return -1; // we ran out of data
+      return limit;
    }
 
-   public static int findEndQuoteUTF8(final byte[] array, int index, final MutableBoolean utf8Detected)
+   /**
+    * Skip JSON whitespace, scanning a word at a time.  Only space, tab, newline and
+    * carriage return are skipped, as in the push parser; any other control character
+    * ends the run and is left for the caller to reject.
+    *
+    * @param array the array to scan
+    * @param index the index to start scanning at
+    * @param limit the index following the last available byte
+    * @return the index of the first byte that is not whitespace, or <code>limit</code>
+    */
+   public static int skipWhitespace(final byte[] array, int index, final int limit)
    {
-      for (; index < array.length; index++) {
-         if (array[index] == 0x22 /* quote */ && array[index - 1] != 0x5c /* backslash */) {
+      // Most whitespace runs are short, so only switch to words if the first byte is blank
+      if (index < limit && !isWhitespace(array[index])) {
+         return index;
+      }
+
+      for (final int wordLimit = limit - 8; index <= wordLimit; index += 8) {
+         final long word = readWord(array, index);
+         final long mask = ~(zeroBytes(word ^ SPACES) | zeroBytes(word ^ TABS) | zeroBytes(word ^ NEWLINES) | zeroBytes(word ^ RETURNS)) & HIGH_BITS;
+         if (mask != 0) {
+            return index + firstByte(mask);
+         }
+      }
+
+      for (; index < limit; index++) {
+         if (!isWhitespace(array[index])) {
             return index;
          }
-         else if (array[index] < 0 && !utf8Detected.bool) {
-            utf8Detected.bool = true;
+      }
+
+      return limit;
+   }
+
+   private static boolean isWhitespace(final byte b)
+   {
+      return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+   }
+
+   /**
+    * Hash a member name by accumulating <code>31 * hash + byte</code> over its bytes.
+    *
+    * @param array the array holding the name bytes, as they appear between the quotes
+    * @param index the index of the first byte
+    * @param limit the index following the last byte
+    * @return the hash
+    */
+   public static int hash(final byte[] array, int index, final int limit)
+   {
+      int hash = 0;
+      for (; index < limit; index++) {
+         hash = 31 * hash + array[index];
+      }
+
+      return hash;
+   }
+
+   /**
+    * Get the UTF-8 bytes of a member name as they appear between the quotes of a
+    * JSON document, with quotes and backslashes escaped.
+    *
+    * @param name the member name
+    * @return the escaped UTF-8 bytes
+    */
+   public static byte[] escapedBytes(final String name)
+   {
+      return name.replace("\\", "\\\\").replace("\"", "\\\"").getBytes(StandardCharsets.UTF_8);
+   }
+
+   public static boolean regionEquals(final byte[] a, final int aIndex, final byte[] b, final int bIndex, final int length)
+   {
+      for (int i = 0; i < length; i++) {
+         if (a[aIndex + i] != b[bIndex + i]) {
+            return false;
+         }
+      }
+
+      return true;
+   }
+
+   /**
+    * Decode the content of a JSON string in a single pass, expanding escape
+    * sequences (including <code>\\uXXXX</code> surrogate pairs) and decoding and
+    * validating UTF-8.  The content never decodes to more chars than it has bytes.
+    *
+    * @param array the array holding the content, as it appears between the quotes
+    * @param index the index of the first byte
+    * @param limit the index following the last byte
+    * @param chars the array to decode into, at least <code>limit - index</code> long
+    * @return the number of chars decoded
+    */
+   public static int decode(final byte[] array, int index, final int limit, final char[] chars)
+   {
+      int length = 0;
+      while (index < limit) {
+         final int b = array[index++];
+         if (b >= 0) {
+            if (b != 0x5c /* backslash */) {
+               chars[length++] = (char) b;
+               continue;
+            }
+
+            if (index == limit) {
+               throw malformed("Truncated escape sequence", array, index - 1);
+            }
+
+            final int e = array[index++];
+            switch (e) {
+            case '"':
+            case '\\':
+            case '/':
+               chars[length++] = (char) e;
+               break;
+            case 'b':
+               chars[length++] = '\b';
+               break;
+            case 'f':
+               chars[length++] = '\f';
+               break;
+            case 'n':
+               chars[length++] = '\n';
+               break;
+            case 'r':
+               chars[length++] = '\r';
+               break;
+            case 't':
+               chars[length++] = '\t';
+               break;
+            case 'u':
+               if (index + 4 > limit) {
+                  throw malformed("Truncated escape sequence", array, index - 2);
+               }
+               // Surrogate pairs arrive as two consecutive escapes, and are stored as-is
+               chars[length++] = (char) ((hexValue(array, index) << 12) | (hexValue(array, index + 1) << 8) | (hexValue(array, index + 2) << 4) | hexValue(array, index + 3));
+               index += 4;
+               break;
+            default:
+               throw malformed("Invalid escape sequence", array, index - 2);
+            }
          }
+         else if (b >= (byte) 0xc2 && b <= (byte) 0xdf) {
+            chars[length++] = (char) (((b & 0x1f) << 6) | continuation(array, index++, limit, 0x80, 0xbf));
+         }
+         else if (b >= (byte) 0xe0 && b <= (byte) 0xef) {
+            // Exclude overlong encodings (E0) and encoded surrogates (ED)
+            final int min = (b == (byte) 0xe0 ? 0xa0 : 0x80);
+            final int max = (b == (byte) 0xed ? 0x9f : 0xbf);
+            final int c1 = continuation(array, index++, limit, min, max);
+            chars[length++] = (char) (((b & 0x0f) << 12) | (c1 << 6) | continuation(array, index++, limit, 0x80, 0xbf));
+         }
+         else if (b >= (byte) 0xf0 && b <= (byte) 0xf4) {
+            // Exclude overlong encodings (F0) and code points above U+10FFFF (F4)
+            final int min = (b == (byte) 0xf0 ? 0x90 : 0x80);
+            final int max = (b == (byte) 0xf4 ? 0x8f : 0xbf);
+            final int c1 = continuation(array, index++, limit, min, max);
+            final int c2 = continuation(array, index++, limit, 0x80, 0xbf);
+            final int codePoint = ((b & 0x07) << 18) | (c1 << 12) | (c2 << 6) | continuation(array, index++, limit, 0x80, 0xbf);
+            chars[length++] = Character.highSurrogate(codePoint);
+            chars[length++] = Character.lowSurrogate(codePoint);
+         }
+         else {
+            throw malformed("Malformed UTF-8", array, index - 1);
+         }
+      }
+
+      return length;
+   }
+
+   private static int continuation(final byte[] array, final int index, final int limit, final int min, final int max)
+   {
+      final int b = (index < limit ? array[index] & 0xff : -1);
+      if (b < min || b > max) {
+         throw malformed("Malformed UTF-8", array, index);
+      }
+
+      return b & 0x3f;
+   }
+
+   private static int hexValue(final byte[] array, final int index)
+   {
+      final int b = array[index];
+      if (b >= '0' && b <= '9') {
+         return b - '0';
+      }
+      else if (b >= 'a' && b <= 'f') {
+         return b - 'a' + 10;
+      }
+      else if (b >= 'A' && b <= 'F') {
+         return b - 'A' + 10;
       }
 
-      return -1; // we ran out of data
+      throw malformed("Invalid escape sequence", array, index);
+   }
+
+   private static RuntimeException malformed(final String message, final byte[] array, final int index)
+   {
+      return new RuntimeException(message + " in string at offset " + index);
    }
 
    public static int seekBackUtf8Boundary(final byte[] array, int index)
@@ -78,15 +339,39 @@ public final class Utf8Utils
       return 0;
    }
 
-   public static String fastTrackAsciiDecode(final byte[] buf, final int offset, final int length)
+   /**
+    * Read the eight bytes at <code>index</code> as a word in native byte order.
+    */
+   private static long readWord(final byte[] array, final int index)
    {
-//      final char[] chars = new char[length];
-//      for (int i = 0; i < length; i++) {
-//         chars[i] = (char) buf[offset + i];
-//      }
+      if (UNSAFE_WORDS) {
+         return UnsafeHelper.getLong(array, index);
+      }
 
-      final String s = new String(buf, 0, offset, length);
-      // unsafe.putObject(s, fieldOffset, chars);
-      return s;
+      final long word = (array[index] & 0xffL) | (array[index + 1] & 0xffL) << 8 | (array[index + 2] & 0xffL) << 16 | (array[index + 3] & 0xffL) << 24
+                        | (array[index + 4] & 0xffL) << 32 | (array[index + 5] & 0xffL) << 40 | (array[index + 6] & 0xffL) << 48 | (array[index + 7] & 0xffL) << 56;
+      return (LITTLE_ENDIAN ? word : Long.reverseBytes(word));
+   }
+
+   /**
+    * Set the high bit of exactly those bytes of the word that are zero.
+    */
+   private static long zeroBytes(final long word)
+   {
+      return ~(((word & LOW_BITS) + LOW_BITS) | word | LOW_BITS);
+   }
+
+   /**
+    * Get the offset in memory order of the first byte of the word whose high bit is set.
+    */
+   private static int firstByte(final long mask)
+   {
+      return (LITTLE_ENDIAN ? Long.numberOfTrailingZeros(mask) : Long.numberOfLeadingZeros(mask)) >>> 3;
+   }
+
+   public static String fastTrackAsciiDecode(final byte[] buf, final int offset, final int length)
+   {
+      // The deprecated high-byte constructor builds the string from the bytes directly, without reflecting into String
+      return new String(buf, 0, offset, length);
    }
 }
@@ -0,0 +1,158 @@
+package com.zaxxer.hikari.json;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.zaxxer.hikari.json.JsonFactory.Option;
+import com.zaxxer.hikari.json.util.NumberUtils;
+
+public class TestNumbers
+{
+   @Test
+   public void testDoubleEdgeCases()
+   {
+      String[] numbers = { "0", "-0", "0.0", "1", "-1", "0.1", "1.1", "1.2", "3.141592653589793", "1e23", "8.41e21",
+                           "7.3177701707893310e+15", "7.2057594037927933e+16", "9007199254740993", "9007199254740992.5",
+                           "2.2250738585072011e-308", "2.2250738585072014E-308", "4.9e-324", "2.4703282292062327e-324",
+                           "1.7976931348623157e308", "1.7976931348623159e308", "1e400", "-1e400", "1e-400",
+                           "123456789012345678901234567890", "0.000000000000000000000000000123456789012345678901234567890",
+                           "1.00000000000000011102230246251565404236316680908203125",
+                           "1.00000000000000011102230246251565404236316680908203124",
+                           "1.00000000000000011102230246251565404236316680908203126",
+                           "9999999999999999999", "18446744073709551615", "18446744073709551616e-20" };
+
+      for (String number : numbers) {
+         Assert.assertEquals(number, Double.doubleToLongBits(Double.parseDouble(number)), Double.doubleToLongBits(parseDouble(number)));
+      }
+   }
+
+   @Test
+   public void testDoubleRandom()
+   {
+      Random random = new Random(42);
+      for (int n = 0; n < 200_000; n++) {
+         StringBuilder sb = new StringBuilder();
+         if (random.nextBoolean()) {
+            sb.append('-');
+         }
+
+         int digits = 1 + random.nextInt(n % 4 == 0 ? 30 : 17);
+         int point = random.nextInt(digits + 1);
+         for (int i = 0; i < digits; i++) {
+            if (i == point && i > 0) {
+               sb.append('.');
+            }
+            sb.append((char) ('0' + (i == 0 && digits > 1 && point != 1 ? 1 + random.nextInt(9) : random.nextInt(10))));
+         }
+
+         if (random.nextBoolean()) {
+            sb.append(random.nextBoolean() ? 'e' : 'E').append(random.nextInt(660) - 330);
+         }
+
+         String number = sb.toString();
+         Assert.assertEquals(number, Double.doubleToLongBits(Double.parseDouble(number)), Double.doubleToLongBits(parseDouble(number)));
+      }
+
+      for (int n = 0; n < 100_000; n++) {
+         double d = Double.longBitsToDouble(random.nextLong());
+         if (!Double.isNaN(d) && !Double.isInfinite(d)) {
+            String number = Double.toString(d);
+            Assert.assertEquals(number, Double.doubleToLongBits(d), Double.doubleToLongBits(parseDouble(number)));
+         }
+      }
+   }
+
+   @Test
+   public void testIntegers()
+   {
+      Assert.assertEquals(Long.MAX_VALUE, parseLong(Long.toString(Long.MAX_VALUE)));
+      Assert.assertEquals(Long.MIN_VALUE, parseLong(Long.toString(Long.MIN_VALUE)));
+      Assert.assertEquals(-42, parseLong("-42"));
+      Assert.assertEquals(1000, parseLong("1e3"));
+      Assert.assertEquals(12, parseLong("12.0"));
+
+      for (String number : new String[] { "9223372036854775808", "-9223372036854775809", "99999999999999999999", "1.5", "-", "1-2" }) {
+         try {
+            parseLong(number);
+            Assert.fail(number);
+         }
+         catch (NumberFormatException e) {
+            // expected
+         }
+      }
+   }
+
+   @Test
+   public void testNumberFields() throws Exception
+   {
+      String json = "{\"myInt\": 2147483647, \"myDouble\": 0.30000000000000004, \"myFloat\": 1.1, \"price\": 12345678901234567890.123456789, "
+                  + "\"count\": -123456789012345678901234567890, \"myLong\": -9223372036854775808, \"missing\": null}";
+      byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+
+      for (ObjectMapper objectMapper : new ObjectMapper[] { JsonFactory.create(), JsonFactory.option(Option.GENERATED_ACCESS).create() }) {
+         Numbers numbers = objectMapper.readValue(bytes, Numbers.class);
+         Assert.assertEquals(Integer.MAX_VALUE, numbers.myInt);
+         Assert.assertTrue(numbers.myDouble == 0.30000000000000004);
+         Assert.assertTrue(numbers.myFloat == 1.1f);
+         Assert.assertEquals(new BigDecimal("12345678901234567890.123456789"), numbers.price);
+         Assert.assertEquals(new BigInteger("-123456789012345678901234567890"), numbers.count);
+         Assert.assertEquals(Long.MIN_VALUE, numbers.myLong);
+         Assert.assertNull(numbers.missing);
+
+         PushParser<Numbers> parser = objectMapper.createPushParser(Numbers.class);
+         for (byte b : bytes) {
+            parser.feed(new byte[] { b }, 0, 1);
+         }
+         Assert.assertEquals(new BigDecimal("12345678901234567890.123456789"), parser.endOfInput().price);
+
+         try {
+            objectMapper.readValue("{\"myInt\": 2147483648}".getBytes(StandardCharsets.UTF_8), Numbers.class);
+            Assert.fail();
+         }
+         catch (NumberFormatException e) {
+            // expected
+         }
+
+         // Exponents are bounded before the value is expanded
+         Assert.assertEquals(new BigInteger("12000"), objectMapper.readValue("{\"count\": 1.2e4}".getBytes(StandardCharsets.UTF_8), Numbers.class).count);
+         Assert.assertEquals(BigInteger.ZERO, objectMapper.readValue("{\"count\": 0e999999999}".getBytes(StandardCharsets.UTF_8), Numbers.class).count);
+         for (String invalid : new String[] { "1e999999999", "1e9999999", "1e-999999999", "1.5" }) {
+            try {
+               objectMapper.readValue(("{\"count\": " + invalid + "}").getBytes(StandardCharsets.UTF_8), Numbers.class);
+               Assert.fail(invalid);
+            }
+            catch (NumberFormatException e) {
+               // expected
+            }
+         }
+      }
+   }
+
+   private static double parseDouble(String number)
+   {
+      byte[] bytes = (" " + number + " ").getBytes(StandardCharsets.US_ASCII);
+      return NumberUtils.parseDouble(bytes, 1, bytes.length - 2);
+   }
+
+   private static long parseLong(String number)
+   {
+      byte[] bytes = number.getBytes(StandardCharsets.US_ASCII);
+      return NumberUtils.parseLong(bytes, 0, bytes.length);
+   }
+
+   public static class Numbers
+   {
+      public int myInt;
+      public long myLong;
+      public float myFloat;
+      public double myDouble;
+      public BigDecimal price;
+      public BigInteger count;
+      public BigDecimal missing;
+   }
+}
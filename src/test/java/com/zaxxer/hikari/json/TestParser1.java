@@ -3,18 +3,60 @@ package com.zaxxer.hikari.json;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Deque;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 import org.apache.commons.io.IOUtils;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 
 import com.zaxxer.hikari.json.JsonFactory.Option;
+import com.zaxxer.hikari.json.util.ClassUtils;
+import com.zaxxer.hikari.json.util.Clazz;
+import com.zaxxer.hikari.json.util.DoubleList;
+import com.zaxxer.hikari.json.util.FieldAccess;
+import com.zaxxer.hikari.json.util.IntList;
+import com.zaxxer.hikari.json.util.IsoDateParser;
+import com.zaxxer.hikari.json.util.LongList;
+import com.zaxxer.hikari.json.util.Types;
 
 public class TestParser1
 {
@@ -81,13 +123,1198 @@ public class TestParser1
       }
    }
 
+   @Test
+   public void testGeneratedAccess01() throws Exception
+   {
+      ObjectMapper objectMapper = JsonFactory.option(Option.GENERATED_ACCESS).create();
+
+      MenuBar menuBar = objectMapper.readValue(bais, MenuBar.class);
+      Assert.assertEquals(menuBar.menu.id, "file");
+      Assert.assertEquals(menuBar.menu.value, "File");
+      Assert.assertTrue(menuBar.menu.popup.menuitem instanceof HashSet);
+      Assert.assertSame(3, menuBar.menu.popup.menuitem.size());
+      Assert.assertNotNull(ClassUtils.reflect(MenuBar.Menu.class).getGeneratedAccessor());
+   }
+
+   @Test
+   public void testGeneratedAccess02() throws Exception
+   {
+      ObjectMapper objectMapper = JsonFactory.option(Option.GENERATED_ACCESS, Option.VALUES_UTF8).create();
+
+      File file = new File("src/test/resources/AllTypes.json");
+      try (InputStream is = new FileInputStream(file)) {
+         AllType allType = objectMapper.readValue(is, AllType.class);
+         Assert.assertEquals(1, allType.myInt);
+         Assert.assertEquals(1.1f, allType.myFloat, 0.0001f);
+         Assert.assertTrue(allType.myDouble == 1.2);
+         Assert.assertEquals(2, allType.myShort);
+         Assert.assertEquals(3, allType.myByte);
+         Assert.assertTrue(allType.myBoolean);
+         Assert.assertEquals("test", allType.string);
+         Assert.assertNotNull(allType._date);
+         Assert.assertEquals(1, allType.allType.myInt);
+         Assert.assertSame(3, allType.allTypeList.size());
+         Assert.assertNotNull(ClassUtils.reflect(AllType.class).getGeneratedAccessor());
+      }
+   }
+
+   @Test
+   public void testSharedMapper() throws Exception
+   {
+      final ObjectMapper objectMapper = JsonFactory.create();
+      final byte[] menu = IOUtils.toByteArray(new FileInputStream(new File("src/test/resources/menu.json")));
+      final byte[] allTypes = IOUtils.toByteArray(new FileInputStream(new File("src/test/resources/AllTypes.json")));
+
+      ExecutorService executor = Executors.newFixedThreadPool(8);
+      try {
+         List<Future<?>> futures = new ArrayList<>();
+         for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+               for (int i = 0; i < 1000; i++) {
+                  MenuBar2 menuBar = objectMapper.readValue(new ByteArrayInputStream(menu), MenuBar2.class);
+                  Assert.assertEquals("file", menuBar.menu.id);
+                  Assert.assertSame(3, menuBar.menu.popup.menuitem.size());
+
+                  AllType allType = objectMapper.readValue(new ByteArrayInputStream(allTypes), AllType.class);
+                  Assert.assertEquals("test", allType.string);
+                  Assert.assertSame(3, allType.allTypeList.size());
+               }
+               return null;
+            }));
+         }
+
+         for (Future<?> future : futures) {
+            future.get();
+         }
+      }
+      finally {
+         executor.shutdown();
+      }
+   }
+
+   @Test
+   public void testRegister() throws Exception
+   {
+      JsonFactory.register(MenuBar.class);
+
+      Clazz menuBar = ClassUtils.reflect(MenuBar.class);
+      Clazz menu = ClassUtils.reflect(MenuBar.Menu.class);
+      Assert.assertSame(menu, menuBar.getPhields()[0].clazz);
+      Assert.assertSame(ClassUtils.reflect(MenuBar.Popup.class), menu.getPhield("popup").clazz);
+   }
+
+   @Test
+   public void testConcurrentRegistration() throws Exception
+   {
+      // Threads enter the same cyclic graph through different classes at once
+      final Class<?>[] entries = { GraphA.class, GraphB.class, GraphC.class };
+      final CountDownLatch start = new CountDownLatch(1);
+      ExecutorService executor = Executors.newFixedThreadPool(6);
+      try {
+         List<Future<?>> futures = new ArrayList<>();
+         for (int t = 0; t < 6; t++) {
+            final Class<?> entry = entries[t % entries.length];
+            futures.add(executor.submit(() -> {
+               start.await();
+               return ClassUtils.reflect(entry);
+            }));
+         }
+
+         start.countDown();
+         for (Future<?> future : futures) {
+            future.get();
+         }
+      }
+      finally {
+         executor.shutdown();
+      }
+
+      Clazz a = ClassUtils.reflect(GraphA.class);
+      Clazz b = ClassUtils.reflect(GraphB.class);
+      Clazz c = ClassUtils.reflect(GraphC.class);
+      Assert.assertSame(b, a.getPhield("b").clazz);
+      Assert.assertSame(c, a.getPhield("cs").getElementClazz());
+      Assert.assertSame(a, b.getPhield("a").clazz);
+      Assert.assertSame(c, b.getPhield("c").clazz);
+      Assert.assertSame(b, c.getPhield("b").clazz);
+   }
+
+   @Test
+   public void testByteArray() throws Exception
+   {
+      ObjectMapper objectMapper = JsonFactory.create();
+      byte[] menu = IOUtils.toByteArray(new FileInputStream(new File("src/test/resources/menu.json")));
+
+      MenuBar2 menuBar = objectMapper.readValue(menu, MenuBar2.class);
+      Assert.assertEquals("file", menuBar.menu.id);
+      Assert.assertSame(3, menuBar.menu.popup.menuitem.size());
+
+      // Region of a larger array, surrounded by bytes that must not be read
+      byte[] padded = new byte[menu.length + 20];
+      Arrays.fill(padded, (byte) '}');
+      System.arraycopy(menu, 0, padded, 10, menu.length);
+      menuBar = objectMapper.readValue(padded, 10, menu.length, MenuBar2.class);
+      Assert.assertEquals("File", menuBar.menu.value);
+      Assert.assertSame(3, menuBar.menu.popup.menuitem.size());
+   }
+
+   @Test
+   public void testByteBuffer() throws Exception
+   {
+      ObjectMapper objectMapper = JsonFactory.create();
+      byte[] allTypes = IOUtils.toByteArray(new FileInputStream(new File("src/test/resources/AllTypes.json")));
+
+      ByteBuffer heap = ByteBuffer.allocate(allTypes.length + 4);
+      heap.put(new byte[] { 1, 2, 3, 4 }).put(allTypes).position(4);
+      AllType allType = objectMapper.readValue(heap.slice(), AllType.class);
+      Assert.assertEquals("test", allType.string);
+      Assert.assertSame(3, allType.allTypeList.size());
+
+      ByteBuffer direct = ByteBuffer.allocateDirect(allTypes.length);
+      direct.put(allTypes).flip();
+      allType = objectMapper.readValue(direct, AllType.class);
+      Assert.assertEquals("test", allType.string);
+      Assert.assertSame(3, allType.allTypeList.size());
+      Assert.assertEquals(0, direct.position());
+
+      try (FileChannel channel = FileChannel.open(Paths.get("src/test/resources/AllTypes.json"), StandardOpenOption.READ)) {
+         MappedByteBuffer mapped = channel.map(MapMode.READ_ONLY, 0, channel.size());
+         allType = objectMapper.readValue(mapped, AllType.class);
+         Assert.assertTrue(allType.myDouble == 1.2);
+         Assert.assertSame(3, allType.allTypeList.size());
+      }
+   }
+
+   @Test
+   public void testSmallReads() throws Exception
+   {
+      ObjectMapper objectMapper = JsonFactory.create();
+
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < 5_000; i++) {
+         sb.append("abcdefghij");
+      }
+
+      String json = "{\"menu\": {\"id\": \"" + sb + "\", \"value\": \"File\u00e9\", \"popup\": {\"menuitem\": [{\"value\": \"New\"}, {\"value\": \"Open\"}]}}}";
+      byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+
+      for (int chunk : new int[] { 1, 3, 7, 4096 }) {
+         MenuBar2 menuBar = objectMapper.readValue(new ChunkedInputStream(bytes, chunk), MenuBar2.class);
+         Assert.assertEquals(sb.toString(), menuBar.menu.id);
+         Assert.assertEquals("File\u00e9", menuBar.menu.value);
+         Assert.assertSame(2, menuBar.menu.popup.menuitem.size());
+      }
+
+      byte[] allTypes = IOUtils.toByteArray(new FileInputStream(new File("src/test/resources/AllTypes.json")));
+      for (int chunk : new int[] { 1, 3, 7 }) {
+         AllType allType = objectMapper.readValue(new ChunkedInputStream(allTypes, chunk), AllType.class);
+         Assert.assertEquals(1.1f, allType.myFloat, 0.0001f);
+         Assert.assertTrue(allType.myDouble == 1.2);
+         Assert.assertEquals("test", allType.string);
+         Assert.assertNotNull(allType._date);
+         Assert.assertSame(3, allType.allTypeList.size());
+      }
+   }
+
+   @Test
+   public void testStreamValues() throws Exception
+   {
+      ObjectMapper objectMapper = JsonFactory.create();
+      byte[] array = IOUtils.toByteArray(new FileInputStream(new File("src/test/resources/arrayOfAllType.json")));
+
+      for (int chunk : new int[] { 1, 7, 4096 }) {
+         int count = 0;
+         try (ValueIterator<AllType> iterator = objectMapper.readValues(new ChunkedInputStream(array, chunk), AllType.class)) {
+            while (iterator.hasNext()) {
+               AllType allType = iterator.next();
+               Assert.assertEquals(count++, allType.myInt);
+               Assert.assertEquals("test", allType.string);
+            }
+         }
+         Assert.assertSame(3, count);
+      }
+
+      try (Stream<AllType> stream = objectMapper.streamValues(new ByteArrayInputStream(array), AllType.class)) {
+         Assert.assertEquals(3, stream.mapToInt(allType -> allType.myInt).sum());
+      }
+
+      List<AllType> list = new ArrayList<>();
+      objectMapper.readValues(new ByteArrayInputStream(array), AllType.class, list::add);
+      Assert.assertSame(3, list.size());
+
+      String json = "{\"meta\": {\"tags\": [\"a]\", {\"b\": \"}\\\"\"}], \"count\": 3}, \"a/b\": {\"items\": "
+                  + "[{\"myInt\": 7}, null, {\"myInt\": 8, \"string\": \"x\"}]}, \"trailer\": \"ignored\"}";
+      for (int chunk : new int[] { 1, 4096 }) {
+         ChunkedInputStream is = new ChunkedInputStream(json.getBytes(StandardCharsets.UTF_8), chunk);
+         list.clear();
+         objectMapper.streamValues(is, "/a~1b/items", AllType.class).forEach(list::add);
+         Assert.assertSame(3, list.size());
+         Assert.assertEquals(7, list.get(0).myInt);
+         Assert.assertNull(list.get(1));
+         Assert.assertEquals("x", list.get(2).string);
+         Assert.assertTrue(chunk > 1 || is.available() > 0);
+      }
+
+      for (String invalid : new String[] { "[{\"myInt\": 1}, 2]", "[{\"myInt\": 1}, \"{\\\"myInt\\\": 2}\"]", "[[{\"myInt\": 1}]]" }) {
+         try (ValueIterator<AllType> iterator = objectMapper.readValues(new ByteArrayInputStream(invalid.getBytes(StandardCharsets.UTF_8)), AllType.class)) {
+            while (iterator.hasNext()) {
+               Assert.assertEquals(1, iterator.next().myInt);
+            }
+            Assert.fail(invalid);
+         }
+         catch (RuntimeException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().endsWith("at the start of an array element, expected an object or null"));
+         }
+      }
+   }
+
+   @Test
+   public void testPushParser() throws Exception
+   {
+      ObjectMapper objectMapper = JsonFactory.option(Option.GENERATED_ACCESS).create();
+      byte[] allTypes = IOUtils.toByteArray(new FileInputStream(new File("src/test/resources/AllTypes.json")));
+
+      for (int chunk : new int[] { 1, 3, 7, 4096 }) {
+         PushParser<AllType> parser = objectMapper.createPushParser(AllType.class);
+         for (int offset = 0; offset < allTypes.length; offset += chunk) {
+            Assert.assertFalse(parser.isComplete());
+            parser.feed(allTypes, offset, Math.min(chunk, allTypes.length - offset));
+         }
+
+         AllType allType = parser.endOfInput();
+         Assert.assertEquals(1, allType.myInt);
+         Assert.assertEquals(1.1f, allType.myFloat, 0.0001f);
+         Assert.assertTrue(allType.myDouble == 1.2);
+         Assert.assertTrue(allType.myBoolean);
+         Assert.assertEquals("test", allType.string);
+         Assert.assertEquals(3, allType.myByte);
+         Assert.assertNotNull(allType._date);
+         Assert.assertEquals("test", allType.allType.string);
+         Assert.assertSame(3, allType.allTypeList.size());
+      }
+
+      byte[] bytes = "{\"menu\": {\"id\": \"file\u00e9\", \"value\": null, \"popup\": {\"menuitem\": [{\"value\": \"New\"}, null]}}}  ".getBytes(StandardCharsets.UTF_8);
+      PushParser<MenuBar2> parser = objectMapper.createPushParser(MenuBar2.class);
+      ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+      direct.put(bytes).flip();
+      Assert.assertTrue(parser.feed(direct));
+      Assert.assertFalse(direct.hasRemaining());
+      MenuBar2 menuBar = parser.endOfInput();
+      Assert.assertEquals("file\u00e9", menuBar.menu.id);
+      Assert.assertNull(menuBar.menu.value);
+      Assert.assertSame(2, menuBar.menu.popup.menuitem.size());
+
+      PushParser<AllType> incomplete = objectMapper.createPushParser(AllType.class);
+      incomplete.feed(allTypes, 0, allTypes.length / 2);
+      try {
+         incomplete.endOfInput();
+         Assert.fail();
+      }
+      catch (RuntimeException e) {
+         Assert.assertEquals("Insufficient data during parsing", e.getMessage());
+      }
+
+      // Only space, tab, newline and carriage return separate tokens
+      byte[] separated = "{\t\"myInt\"\r\n:\n 2 }".getBytes(StandardCharsets.UTF_8);
+      Assert.assertTrue(objectMapper.createPushParser(AllType.class).feed(separated, 0, separated.length));
+      for (String invalid : new String[] { "{\u0001\"myInt\": 2}", "{\"myInt\":\u00a0 2}", "{\"myInt\": 2\u000b}" }) {
+         byte[] invalidBytes = invalid.getBytes(StandardCharsets.UTF_8);
+         try {
+            objectMapper.createPushParser(AllType.class).feed(invalidBytes, 0, invalidBytes.length);
+            Assert.fail(invalid);
+         }
+         catch (RuntimeException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Unexpected character"));
+         }
+      }
+   }
+
+   @Test
+   public void testMemberLookup() throws Exception
+   {
+      Assert.assertEquals("Aa".hashCode(), "BB".hashCode());
+
+      Clazz clazz = ClassUtils.reflect(Collide.class);
+      for (String name : new String[] { "Aa", "BB", "AaAa", "BBBB", "AaBB", "value", "quoted\"name" }) {
+         Assert.assertEquals(name, clazz.getPhield(name).name);
+      }
+      Assert.assertNull(clazz.getPhield("Ab"));
+      Assert.assertNull(clazz.getPhield("unknown"));
+
+      String json = "{\"Aa\": 1, \"extra\": {\"x\": [1, \"}\", {}]}, \"BB\": 2, \"AaAa\": \"a\", \"BBBB\": \"b\", \"Ab\": 9, "
+                  + "\"AaBB\": true, \"quoted\\\"name\": \"q\", \"more\": \"\\\"\", \"value\": 3}";
+      byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+      for (ObjectMapper objectMapper : new ObjectMapper[] { JsonFactory.create(), JsonFactory.option(Option.GENERATED_ACCESS).create() }) {
+         List<Collide> results = new ArrayList<>();
+         results.add(objectMapper.readValue(bytes, Collide.class));
+         results.add(objectMapper.readValue(new ChunkedInputStream(bytes, 1), Collide.class));
+
+         PushParser<Collide> parser = objectMapper.createPushParser(Collide.class);
+         for (byte b : bytes) {
+            parser.feed(new byte[] { b }, 0, 1);
+         }
+         results.add(parser.endOfInput());
+
+         for (Collide collide : results) {
+            Assert.assertEquals(1, collide.Aa);
+            Assert.assertEquals(2, collide.BB);
+            Assert.assertEquals("a", collide.AaAa);
+            Assert.assertEquals("b", collide.BBBB);
+            Assert.assertTrue(collide.AaBB);
+            Assert.assertEquals("q", collide.quotedName);
+            Assert.assertEquals(3, collide.value);
+         }
+      }
+   }
+
+   @Test
+   public void testSkipValues() throws Exception
+   {
+      StringBuilder blob = new StringBuilder();
+      for (int i = 0; i < 2_000; i++) {
+         blob.append("{\"k\": [\"\\\\\", \"]}\\\"{\", 1.5e3, null, true], \"o\": {}},");
+      }
+
+      String json = "{\"blob\": [" + blob + "{}], \"Aa\": 1, \"secret\": {\"nested\": [\"x\"]}, \"BB\": 2, \"tail\": \"\\\\\", \"value\": 3}";
+      byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+
+      ObjectMapper objectMapper = JsonFactory.create();
+      for (int chunk : new int[] { 1, 5, 4096, bytes.length }) {
+         Excluded excluded = objectMapper.readValue(new ChunkedInputStream(bytes, chunk), Excluded.class);
+         Assert.assertEquals(1, excluded.Aa);
+         Assert.assertEquals(2, excluded.BB);
+         Assert.assertEquals(3, excluded.value);
+         Assert.assertNull(excluded.secret);
+      }
+
+      PushParser<Excluded> parser = objectMapper.createPushParser(Excluded.class);
+      for (int offset = 0; offset < bytes.length; offset += 3) {
+         parser.feed(bytes, offset, Math.min(3, bytes.length - offset));
+      }
+      Assert.assertEquals(3, parser.endOfInput().value);
+
+      ObjectMapper strictMapper = JsonFactory.option(Option.FIELD_ACCESS, Option.FAIL_ON_UNKNOWN_MEMBERS).create();
+      try {
+         strictMapper.readValue(bytes, Excluded.class);
+         Assert.fail();
+      }
+      catch (RuntimeException e) {
+         Assert.assertTrue(e.getMessage().contains("\"blob\""));
+      }
+
+      try {
+         strictMapper.createPushParser(Excluded.class).feed(bytes, 0, bytes.length);
+         Assert.fail();
+      }
+      catch (RuntimeException e) {
+         Assert.assertTrue(e.getMessage().contains("\"blob\""));
+      }
+   }
+
+   @Test
+   public void testStringScanning() throws Exception
+   {
+      String firstJson = "a long value with an \\\"escaped quote\\\" and a trailing backslash \\\\";
+      String first = "a long value with an \"escaped quote\" and a trailing backslash \\";
+      String secondJson = "non-ASCII é中文 and 😀, escaped \\u00e9\\u4E2D\\ud83d\\ude00\\n\\t\\/\\b\\f\\r";
+      String second = "non-ASCII é中文 and 😀, escaped é中😀\n\t/\b\f\r";
+      String json = "{\"first\": \"" + firstJson + "\", \"second\":\t\n    \"" + secondJson + "\"}";
+      byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+
+      for (ObjectMapper objectMapper : new ObjectMapper[] { JsonFactory.create(), JsonFactory.option(Option.FIELD_ACCESS, Option.VALUES_ASCII).create() }) {
+         for (int chunk : new int[] { 1, 3, 7, bytes.length }) {
+            Strings strings = objectMapper.readValue(new ChunkedInputStream(bytes, chunk), Strings.class);
+            Assert.assertEquals(first, strings.first);
+            Assert.assertEquals(second, strings.second);
+         }
+
+         for (int chunk : new int[] { 1, 3, 7 }) {
+            PushParser<Strings> parser = objectMapper.createPushParser(Strings.class);
+            for (int offset = 0; offset < bytes.length; offset += chunk) {
+               parser.feed(bytes, offset, Math.min(chunk, bytes.length - offset));
+            }
+            Strings strings = parser.endOfInput();
+            Assert.assertEquals(first, strings.first);
+            Assert.assertEquals(second, strings.second);
+         }
+      }
+
+      ObjectMapper objectMapper = JsonFactory.create();
+      String[] invalid = { "raw\ncontrol", "\\x", "\\u12g4", "Ã(", "À\u0080", "í \u0080", "ô\u0090\u0080\u0080", "é" };
+      for (String value : invalid) {
+         byte[] invalidBytes = ("{\"first\": \"" + value + "\"}").getBytes(StandardCharsets.ISO_8859_1);
+         try {
+            objectMapper.readValue(invalidBytes, Strings.class);
+            Assert.fail(value);
+         }
+         catch (RuntimeException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("in string"));
+         }
+
+         try {
+            objectMapper.createPushParser(Strings.class).feed(invalidBytes, 0, invalidBytes.length);
+            Assert.fail(value);
+         }
+         catch (RuntimeException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("in string") || e.getMessage().contains("control character"));
+         }
+      }
+   }
+
+   @Test
+   public void testStringCache() throws Exception
+   {
+      String longValue = "a value that is far too long to be worth caching, because it exceeds the limit";
+      byte[] bytes = ("{\"status\": \"ACTIVE\", \"name\": \"caf\\u00e9\", \"note\": \"" + longValue + "\"}").getBytes(StandardCharsets.UTF_8);
+
+      ObjectMapper objectMapper = JsonFactory.create();
+      Tags first = objectMapper.readValue(bytes, Tags.class);
+      Tags second = objectMapper.readValue(bytes, Tags.class);
+      Assert.assertEquals("ACTIVE", first.status);
+      Assert.assertSame(first.status, second.status);
+      Assert.assertEquals("café", first.name);
+      Assert.assertNotSame(first.name, second.name);
+
+      objectMapper = JsonFactory.option(Option.FIELD_ACCESS, Option.CACHE_STRING_VALUES).create();
+      first = objectMapper.readValue(bytes, Tags.class);
+      second = objectMapper.readValue(new ChunkedInputStream(bytes, 3), Tags.class);
+      Assert.assertSame(first.status, second.status);
+      Assert.assertEquals("café", second.name);
+      Assert.assertSame(first.name, second.name);
+      Assert.assertEquals(longValue, second.note);
+      Assert.assertNotSame(first.note, second.note);
+
+      PushParser<Tags> parser = objectMapper.createPushParser(Tags.class);
+      parser.feed(bytes, 0, bytes.length);
+      Assert.assertSame(first.name, parser.endOfInput().name);
+   }
+
+   @Test
+   public void testDates() throws Exception
+   {
+      Random random = new Random(7);
+      IsoDateParser dateParser = new IsoDateParser();
+      for (int i = 0; i < 100_000; i++) {
+         ZoneOffset offset = (i % 3 == 0 ? ZoneOffset.UTC : ZoneOffset.ofTotalSeconds((random.nextInt(72) - 36) * 900));
+         OffsetDateTime expected = OffsetDateTime.ofInstant(Instant.ofEpochSecond(random.nextLong() % 200_000_000_000L, random.nextInt(1_000_000_000)), offset);
+         if (i % 2 == 0) {
+            expected = expected.withNano(expected.getNano() / 1_000_000 * 1_000_000);
+         }
+         if (expected.getYear() < 0 || expected.getYear() > 9999) {
+            continue;
+         }
+
+         byte[] bytes = expected.toString().getBytes(StandardCharsets.US_ASCII);
+         Assert.assertTrue(expected.toString(), dateParser.parse(bytes, 0, bytes.length));
+         Assert.assertEquals(expected, dateParser.toTemporal(Types.OFFSETDATETIME));
+         Assert.assertEquals(expected.toInstant(), dateParser.toTemporal(Types.INSTANT));
+         Assert.assertEquals(Date.from(expected.toInstant()), dateParser.toTemporal(Types.DATE));
+         Assert.assertEquals(expected.toLocalDate(), dateParser.toTemporal(Types.LOCALDATE));
+      }
+
+      for (String invalid : new String[] { "2015-02-29T00:00:00Z", "2015-13-01T00:00:00Z", "2015-01-01T24:00:00Z", "2015-01-01T00:00:00+19:00", "2015-01-01T00:00Z+", "2015-01-01x" }) {
+         byte[] bytes = invalid.getBytes(StandardCharsets.US_ASCII);
+         Assert.assertFalse(invalid, dateParser.parse(bytes, 0, bytes.length));
+      }
+
+      String json = "{\"date\": \"2013-12-14T01:55:33.412+09:00\", \"instant\": 1386986133412, \"dateTime\": \"2013-12-14t01:55:33.412345678-05:30\", "
+                  + "\"localDate\": \"2016-02-29\", \"missing\": null}";
+      byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+      for (ObjectMapper objectMapper : new ObjectMapper[] { JsonFactory.create(), JsonFactory.option(Option.GENERATED_ACCESS).option(Option.DATE_CACHE_SIZE, 16).create() }) {
+         for (int pass = 0; pass < 2; pass++) {
+            Dates dates = objectMapper.readValue(bytes, Dates.class);
+            Assert.assertEquals(Date.from(Instant.parse("2013-12-13T16:55:33.412Z")), dates.date);
+            Assert.assertEquals(Instant.ofEpochMilli(1386986133412L), dates.instant);
+            Assert.assertEquals(OffsetDateTime.parse("2013-12-14T01:55:33.412345678-05:30"), dates.dateTime);
+            Assert.assertEquals(LocalDate.of(2016, 2, 29), dates.localDate);
+            Assert.assertNull(dates.missing);
+
+            Dates copy = objectMapper.readValue(objectMapper.writeValueAsString(dates).getBytes(StandardCharsets.UTF_8), Dates.class);
+            Assert.assertEquals(dates.date, copy.date);
+            Assert.assertEquals(dates.instant, copy.instant);
+            Assert.assertEquals(dates.dateTime, copy.dateTime);
+            Assert.assertEquals(dates.localDate, copy.localDate);
+            Assert.assertNotSame(dates.date, copy.date);
+         }
+
+         PushParser<Dates> parser = objectMapper.createPushParser(Dates.class);
+         for (int offset = 0; offset < bytes.length; offset += 5) {
+            parser.feed(bytes, offset, Math.min(5, bytes.length - offset));
+         }
+         Assert.assertEquals(OffsetDateTime.parse("2013-12-14T01:55:33.412345678-05:30"), parser.endOfInput().dateTime);
+
+         try {
+            objectMapper.readValue("{\"localDate\": \"2015-02-29\"}".getBytes(StandardCharsets.UTF_8), Dates.class);
+            Assert.fail();
+         }
+         catch (DateTimeParseException e) {
+            // expected
+         }
+      }
+      // Cached values are found by their bytes wherever they sit in the buffer
+      ObjectMapper objectMapper = JsonFactory.option(Option.FIELD_ACCESS).option(Option.DATE_CACHE_SIZE, 16).create();
+      Dates first = objectMapper.readValue(bytes, Dates.class);
+      Dates second = objectMapper.readValue(new ChunkedInputStream(bytes, 3), Dates.class);
+      Assert.assertSame(first.dateTime, second.dateTime);
+      Assert.assertSame(first.localDate, second.localDate);
+      Assert.assertEquals(first.date, second.date);
+      Assert.assertNotSame(first.date, second.date);
+   }
+
+   @Test
+   public void testEnums() throws Exception
+   {
+      byte[] bytes = "{\"status\": \"on-hold\", \"previous\": \"CLOSED\", \"none\": null}".getBytes(StandardCharsets.UTF_8);
+      for (ObjectMapper objectMapper : new ObjectMapper[] { JsonFactory.create(), JsonFactory.option(Option.GENERATED_ACCESS).create() }) {
+         Ticket ticket = objectMapper.readValue(bytes, Ticket.class);
+         Assert.assertEquals(Status.ON_HOLD, ticket.status);
+         Assert.assertEquals(Status.CLOSED, ticket.previous);
+         Assert.assertNull(ticket.none);
+
+         String json = objectMapper.writeValueAsString(ticket);
+         Assert.assertTrue(json, json.contains("\"status\":\"on-hold\""));
+         Assert.assertTrue(json, json.contains("\"previous\":\"CLOSED\""));
+         Assert.assertEquals(Status.ON_HOLD, objectMapper.readValue(json.getBytes(StandardCharsets.UTF_8), Ticket.class).status);
+
+         PushParser<Ticket> parser = objectMapper.createPushParser(Ticket.class);
+         for (byte b : bytes) {
+            parser.feed(new byte[] { b }, 0, 1);
+         }
+         Assert.assertEquals(Status.ON_HOLD, parser.endOfInput().status);
+
+         try {
+            objectMapper.readValue("{\"status\": \"ON_HOLD\"}".getBytes(StandardCharsets.UTF_8), Ticket.class);
+            Assert.fail();
+         }
+         catch (RuntimeException e) {
+            Assert.assertTrue(e.getMessage().contains("\"ON_HOLD\""));
+         }
+      }
+   }
+
+   @Test
+   public void testArraysAndMaps() throws Exception
+   {
+      byte[] bytes = ("{\"ints\": [1, -2, 3], \"longs\": [9007199254740993], \"doubles\": [0.5, 1e3], \"names\": [\"a\", null, \"\\u00e9\"],"
+                    + " \"strings\": [{\"first\": \"x\"}, null], \"integers\": [1, null], \"statuses\": [\"on-hold\", \"ACTIVE\"],"
+                    + " \"counts\": {\"a\": 1, \"b\": null}, \"beans\": {\"k\": {\"second\": \"y\"}}, \"empty\": [], \"none\": null,"
+                    + " \"sorted\": {\"b\": 1, \"a\": 2}, \"ordered\": {\"b\": 1, \"a\": 2}, \"navigable\": {\"b\": 1, \"a\": 2}, \"shared\": {\"b\": 1},"
+                    + " \"tags\": [\"x\", \"y\", \"x\"], \"ranked\": [\"b\", \"a\"], \"queue\": [1, 2]}").getBytes(StandardCharsets.UTF_8);
+      for (ObjectMapper objectMapper : new ObjectMapper[] { JsonFactory.create(), JsonFactory.option(Option.GENERATED_ACCESS).create() }) {
+         PushParser<Containers> parser = objectMapper.createPushParser(Containers.class);
+         for (byte b : bytes) {
+            parser.feed(new byte[] { b }, 0, 1);
+         }
+
+         for (Containers containers : new Containers[] { objectMapper.readValue(bytes, Containers.class), parser.endOfInput() }) {
+            Assert.assertArrayEquals(new int[] { 1, -2, 3 }, containers.ints);
+            Assert.assertArrayEquals(new long[] { 9007199254740993L }, containers.longs);
+            Assert.assertArrayEquals(new double[] { 0.5, 1000.0 }, containers.doubles, 0.0);
+            Assert.assertArrayEquals(new String[] { "a", null, "\u00e9" }, containers.names);
+            Assert.assertEquals(2, containers.strings.length);
+            Assert.assertEquals("x", containers.strings[0].first);
+            Assert.assertNull(containers.strings[1]);
+            Assert.assertEquals(Arrays.asList(1, null), containers.integers);
+            Assert.assertEquals(Arrays.asList(Status.ON_HOLD, Status.ACTIVE), containers.statuses);
+            Assert.assertEquals(Integer.valueOf(1), containers.counts.get("a"));
+            Assert.assertTrue(containers.counts.containsKey("b"));
+            Assert.assertEquals("y", containers.beans.get("k").second);
+            Assert.assertEquals(0, containers.empty.length);
+            Assert.assertNull(containers.none);
+            Assert.assertEquals("a", containers.sorted.firstKey());
+            Assert.assertEquals(Arrays.asList("b", "a"), new ArrayList<>(containers.ordered.keySet()));
+            Assert.assertSame(TreeMap.class, containers.navigable.getClass());
+            Assert.assertSame(ConcurrentHashMap.class, containers.shared.getClass());
+            Assert.assertEquals(new HashSet<>(Arrays.asList("x", "y")), containers.tags);
+            Assert.assertEquals("a", containers.ranked.first());
+            Assert.assertEquals(Integer.valueOf(1), containers.queue.peekFirst());
+         }
+
+         Containers containers = objectMapper.readValue(bytes, Containers.class);
+         String json = objectMapper.writeValueAsString(containers);
+         Containers copy = objectMapper.readValue(json.getBytes(StandardCharsets.UTF_8), Containers.class);
+         Assert.assertArrayEquals(containers.ints, copy.ints);
+         Assert.assertArrayEquals(containers.doubles, copy.doubles, 0.0);
+         Assert.assertEquals(containers.counts, copy.counts);
+
+         try {
+            objectMapper.readValue("{\"ints\": [1, null]}".getBytes(StandardCharsets.UTF_8), Containers.class);
+            Assert.fail();
+         }
+         catch (RuntimeException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("\"ints\""));
+         }
+
+         try {
+            objectMapper.readValue("{}".getBytes(StandardCharsets.UTF_8), Registries.class);
+            Assert.fail();
+         }
+         catch (RuntimeException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Unsupported type " + Registry.class.getName()));
+         }
+      }
+   }
+
+   @Test
+   public void testPrimitiveCollections() throws Exception
+   {
+      byte[] bytes = "{\"ids\": [3, 1, 2], \"stamps\": [9007199254740993], \"values\": [0.25, 2], \"counts\": [7, 8]}".getBytes(StandardCharsets.UTF_8);
+      ObjectMapper[] objectMappers = { JsonFactory.create(), JsonFactory.option(Option.GENERATED_ACCESS).option(Option.COLLECTION_CLASS, IntList.class).create() };
+      for (ObjectMapper objectMapper : objectMappers) {
+         PushParser<PrimitiveLists> parser = objectMapper.createPushParser(PrimitiveLists.class);
+         parser.feed(bytes, 0, bytes.length);
+
+         for (PrimitiveLists lists : new PrimitiveLists[] { objectMapper.readValue(bytes, PrimitiveLists.class), parser.endOfInput() }) {
+            Assert.assertArrayEquals(new int[] { 3, 1, 2 }, lists.ids.toIntArray());
+            Assert.assertEquals(LongList.class, lists.stamps.getClass());
+            Assert.assertEquals(9007199254740993L, ((LongList) lists.stamps).getLong(0));
+            Assert.assertArrayEquals(new double[] { 0.25, 2.0 }, lists.values.toDoubleArray(), 0.0);
+            Assert.assertEquals(Arrays.asList(7, 8), lists.counts);
+            Assert.assertEquals("{\"ids\":[3,1,2],\"stamps\":[9007199254740993],\"values\":[0.25,2.0],\"counts\":[7,8]}", objectMapper.writeValueAsString(lists));
+         }
+      }
+      Assert.assertEquals(IntList.class, objectMappers[1].readValue(bytes, PrimitiveLists.class).counts.getClass());
+
+      try {
+         objectMappers[0].readValue("{\"ids\": [1, null]}".getBytes(StandardCharsets.UTF_8), PrimitiveLists.class);
+         Assert.fail();
+      }
+      catch (RuntimeException e) {
+         Assert.assertTrue(e.getMessage(), e.getMessage().contains("\"ids\""));
+      }
+   }
+
+   @Test
+   public void testReadTree() throws Exception
+   {
+      ObjectMapper objectMapper = JsonFactory.create();
+      JsonNode catalog = objectMapper.readTree(new FileInputStream("src/test/resources/citm_catalog.json"));
+      Assert.assertTrue(catalog.isObject());
+      Assert.assertEquals(11, catalog.size());
+      Assert.assertEquals("Arri\u00e8re-sc\u00e8ne central", catalog.get("areaNames").get("205705993").stringValue());
+      Assert.assertEquals(243, catalog.get("performances").size());
+      Assert.assertEquals(1372701600000L, catalog.at("/performances/0/start").longValue());
+      Assert.assertEquals(90250, catalog.at("/performances/0/prices/0/amount").intValue());
+      Assert.assertTrue(catalog.at("/performances/0/logo").isNull());
+      Assert.assertEquals("[]", catalog.at("/performances/0/seatCategories/0/areas/0/blockIds").toString());
+      Assert.assertNull(catalog.at("/performances/243"));
+      Assert.assertNull(catalog.get("missing"));
+      Assert.assertEquals("areaNames", catalog.fieldNames().next());
+
+      JsonNode node = objectMapper.readTree("{\"a\": [1, 2.5, true, \"x\\ny\"], \"b\": {}}".getBytes(StandardCharsets.UTF_8));
+      List<String> values = new ArrayList<>();
+      for (JsonNode element : node.get("a")) {
+         values.add(element.toString());
+      }
+      Assert.assertEquals(Arrays.asList("1", "2.5", "true", "\"x\\ny\""), values);
+      Assert.assertEquals(2.5, node.get("a").get(1).doubleValue(), 0.0);
+      Assert.assertTrue(node.get("a").get(2).booleanValue());
+      Assert.assertEquals("x\ny", node.at("/a/3").stringValue());
+      Assert.assertEquals(0, node.get("b").size());
+      Assert.assertEquals("{\"a\": [1, 2.5, true, \"x\\ny\"], \"b\": {}}", node.toString());
+
+      // Whitespace runs longer than a word are scanned a word at a time
+      Assert.assertEquals(2, objectMapper.readTree("[1,\t\t\r\n          \n\t 2]".getBytes(StandardCharsets.UTF_8)).size());
+
+      for (String invalid : new String[] { "{\"a\": 1", "{\"a\" 1}", "[1, 2}", "{} {}", "[tru]", "[1,\u000b2]", "[1,          \u0000 2]" }) {
+         try {
+            objectMapper.readTree(invalid.getBytes(StandardCharsets.UTF_8));
+            Assert.fail(invalid);
+         }
+         catch (RuntimeException e) {
+            // expected
+         }
+      }
+
+      try {
+         node.get("a").get(3).longValue();
+         Assert.fail();
+      }
+      catch (RuntimeException e) {
+         Assert.assertTrue(e.getMessage(), e.getMessage().contains("not a number"));
+      }
+   }
+
+   @Test
+   public void testPathQuery() throws Exception
+   {
+      ObjectMapper objectMapper = JsonFactory.create();
+      PathQuery query = objectMapper.compileQuery("/menu/popup/menuitem/0/value", "/menu/id", "/menu/popup", "/menu/popup/menuitem/2/onclick", "/menu/missing", "/menu/id/0");
+      for (JsonNode[] values : new JsonNode[][] { query.evaluate(bais), query.evaluate(IOUtils.toByteArray(new FileInputStream("src/test/resources/menu.json"))) }) {
+         Assert.assertEquals("New", values[0].stringValue());
+         Assert.assertEquals("file", values[1].stringValue());
+         Assert.assertEquals(3, values[2].get("menuitem").size());
+         Assert.assertEquals("CloseDoc()", values[3].stringValue());
+         Assert.assertNull(values[4]);
+         Assert.assertNull(values[5]);
+      }
+
+      // Reading stops once the pointers are resolved
+      final int[] read = new int[1];
+      InputStream src = new FilterInputStream(new FileInputStream("src/test/resources/citm_catalog.json")) {
+         @Override
+         public int read(byte[] b, int off, int len) throws IOException
+         {
+            final int n = super.read(b, off, len);
+            read[0] += Math.max(n, 0);
+            return n;
+         }
+      };
+      JsonNode[] values = objectMapper.compileQuery("/areaNames/205705994", "/audienceSubCategoryNames").evaluate(src);
+      Assert.assertEquals("1er balcon central", values[0].stringValue());
+      Assert.assertEquals("Abonn\u00e9", values[1].get("337100890").stringValue());
+      Assert.assertTrue(String.valueOf(read[0]), read[0] < 64 * 1024);
+   }
+
+   @Test
+   public void testBeanAccess() throws Exception
+   {
+      ObjectMapper objectMapper = JsonFactory.option(Option.BEAN_ACCESS).create();
+      byte[] bytes = ("{\"name\": \"square\", \"sides\": 4, \"area\": 2.25, \"origin\": {\"x\": 1, \"y\": -2, \"label\": \"o\"},"
+                    + " \"corners\": [{\"y\": 5, \"x\": 6}, null], \"id\": 7}").getBytes(StandardCharsets.UTF_8);
+
+      PushParser<Shape> parser = objectMapper.createPushParser(Shape.class);
+      parser.feed(bytes, 0, bytes.length);
+      for (Shape shape : new Shape[] { objectMapper.readValue(bytes, Shape.class), parser.endOfInput() }) {
+         Assert.assertEquals("square", shape.getName());
+         Assert.assertEquals(4, shape.getSides());
+         Assert.assertEquals(2.25, shape.getArea(), 0.0);
+         Assert.assertEquals(7L, shape.id);
+         Assert.assertEquals(3, shape.setterCalls);
+         Assert.assertEquals(1, shape.origin.x);
+         Assert.assertEquals(-2, shape.origin.y);
+         Assert.assertEquals("o", shape.origin.label);
+         Assert.assertEquals(6, shape.corners.get(0).x);
+         Assert.assertNull(shape.corners.get(0).label);
+         Assert.assertNull(shape.corners.get(1));
+      }
+
+      try {
+         objectMapper.readValue("{\"sides\": -1}".getBytes(StandardCharsets.UTF_8), Shape.class);
+         Assert.fail();
+      }
+      catch (IllegalArgumentException e) {
+         Assert.assertEquals("sides", e.getMessage());
+      }
+   }
+
+   @Test
+   public void testFieldAccessBackends() throws Exception
+   {
+      for (String backend : new String[] { FieldAccess.UNSAFE, FieldAccess.METHOD_HANDLE }) {
+         Primitives target = new Primitives();
+         FieldAccess.of(Primitives.class.getDeclaredField("i"), backend).putInt(target, -7);
+         FieldAccess.of(Primitives.class.getDeclaredField("l"), backend).putLong(target, Long.MAX_VALUE);
+         FieldAccess.of(Primitives.class.getDeclaredField("c"), backend).putChar(target, 'q');
+         FieldAccess.of(Primitives.class.getDeclaredField("b"), backend).putBoolean(target, true);
+         FieldAccess.of(Primitives.class.getDeclaredField("d"), backend).putDouble(target, 0.5);
+         FieldAccess.of(Primitives.class.getDeclaredField("s"), backend).putObject(target, "str");
+         FieldAccess.of(Primitives.class.getDeclaredField("fin"), backend).putInt(target, 3);
+
+         Assert.assertEquals(backend, -7, target.i);
+         Assert.assertEquals(Long.MAX_VALUE, FieldAccess.of(Primitives.class.getDeclaredField("l"), backend).getLong(target));
+         Assert.assertEquals('q', target.c);
+         Assert.assertTrue(FieldAccess.of(Primitives.class.getDeclaredField("b"), backend).getBoolean(target));
+         Assert.assertEquals(0.5, target.d, 0.0);
+         Assert.assertEquals("str", FieldAccess.of(Primitives.class.getDeclaredField("s"), backend).getObject(target));
+         Assert.assertEquals(3, FieldAccess.of(Primitives.class.getDeclaredField("fin"), backend).getInt(target));
+      }
+   }
+
+   @Test
+   public void testInstantiators() throws Exception
+   {
+      byte[] bytes = "{\"id\": 12, \"name\": \"quote\", \"inner\": {\"id\": 13}}".getBytes(StandardCharsets.UTF_8);
+      try {
+         JsonFactory.create().readValue(bytes, Immutable.class);
+         Assert.fail();
+      }
+      catch (RuntimeException e) {
+         Assert.assertTrue(e.getMessage(), e.getMessage().contains("no-arg constructor"));
+      }
+
+      ObjectMapper objectMapper = JsonFactory.option(Option.FIELD_ACCESS, Option.ALLOCATE_INSTANCES).create();
+      Immutable immutable = objectMapper.readValue(bytes, Immutable.class);
+      Assert.assertEquals(12, immutable.id);
+      Assert.assertEquals("quote", immutable.name);
+      Assert.assertEquals(13, immutable.inner.id);
+      Assert.assertNull(immutable.inner.name);
+      Assert.assertFalse(immutable.inner.constructed);
+
+      Hidden hidden = objectMapper.readValue("{\"value\": 5}".getBytes(StandardCharsets.UTF_8), Hidden.class);
+      Assert.assertEquals(5, hidden.value);
+      Assert.assertTrue(hidden.constructed);
+   }
+
+   @Test
+   public void testAllocationPerParse() throws Exception
+   {
+      java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+      Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+      com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+      Assume.assumeTrue(allocationBean.isThreadAllocatedMemorySupported() && allocationBean.isThreadAllocatedMemoryEnabled());
+
+      final int levels = 8;
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < levels; i++) {
+         sb.append("{\"value\": ").append(i).append(", \"next\": ");
+      }
+      sb.append("null");
+      for (int i = 0; i < levels; i++) {
+         sb.append('}');
+      }
+      byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+
+      ObjectMapper objectMapper = JsonFactory.option(Option.FIELD_ACCESS).create();
+      for (int i = 0; i < 1000; i++) {
+         objectMapper.readValue(bytes, Level.class);
+      }
+
+      final int parses = 1000;
+      long before = allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+      Level level = null;
+      for (int i = 0; i < parses; i++) {
+         level = objectMapper.readValue(bytes, Level.class);
+      }
+      long perParse = (allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - before) / parses;
+
+      Assert.assertEquals(levels - 1, level.next.next.next.next.next.next.next.value);
+      // Only the Level instances themselves should be allocated, at most 32 bytes each without compressed oops
+      Assert.assertTrue("Allocated " + perParse + " bytes per parse", perParse <= levels * 32 + 64);
+   }
+
+   @Test
+   public void testReadIntoExisting() throws Exception
+   {
+      ObjectMapper objectMapper = JsonFactory.create();
+      Tick tick = objectMapper.readValue(("{\"symbol\": \"ABC\", \"seq\": 1, \"book\": {\"depth\": 5, \"venue\": \"X\"},"
+                                        + " \"sizes\": [1, 2, 3], \"tags\": {\"a\": \"b\"}}").getBytes(StandardCharsets.UTF_8), Tick.class);
+      Book book = tick.book;
+      List<Integer> sizes = tick.sizes;
+      Map<String, String> tags = tick.tags;
+
+      byte[] update = "{\"seq\": 2, \"book\": {\"depth\": 7}, \"sizes\": [4], \"tags\": {\"c\": \"d\"}}".getBytes(StandardCharsets.UTF_8);
+      for (Tick updated : new Tick[] { objectMapper.readValue(update, tick), objectMapper.readValue(new ByteArrayInputStream(update), tick) }) {
+         Assert.assertSame(tick, updated);
+         Assert.assertEquals("ABC", tick.symbol);
+         Assert.assertEquals(2, tick.seq);
+         Assert.assertSame(book, tick.book);
+         Assert.assertEquals(7, book.depth);
+         Assert.assertEquals("X", book.venue);
+         Assert.assertSame(sizes, tick.sizes);
+         Assert.assertEquals(Arrays.asList(4), sizes);
+         Assert.assertSame(tags, tick.tags);
+         Assert.assertEquals(1, tags.size());
+         Assert.assertEquals("d", tags.get("c"));
+      }
+
+      ArrayDeque<Book> pool = new ArrayDeque<>();
+      pool.push(book);
+      JsonFactory.registerPool(Book.class, pool::poll);
+      try {
+         Tick next = objectMapper.readValue("{\"book\": {\"depth\": 9}}".getBytes(StandardCharsets.UTF_8), Tick.class);
+         Assert.assertSame(book, next.book);
+         Assert.assertEquals(9, book.depth);
+         Assert.assertNotSame(book, objectMapper.readValue("{\"book\": {\"depth\": 1}}".getBytes(StandardCharsets.UTF_8), Tick.class).book);
+      }
+      finally {
+         JsonFactory.registerPool(Book.class, null);
+      }
+   }
+
+   @Test
+   public void testNullPrimitivesAcrossParses() throws Exception
+   {
+      byte[] first = "{\"x\": 7, \"flag\": true, \"d\": 2.5}".getBytes(StandardCharsets.UTF_8);
+      byte[] second = "{\"x\": null, \"flag\": null, \"d\": null}".getBytes(StandardCharsets.UTF_8);
+      for (Option access : new Option[] { Option.FIELD_ACCESS, Option.GENERATED_ACCESS }) {
+         ObjectMapper objectMapper = JsonFactory.option(access).create();
+         Assert.assertEquals(7, objectMapper.readValue(first, Scalars.class).x);
+
+         Scalars scalars = objectMapper.readValue(second, Scalars.class);
+         Assert.assertEquals(access.name(), 0, scalars.x);
+         Assert.assertFalse(scalars.flag);
+         Assert.assertEquals(0.0, scalars.d, 0.0);
+
+         PushParser<Scalars> parser = objectMapper.createPushParser(Scalars.class);
+         parser.feed(second, 0, second.length);
+         scalars = parser.endOfInput();
+         Assert.assertEquals(0, scalars.x);
+         Assert.assertFalse(scalars.flag);
+         Assert.assertEquals(0.0, scalars.d, 0.0);
+      }
+   }
+
    public void loadTest() throws Exception
    {
+      ObjectMapper objectMapper = JsonFactory.create();
       for (int i = 0; i < 10_000_000; i++) {
-         ObjectMapper objectMapper = JsonFactory.create();
          MenuBar2 menuBar = objectMapper.readValue(bais, MenuBar2.class);
          Assert.assertEquals(menuBar.menu.id, "file");
          bais.reset();
       }
    }
+
+   public static class Collide
+   {
+      public int Aa;
+      public int BB;
+      public String AaAa;
+      public String BBBB;
+      public boolean AaBB;
+      @JsonProperty(name = "quoted\"name")
+      public String quotedName;
+      public int value;
+   }
+
+   public static class Strings
+   {
+      public String first;
+      public String second;
+   }
+
+   public static class Tags
+   {
+      @JsonProperty(cacheValue = true)
+      public String status;
+      public String name;
+      public String note;
+   }
+
+   public static class Dates
+   {
+      public Date date;
+      public Instant instant;
+      public OffsetDateTime dateTime;
+      public LocalDate localDate;
+      public Instant missing;
+   }
+
+   public enum Status
+   {
+      ACTIVE,
+      @JsonProperty(name = "on-hold")
+      ON_HOLD,
+      CLOSED {
+         @Override
+         public String toString()
+         {
+            return "closed";
+         }
+      };
+   }
+
+   public static class Ticket
+   {
+      public Status status;
+      public Status previous;
+      public Status none;
+   }
+
+   public static class Containers
+   {
+      public int[] ints;
+      public long[] longs;
+      public double[] doubles;
+      public String[] names;
+      public Strings[] strings;
+      public List<Integer> integers;
+      public List<Status> statuses;
+      public Map<String, Integer> counts;
+      public Map<String, Strings> beans;
+      public int[] empty;
+      public int[] none;
+      public TreeMap<String, Integer> sorted;
+      public LinkedHashMap<String, Integer> ordered;
+      public NavigableMap<String, Integer> navigable;
+      public ConcurrentMap<String, Integer> shared;
+      public Set<String> tags;
+      public SortedSet<String> ranked;
+      public Deque<Integer> queue;
+   }
+
+   public interface Registry extends Map<String, Integer>
+   {
+   }
+
+   public static class Registries
+   {
+      public Registry registry;
+   }
+
+   public static class PrimitiveLists
+   {
+      public IntList ids;
+      @JsonCollection(collectionClass = LongList.class)
+      public List<Long> stamps;
+      public DoubleList values;
+      public List<Integer> counts;
+   }
+
+   public static class Shape
+   {
+      private String name;
+      private int sides;
+      private double area;
+      long id;
+      Point origin;
+      List<Point> corners;
+      int setterCalls;
+
+      public String getName()
+      {
+         return name;
+      }
+
+      public void setName(String name)
+      {
+         this.name = name;
+         setterCalls++;
+      }
+
+      public int getSides()
+      {
+         return sides;
+      }
+
+      public void setSides(int sides)
+      {
+         if (sides < 0) {
+            throw new IllegalArgumentException("sides");
+         }
+         this.sides = sides;
+         setterCalls++;
+      }
+
+      public double getArea()
+      {
+         return area;
+      }
+
+      public void setArea(double area)
+      {
+         this.area = area;
+         setterCalls++;
+      }
+   }
+
+   public static final class Point
+   {
+      final int x;
+      final int y;
+      final String label;
+
+      public Point(int x, int y, String label)
+      {
+         this.x = x;
+         this.y = y;
+         this.label = label;
+      }
+   }
+
+   public static class Primitives
+   {
+      int i;
+      long l;
+      char c;
+      boolean b;
+      double d;
+      String s;
+      final int fin = 0;
+   }
+
+   public static class Immutable
+   {
+      int id;
+      String name = "unset";
+      Immutable inner;
+      boolean constructed = true;
+
+      public Immutable(int id)
+      {
+         this.id = id;
+      }
+   }
+
+   static class Hidden
+   {
+      int value;
+      boolean constructed;
+
+      private Hidden()
+      {
+         constructed = true;
+      }
+   }
+
+   public static class Level
+   {
+      int value;
+      Level next;
+   }
+
+   public static class Tick
+   {
+      String symbol;
+      long seq;
+      Book book;
+      List<Integer> sizes;
+      Map<String, String> tags;
+   }
+
+   public static class Book
+   {
+      int depth;
+      String venue;
+   }
+
+   public static class Scalars
+   {
+      int x;
+      boolean flag;
+      double d;
+   }
+
+   public static class GraphA
+   {
+      GraphB b;
+      List<GraphC> cs;
+   }
+
+   public static class GraphB
+   {
+      GraphA a;
+      GraphC c;
+   }
+
+   public static class GraphC
+   {
+      GraphB b;
+   }
+
+   public static class Excluded
+   {
+      public int Aa;
+      public int BB;
+      @JsonProperty(exclude = true)
+      public Object secret;
+      public int value;
+   }
+
+   private static final class ChunkedInputStream extends ByteArrayInputStream
+   {
+      private final int chunk;
+
+      ChunkedInputStream(byte[] buf, int chunk)
+      {
+         super(buf);
+         this.chunk = chunk;
+      }
+
+      @Override
+      public synchronized int read(byte[] b, int off, int len)
+      {
+         return super.read(b, off, Math.min(len, chunk));
+      }
+   }
 }
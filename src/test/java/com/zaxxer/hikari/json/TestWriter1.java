@@ -0,0 +1,113 @@
+package com.zaxxer.hikari.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.zaxxer.hikari.json.JsonFactory.Option;
+
+public class TestWriter1
+{
+   @Test
+   public void testWriter01() throws Exception
+   {
+      ObjectMapper objectMapper = JsonFactory.create();
+
+      MenuBar2 menuBar = new MenuBar2();
+      menuBar.menu = new MenuBar2.Menu();
+      menuBar.menu.id = "file";
+      menuBar.menu.value = "File";
+      menuBar.menu.popup = new MenuBar2.Popup();
+      menuBar.menu.popup.menuitem = new ArrayList<>();
+      MenuBar2.MenuItem item = new MenuBar2.MenuItem();
+      item.value = "New";
+      item.onclick = "CreateNewDoc()";
+      menuBar.menu.popup.menuitem.add(item);
+
+      Assert.assertEquals("{\"menu\":{\"id\":\"file\",\"value\":\"File\",\"popup\":{\"menuitem\":[{\"value\":\"New\",\"onclick\":\"CreateNewDoc()\"}]}}}",
+                          objectMapper.writeValueAsString(menuBar));
+   }
+
+   @Test
+   public void testWriter02() throws Exception
+   {
+      ObjectMapper objectMapper = JsonFactory.create();
+
+      AllType allType;
+      try (InputStream is = new FileInputStream(new File("src/test/resources/AllTypes.json"))) {
+         allType = objectMapper.readValue(is, AllType.class);
+      }
+
+      allType.myFloat = 1.1f;
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      objectMapper.writeValue(baos, allType);
+      Assert.assertTrue(baos.toString("UTF-8"), baos.toString("UTF-8").contains("\"myFloat\":1.1,"));
+
+      AllType copy = objectMapper.readValue(new ByteArrayInputStream(baos.toByteArray()), AllType.class);
+      Assert.assertEquals(allType.myInt, copy.myInt);
+      Assert.assertEquals(Float.floatToIntBits(allType.myFloat), Float.floatToIntBits(copy.myFloat));
+      Assert.assertEquals(allType.myDouble, copy.myDouble, 0.0001);
+      Assert.assertEquals(allType.myShort, copy.myShort);
+      Assert.assertEquals(allType.myByte, copy.myByte);
+      Assert.assertEquals(allType.myBoolean, copy.myBoolean);
+      Assert.assertEquals(allType.string, copy.string);
+      Assert.assertEquals(allType._date, copy._date);
+      Assert.assertEquals(allType.allType.myInt, copy.allType.myInt);
+      Assert.assertNull(copy.allType.allTypeList);
+      Assert.assertSame(3, copy.allTypeList.size());
+   }
+
+   @Test
+   public void testWriter03() throws Exception
+   {
+      ObjectMapper objectMapper = JsonFactory.create();
+
+      AllType allType = new AllType();
+      allType.myInt = Integer.MIN_VALUE;
+      allType.string = "tab\there \"quoted\" back\\slash \u00e9\u4e2d\ud83d\ude00 \u0001";
+      allType._date = new Date(1386986133412L);
+
+      StringWriter writer = new StringWriter();
+      objectMapper.writeValue(writer, allType);
+      String json = writer.toString();
+      Assert.assertTrue(json.contains("\"myInt\":-2147483648"));
+      Assert.assertTrue(json.contains("\"string\":\"tab\\there \\\"quoted\\\" back\\\\slash \u00e9\u4e2d\ud83d\ude00 \\u0001\""));
+      Assert.assertTrue(json.contains("\"date\":\"2013-12-14T01:55:33.412Z\""));
+      Assert.assertTrue(json.contains("\"string2\":null"));
+      Assert.assertEquals(json, new String(writeBytes(objectMapper, allType), StandardCharsets.UTF_8));
+   }
+
+   @Test
+   public void testWriter04() throws Exception
+   {
+      ObjectMapper objectMapper = JsonFactory.option(Option.FIELD_ACCESS, Option.VALUES_ASCII).create();
+
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < 10_000; i++) {
+         sb.append("abcdefghij");
+      }
+
+      MenuBar2.MenuItem item = new MenuBar2.MenuItem();
+      item.value = sb.toString();
+
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      objectMapper.writeValue(baos, item);
+      Assert.assertEquals("{\"value\":\"" + item.value + "\",\"onclick\":null}", baos.toString("US-ASCII"));
+   }
+
+   private static byte[] writeBytes(ObjectMapper objectMapper, Object value)
+   {
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      objectMapper.writeValue(baos, value);
+      return baos.toByteArray();
+   }
+}